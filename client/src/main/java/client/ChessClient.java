@@ -2,7 +2,7 @@ package client;
 
 import chess.ChessGame;
 import model.AuthData;
-import model.GameData;
+import model.GameSummary;
 import ui.ChessBoardRenderer;
 import java.util.Scanner;
 
@@ -11,7 +11,7 @@ public class ChessClient {
     private final ServerFacade server;
     private final Scanner scanner = new Scanner(System.in);
     private String authToken = null;
-    private GameData[] lastGameList = null;
+    private GameSummary[] lastGameList = null;
 
     private enum State { LOGGED_OUT, LOGGED_IN }
     private State state = State.LOGGED_OUT;
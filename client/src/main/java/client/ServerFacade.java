@@ -2,7 +2,7 @@ package client;
 
 import com.google.gson.Gson;
 import model.AuthData;
-import model.GameData;
+import model.GameSummary;
 
 import java.io.*;
 import java.net.*;
@@ -31,8 +31,8 @@ public class ServerFacade {
         makeRequest("DELETE", "/session", null, authToken, null);
     }
 
-    public GameData[] listGames(String authToken) throws Exception {
-        record ListGamesResponse(GameData[] games) {}
+    public GameSummary[] listGames(String authToken) throws Exception {
+        record ListGamesResponse(GameSummary[] games) {}
         var response = makeRequest("GET", "/game", null, authToken, ListGamesResponse.class);
         return response.games();
     }
@@ -0,0 +1,546 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps database connections open between requests so a DAO call borrows one instead of
+ * paying for a new TCP connection and MySQL handshake
+ * <p>
+ * {@link #borrow} hands out a proxy whose {@code close()} returns the connection to the pool,
+ * so callers keep closing connections in try-with-resources exactly as before. Statements,
+ * result sets and metadata reached through it are proxied too, so their {@code getConnection()}
+ * gives back the proxy rather than the physical connection. A returned connection has its open
+ * statements closed, any open transaction rolled back, auto-commit turned back on, and its
+ * isolation level, read-only flag, catalog and network timeout put back as they were when it
+ * was opened. Idle
+ * connections are reused most recent first, so the ones left over after a burst sit idle and
+ * are the first retired. A connection is checked with {@link Connection#isValid} before reuse if
+ * it has been idle longer than {@link Settings#validationIdleMillis}, and closed instead once it
+ * is older than {@link Settings#maxLifetimeMillis}, which keeps it ahead of the server's
+ * {@code wait_timeout}.
+ * <p>
+ * A background thread retires expired idle connections, tops the pool back up to
+ * {@link Settings#minSize}, and logs the stack trace of the borrower of any connection held
+ * longer than {@link Settings#leakThresholdMillis}.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(ConnectionPool.class.getName());
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    interface Connector {
+        Connection connect() throws SQLException;
+    }
+
+    /**
+     * @param minSize connections kept open even when idle
+     * @param maxSize connections open at most, borrowed and idle together
+     * @param timeoutMillis how long {@link #borrow} waits for a connection before failing
+     * @param validationIdleMillis idle time after which a connection is validated before reuse
+     * @param maxLifetimeMillis age at which a connection is closed rather than reused
+     * @param leakThresholdMillis how long a connection may be held before it is reported as a
+     * possible leak, or 0 to not track borrowers
+     */
+    record Settings(int minSize, int maxSize, long timeoutMillis, long validationIdleMillis,
+                    long maxLifetimeMillis, long leakThresholdMillis) {
+        Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize || timeoutMillis < 0 || maxLifetimeMillis < 1
+                    || leakThresholdMillis < 0) {
+                throw new IllegalArgumentException("invalid connection pool settings");
+            }
+        }
+
+        /**
+         * Reads the optional {@code db.pool.*} properties, using defaults for any left out
+         */
+        static Settings from(Properties props) {
+            return new Settings(
+                    Integer.parseInt(props.getProperty("db.pool.minSize", "2")),
+                    Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                    Long.parseLong(props.getProperty("db.pool.timeoutMillis", "5000")),
+                    Long.parseLong(props.getProperty("db.pool.validationIdleMillis", "500")),
+                    Long.parseLong(props.getProperty("db.pool.maxLifetimeMillis", "1800000")),
+                    Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "0")));
+        }
+    }
+
+    /**
+     * @param open connections, borrowed, idle or being opened
+     * @param borrowed connections currently handed out
+     * @param waiting callers blocked in {@link #borrow}
+     * @param borrows successful borrows since the pool started
+     * @param timeouts borrows that gave up waiting
+     * @param created physical connections opened
+     * @param retired physical connections closed for age, failed validation or errors
+     * @param leaks connections reported as held past the leak threshold
+     * @param averageWaitMicros mean time a successful borrow waited
+     */
+    public record Stats(int open, int borrowed, int waiting, long borrows, long timeouts, long created,
+                        long retired, long leaks, double averageWaitMicros) {
+        public int idle() {
+            return open - borrowed;
+        }
+    }
+
+    private static final class Pooled {
+        final Connection connection;
+        final long createdAt = System.nanoTime();
+        // the session settings the connection opened with, put back when a borrower changed them
+        final int isolation;
+        final boolean readOnly;
+        final String catalog;
+        final int networkTimeout;
+        long returnedAt = createdAt;
+        volatile long borrowedAt;
+        volatile Throwable borrower;
+        volatile boolean reported;
+        volatile boolean settingsChanged;
+
+        Pooled(Connection connection) throws SQLException {
+            this.connection = connection;
+            isolation = connection.getTransactionIsolation();
+            readOnly = connection.isReadOnly();
+            catalog = connection.getCatalog();
+            networkTimeout = networkTimeout(connection);
+        }
+
+        private static int networkTimeout(Connection connection) throws SQLException {
+            try {
+                return connection.getNetworkTimeout();
+            } catch (SQLFeatureNotSupportedException e) {
+                return -1;
+            }
+        }
+
+        void restoreSettings() throws SQLException {
+            if (connection.getTransactionIsolation() != isolation) {
+                connection.setTransactionIsolation(isolation);
+            }
+            if (connection.isReadOnly() != readOnly) {
+                connection.setReadOnly(readOnly);
+            }
+            if (!Objects.equals(connection.getCatalog(), catalog)) {
+                connection.setCatalog(catalog);
+            }
+            if (networkTimeout >= 0 && connection.getNetworkTimeout() != networkTimeout) {
+                connection.setNetworkTimeout(Runnable::run, networkTimeout);
+            }
+            settingsChanged = false;
+        }
+    }
+
+    private final Connector connector;
+    private final Settings settings;
+    private final LinkedBlockingDeque<Pooled> idle = new LinkedBlockingDeque<>();
+    private final Set<Pooled> borrowed = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder retired = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    ConnectionPool(Connector connector, Settings settings) {
+        this.connector = connector;
+        this.settings = settings;
+        permits = new Semaphore(settings.maxSize(), true);
+        housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = settings.leakThresholdMillis() > 0
+                ? Math.max(10, Math.min(1000, settings.leakThresholdMillis() / 2)) : 1000;
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to {@link Settings#timeoutMillis} for one to come free
+     *
+     * @throws SQLException if none came free in time, or a new one could not be opened
+     */
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(settings.timeoutMillis(), TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + settings.timeoutMillis()
+                        + " ms waiting for a database connection (" + stats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        try {
+            Pooled pooled = obtain(start + TimeUnit.MILLISECONDS.toNanos(settings.timeoutMillis()));
+            pooled.borrowedAt = System.nanoTime();
+            pooled.borrower = settings.leakThresholdMillis() > 0 ? new Throwable("borrowed here") : null;
+            pooled.reported = false;
+            borrowed.add(pooled);
+            borrows.increment();
+            waitNanos.add(pooled.borrowedAt - start);
+            return handle(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return an idle connection fit for reuse, retiring any that are not, or null if none is idle
+     */
+    private Pooled takeIdle() {
+        for (Pooled pooled = idle.pollFirst(); pooled != null; pooled = idle.pollFirst()) {
+            long now = System.nanoTime();
+            if (expired(pooled, now)) {
+                retire(pooled);
+            } else if (now - pooled.returnedAt > TimeUnit.MILLISECONDS.toNanos(settings.validationIdleMillis())
+                    && !isValid(pooled)) {
+                retire(pooled);
+            } else {
+                return pooled;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes an idle connection or opens one in a free slot. With every slot open, one of them is
+     * being opened by {@link #fill}, as the caller's permit rules out all of them being
+     * borrowed, so it waits for that one.
+     */
+    private Pooled obtain(long deadline) throws SQLException {
+        while (true) {
+            Pooled pooled = takeIdle();
+            if (pooled != null) {
+                return pooled;
+            }
+            if (reserve(settings.maxSize())) {
+                return create();
+            }
+            long wait = Math.min(deadline - System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(10));
+            if (wait <= 0) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + settings.timeoutMillis()
+                        + " ms waiting for a database connection (" + stats() + ")");
+            }
+            try {
+                pooled = idle.pollFirst(wait, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection", e);
+            }
+            if (pooled != null) {
+                // back on the deque so takeIdle checks it like any other
+                idle.offerFirst(pooled);
+            }
+        }
+    }
+
+    /**
+     * Claims a slot for a connection about to be opened, so the count of open connections never
+     * passes {@code limit} however many threads open them at once
+     *
+     * @return false if {@code limit} connections are already open or being opened
+     */
+    private boolean reserve(int limit) {
+        for (int count = open.get(); count < limit; count = open.get()) {
+            if (open.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Opens a connection in a slot already {@link #reserve reserved}, giving the slot up if it
+     * cannot
+     */
+    private Pooled create() throws SQLException {
+        try {
+            Connection connection = connector.connect();
+            try {
+                Pooled pooled = new Pooled(connection);
+                created.increment();
+                return pooled;
+            } catch (SQLException | RuntimeException e) {
+                connection.close();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            open.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a connection back from its handle, resetting it for the next borrower
+     */
+    private void giveBack(Pooled pooled) {
+        borrowed.remove(pooled);
+        try {
+            Connection connection = pooled.connection;
+            if (connection.isClosed()) {
+                retire(pooled);
+            } else {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                if (pooled.settingsChanged) {
+                    pooled.restoreSettings();
+                }
+                if (closed || expired(pooled, System.nanoTime())) {
+                    retire(pooled);
+                } else {
+                    pooled.returnedAt = System.nanoTime();
+                    idle.offerFirst(pooled);
+                }
+            }
+        } catch (SQLException e) {
+            retire(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean expired(Pooled pooled, long now) {
+        return now - pooled.createdAt >= TimeUnit.MILLISECONDS.toNanos(settings.maxLifetimeMillis());
+    }
+
+    private static boolean isValid(Pooled pooled) {
+        try {
+            return pooled.connection.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void retire(Pooled pooled) {
+        open.decrementAndGet();
+        retired.increment();
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            // already unusable, nothing more to release
+        }
+    }
+
+    private void houseKeep() {
+        try {
+            long now = System.nanoTime();
+            for (Pooled pooled : idle.toArray(new Pooled[0])) {
+                if (expired(pooled, now) && idle.remove(pooled)) {
+                    retire(pooled);
+                }
+            }
+            fill();
+            long threshold = TimeUnit.MILLISECONDS.toNanos(settings.leakThresholdMillis());
+            if (threshold > 0) {
+                for (Pooled pooled : borrowed) {
+                    if (!pooled.reported && now - pooled.borrowedAt > threshold) {
+                        pooled.reported = true;
+                        leaks.increment();
+                        LOG.log(System.Logger.Level.WARNING, "Database connection held for more than "
+                                + settings.leakThresholdMillis() + " ms, possible leak", pooled.borrower);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.WARNING, "Connection pool housekeeping failed", e);
+        }
+    }
+
+    /**
+     * Opens connections until {@link Settings#minSize} are open, if there is room for them
+     */
+    void fill() {
+        while (!closed && open.get() < settings.minSize() && permits.tryAcquire()) {
+            try {
+                if (!reserve(settings.minSize())) {
+                    return;
+                }
+                Pooled pooled = create();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                LOG.log(System.Logger.Level.WARNING, "Could not open a database connection", e);
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    Stats stats() {
+        long count = borrows.sum();
+        return new Stats(open.get(), borrowed.size(), waiting.get(), count, timeouts.sum(), created.sum(),
+                retired.sum(), leaks.sum(), count == 0 ? 0 : waitNanos.sum() / 1000.0 / count);
+    }
+
+    /**
+     * Closes the idle connections and stops housekeeping; borrowed connections are closed as
+     * they come back
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        for (Pooled pooled = idle.pollFirst(); pooled != null; pooled = idle.pollFirst()) {
+            retire(pooled);
+        }
+    }
+
+    private Connection handle(Pooled pooled) {
+        return new Handle(pooled).connection;
+    }
+
+    /**
+     * What a borrower holds: proxies for the connection and for every statement, result set and
+     * metadata object reached through it, so that none of them leads back to the physical
+     * connection or stays usable once the connection is returned. Only {@code unwrap} gets past
+     * them.
+     */
+    private final class Handle {
+        private static final Set<String> SETTINGS =
+                Set.of("setTransactionIsolation", "setReadOnly", "setCatalog", "setNetworkTimeout");
+
+        final Pooled pooled;
+        final Connection connection;
+        // statements still open, closed when the connection is returned; a handle is used by one thread
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean released;
+
+        Handle(Pooled pooled) {
+            this.pooled = pooled;
+            connection = proxy(Connection.class, pooled.connection, null);
+        }
+
+        private <T> T proxy(Class<T> type, Object target, Object owner) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> invoke(proxy, target, owner, method, args)));
+        }
+
+        /**
+         * @param owner the statement proxy a result set came from, or null
+         */
+        private Object invoke(Object proxy, Object target, Object owner, Method method, Object[] args)
+                throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "pooled " + target;
+                }
+                case "isClosed" -> {
+                    return released || (Boolean) call(target, method, args);
+                }
+                case "close" -> {
+                    if (target == pooled.connection) {
+                        release();
+                    } else if (!released) {
+                        statements.remove(target);
+                        call(target, method, args);
+                    }
+                    return null;
+                }
+                case "getConnection" -> {
+                    return connection;
+                }
+                case "getStatement" -> {
+                    return owner;
+                }
+                default -> {
+                    if (released) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    if (target == pooled.connection && SETTINGS.contains(method.getName())) {
+                        pooled.settingsChanged = true;
+                    }
+                    return expose(call(target, method, args), target instanceof Statement ? proxy : null);
+                }
+            }
+        }
+
+        private static Object call(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Object expose(Object result, Object statement) {
+            if (result instanceof CallableStatement callable) {
+                statements.add(callable);
+                return proxy(CallableStatement.class, callable, null);
+            } else if (result instanceof PreparedStatement prepared) {
+                statements.add(prepared);
+                return proxy(PreparedStatement.class, prepared, null);
+            } else if (result instanceof Statement plain) {
+                statements.add(plain);
+                return proxy(Statement.class, plain, null);
+            } else if (result instanceof ResultSet rs) {
+                return proxy(ResultSet.class, rs, statement);
+            } else if (result instanceof DatabaseMetaData metaData) {
+                return proxy(DatabaseMetaData.class, metaData, null);
+            }
+            return result;
+        }
+
+        private void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // the connection is checked as it goes back
+                }
+            }
+            statements.clear();
+            giveBack(pooled);
+        }
+    }
+}
@@ -1,13 +1,33 @@
 package dataaccess;
 
 import java.sql.*;
+import java.util.Map;
 import java.util.Properties;
 
 public class DatabaseManager {
+    /**
+     * Connector/J settings every pooled connection starts with: statements are prepared on the
+     * server and the driver keeps them per connection, so closing a statement keeps it parsed
+     * and the next {@code prepareStatement} of the same SQL on that connection reuses it. Since
+     * pooled connections live for many requests, each DAO statement is parsed about once per
+     * connection instead of once per call. Auto-commit and isolation are tracked locally so the
+     * pool's reset of a returned connection needs no round trip when nothing changed.
+     */
+    private static final Map<String, String> CONNECTION_DEFAULTS = Map.of(
+            "useServerPrepStmts", "true",
+            "cachePrepStmts", "true",
+            "prepStmtCacheSize", "256",
+            "prepStmtCacheSqlLimit", "2048",
+            "useLocalSessionState", "true");
+
     private static String databaseName;
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static boolean compressGames;
+    private static ConnectionPool.Settings poolSettings;
+    private static Properties connectionProperties;
+    private static volatile ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -30,10 +50,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrows a connection to the database from the pool, its catalog set based upon the
+     * properties specified in db.properties. Connections should be short-lived, and you must
+     * close the connection when you are done with it, which returns it to the pool. The
+     * easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DatabaseManager.getConnection()) {
@@ -44,14 +64,38 @@ public class DatabaseManager {
     static Connection getConnection() throws DataAccessException {
         try {
             //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return pool().borrow();
         } catch (SQLException ex) {
             throw new DataAccessException("Error: failed to get connection", ex);
         }
     }
 
+    /**
+     * @return the connection pool's counters, for monitoring
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return pool().stats();
+    }
+
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        return current != null ? current : createPool();
+    }
+
+    private static synchronized ConnectionPool createPool() {
+        if (pool == null) {
+            String url = connectionUrl;
+            Properties info = connectionProperties;
+            String catalog = databaseName;
+            pool = new ConnectionPool(() -> {
+                var conn = DriverManager.getConnection(url, info);
+                conn.setCatalog(catalog);
+                return conn;
+            }, poolSettings);
+        }
+        return pool;
+    }
+
     static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -65,7 +109,7 @@ public class DatabaseManager {
         }
     }
 
-    static void loadProperties(Properties props) {
+    static synchronized void loadProperties(Properties props) {
         databaseName = props.getProperty("db.name");
         dbUsername = props.getProperty("db.user");
         dbPassword = props.getProperty("db.password");
@@ -73,6 +117,37 @@ public class DatabaseManager {
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
         connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        compressGames = Boolean.parseBoolean(props.getProperty("db.compressGames", "false"));
+        poolSettings = ConnectionPool.Settings.from(props);
+
+        // any db.jdbc.* property is passed to the driver, overriding the defaults
+        connectionProperties = new Properties();
+        CONNECTION_DEFAULTS.forEach(connectionProperties::setProperty);
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith("db.jdbc.")) {
+                connectionProperties.setProperty(name.substring("db.jdbc.".length()), props.getProperty(name));
+            }
+        }
+        if (dbUsername != null) {
+            connectionProperties.setProperty("user", dbUsername);
+        }
+        if (dbPassword != null) {
+            connectionProperties.setProperty("password", dbPassword);
+        }
+
+        // connections to the old database must not be handed out any more
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return whether new game snapshots are written compressed to {@code games.game_blob}, set by
+     * the optional {@code db.compressGames} property
+     */
+    static boolean compressGames() {
+        return compressGames;
     }
 
     static void createTables() throws DataAccessException {
@@ -96,7 +171,26 @@ public class DatabaseManager {
                     white_username VARCHAR(255),
                     black_username VARCHAR(255),
                     game_name VARCHAR(255) NOT NULL,
-                    game_data TEXT NOT NULL
+                    game_data TEXT NOT NULL,
+                    game_blob BLOB,
+                    snapshot_ply INT NOT NULL DEFAULT 0,
+                    move_count INT NOT NULL DEFAULT 0
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS game_moves (
+                    game_id INT NOT NULL,
+                    ply INT NOT NULL,
+                    move SMALLINT NOT NULL,
+                    PRIMARY KEY (game_id, ply)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS game_migrations (
+                    name VARCHAR(255) NOT NULL PRIMARY KEY,
+                    last_game_id INT NOT NULL DEFAULT 0,
+                    scanned BIGINT NOT NULL DEFAULT 0,
+                    rewritten BIGINT NOT NULL DEFAULT 0
                 )
                 """
         };
@@ -107,13 +201,37 @@ public class DatabaseManager {
                     preparedStatement.executeUpdate();
                 }
             }
+            // games tables created before the move log existed lack its columns
+            addColumnIfMissing(conn, "games", "snapshot_ply", "INT NOT NULL DEFAULT 0");
+            addColumnIfMissing(conn, "games", "move_count", "INT NOT NULL DEFAULT 0");
+            addColumnIfMissing(conn, "games", "game_blob", "BLOB");
         } catch (SQLException e) {
             throw new DataAccessException("Error creating tables: " + e.getMessage(), e);
         }
     }
 
+    private static void addColumnIfMissing(Connection conn, String table, String column, String definition)
+            throws SQLException {
+        String sql = "SELECT COUNT(*) FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (var stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, databaseName);
+            stmt.setString(2, table);
+            stmt.setString(3, column);
+            try (var rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    return;
+                }
+            }
+        }
+        try (var stmt = conn.prepareStatement("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition)) {
+            stmt.executeUpdate();
+        }
+    }
+
     public static void initialize() throws DataAccessException {
         createDatabase();
         createTables();
+        pool().fill();
     }
 }
@@ -1,8 +1,12 @@
 package dataaccess;
 
 import model.GameData;
+import model.GameSummary;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 
 public interface GameDAO {
     int createGame(GameData game) throws DataAccessException;
@@ -10,4 +14,21 @@ public interface GameDAO {
     Collection<GameData> listGames() throws DataAccessException;
     void updateGame(GameData game) throws DataAccessException;
     void clear() throws DataAccessException;
+
+    /**
+     * @return the summaries of at most {@code limit} games with IDs above {@code afterGameID}, in
+     * ID order, so a caller can page through every game by passing the last ID it got. By
+     * default it summarizes the result of {@link #listGames}; a DAO that can read summaries
+     * without loading boards should override it.
+     */
+    default List<GameSummary> listSummaries(int afterGameID, int limit) throws DataAccessException {
+        var summaries = new ArrayList<GameSummary>();
+        for (GameData game : listGames()) {
+            if (game.gameID() > afterGameID) {
+                summaries.add(GameSummary.of(game));
+            }
+        }
+        summaries.sort(Comparator.comparingInt(GameSummary::gameID));
+        return summaries.subList(0, Math.min(limit, summaries.size()));
+    }
 }
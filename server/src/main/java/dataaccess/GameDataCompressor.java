@@ -0,0 +1,174 @@
+package dataaccess;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses serialized games for the {@code games.game_blob} column with a preset dictionary
+ * <p>
+ * Stored values start with a format byte: {@link #RAW} for UTF-8 text as is, or
+ * {@link #DEFLATE_V1} for raw deflate primed with {@link #DICTIONARY_V1}. A game row is only a
+ * few dozen characters, too short for deflate to find repeats within it, but nearly all of it
+ * (rank strings like {@code pppppppp}, {@code /8/8/}, the side to move, common moves) also appears
+ * in the dictionary. A changed dictionary needs a new format byte, since rows written with the
+ * old one must stay readable.
+ */
+final class GameDataCompressor {
+    static final byte RAW = 0;
+    static final byte DEFLATE_V1 = 1;
+
+    /**
+     * Picked by hand from engine self-play snapshots, guided by {@link #train}, with the most
+     * frequent strings last since deflate reaches the end of the dictionary with the shortest
+     * distances
+     */
+    static final byte[] DICTIONARY_V1 = (
+            "1P2/3P4/2P5/5P2/4P3/6P1/1p6/4p3/3p4/2p5/5p2/6p1/2N5/5N2/2n5/5n2/3B4/4B3/2b5/5b2/1K6/6K1/1k6/6k1/"
+                    + "R4RK1/r4rk1/2KR4/2kr4/PP3PPP/pp3ppp/PPP2PPP/ppp2ppp/PP2PPPP/pp2pppp/R1BQKB1R/r1bqkb1r/"
+                    + "RNBQK2R/rnbqk2r/R1BQK2R/r1bqk2r/1PPP1PPP/1ppp1ppp/PPP1PPPP/ppp1pppp/PPPP1PPP/pppp1ppp/"
+                    + "RNBQKB1R/rnbqkb1r/R1BQKBNR/r1bqkbnr/RNBQKBNR w/rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b"
+    ).getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Deflater> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private GameDataCompressor() {
+    }
+
+    static byte[] compress(String text) {
+        return compress(text, DICTIONARY_V1, DEFLATE_V1);
+    }
+
+    /**
+     * Compresses with any dictionary, for trying one out before giving it a format byte
+     */
+    static byte[] compress(String text, byte[] dictionary, byte format) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setDictionary(dictionary);
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] buffer = new byte[input.length + 64];
+        buffer[0] = format;
+        int length = 1;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    static byte[] raw(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = new byte[input.length + 1];
+        stored[0] = RAW;
+        System.arraycopy(input, 0, stored, 1, input.length);
+        return stored;
+    }
+
+    /**
+     * @throws DataAccessException if the format byte is unknown or the data is damaged
+     */
+    static String decompress(byte[] stored) throws DataAccessException {
+        if (stored.length == 0) {
+            throw new DataAccessException("Error: empty game data");
+        }
+        return switch (stored[0]) {
+            case RAW -> new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case DEFLATE_V1 -> inflate(stored, DICTIONARY_V1);
+            default -> throw new DataAccessException("Error: unknown game data format " + stored[0]);
+        };
+    }
+
+    static String inflate(byte[] stored, byte[] dictionary) throws DataAccessException {
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setDictionary(dictionary);
+        inflater.setInput(stored, 1, stored.length - 1);
+        var out = new ByteArrayOutputStream(stored.length * 4);
+        byte[] buffer = new byte[256];
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataAccessException("Error: truncated game data");
+                }
+                out.write(buffer, 0, length);
+            }
+        } catch (DataFormatException e) {
+            throw new DataAccessException("Error: damaged game data", e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a dictionary from sample rows by repeatedly taking the substring that would save the
+     * most bytes across them, counted at most once per sample, and blanking it out of the samples
+     * so the next pick covers something else
+     *
+     * @param size the dictionary's maximum length in bytes
+     */
+    static byte[] train(Collection<String> samples, int size) {
+        List<StringBuilder> remaining = new ArrayList<>();
+        samples.forEach(sample -> remaining.add(new StringBuilder(sample)));
+        List<String> chosen = new ArrayList<>();
+        int length = 0;
+        while (true) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (StringBuilder sample : remaining) {
+                Set<String> seen = new HashSet<>();
+                for (int start = 0; start < sample.length(); start++) {
+                    for (int end = start + 4; end <= Math.min(sample.length(), start + 32); end++) {
+                        if (sample.charAt(end - 1) == 0) {
+                            break;
+                        }
+                        seen.add(sample.substring(start, end));
+                    }
+                }
+                seen.forEach(piece -> counts.merge(piece, 1, Integer::sum));
+            }
+            String best = null;
+            long bestSaving = 0;
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                // a match costs about three bytes, so longer pieces save more per occurrence
+                long saving = (long) entry.getValue() * (entry.getKey().length() - 3);
+                if (entry.getValue() > 1 && saving > bestSaving && length + entry.getKey().length() <= size) {
+                    best = entry.getKey();
+                    bestSaving = saving;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            chosen.add(best);
+            length += best.length();
+            for (StringBuilder sample : remaining) {
+                for (int at = sample.indexOf(best); at >= 0; at = sample.indexOf(best, at + best.length())) {
+                    for (int i = at; i < at + best.length(); i++) {
+                        sample.setCharAt(i, (char) 0);
+                    }
+                }
+            }
+        }
+        var dictionary = new StringBuilder(length);
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            dictionary.append(chosen.get(i));
+        }
+        return dictionary.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+package dataaccess;
+
+import chess.ChessGame;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Rewrites every stored game snapshot in the format a {@link SqlGameDAO} currently writes,
+ * while the server keeps using the table
+ * <p>
+ * Rows are walked in {@code game_id} order in batches, each batch read
+ * with {@link SqlGameDAO#readSnapshot}, which understands every format games were ever stored
+ * in, and written back in one short transaction that holds row locks on that batch only. Rows
+ * already in the current format are left alone. The last game ID of each batch is saved in
+ * {@code game_migrations} under the migration's name in the same transaction, so a stopped
+ * migration resumes after the last committed batch, and running a finished one again does
+ * nothing. Batches are spaced out to hold the migration to a set number of rows a second.
+ * <p>
+ * Only games that exist when the run starts are visited; the server writes newer ones in the
+ * new format itself, provided it runs with the same settings as the migration's DAO.
+ */
+public class GameDataMigration {
+    /**
+     * How far a migration has got, counting every run under its name
+     *
+     * @param lastGameID the last game ID whose batch has been committed
+     * @param maxGameID the highest game ID when this run started
+     * @param scanned rows read so far
+     * @param rewritten rows that were not yet in the current format and were rewritten
+     */
+    public record Progress(String name, int lastGameID, int maxGameID, long scanned, long rewritten) {
+        public boolean done() {
+            return lastGameID >= maxGameID;
+        }
+    }
+
+    private final String name;
+    private final SqlGameDAO writer;
+    private final int batchSize;
+    private final double rowsPerSecond;
+
+    /**
+     * @param name identifies the migration's checkpoint, so a new format change needs a new name
+     * @param writer the DAO whose format rows are rewritten in
+     * @param rowsPerSecond the most rows to read a second, or 0 for no limit
+     */
+    public GameDataMigration(String name, SqlGameDAO writer, int batchSize, double rowsPerSecond) {
+        if (batchSize < 1 || rowsPerSecond < 0) {
+            throw new IllegalArgumentException("batch size must be positive and rate not negative");
+        }
+        this.name = name;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * Migrates the remaining rows, reporting after every committed batch
+     *
+     * @return the progress once every row has been visited
+     * @throws InterruptedException if interrupted between batches; committed batches stay
+     * migrated and a later run carries on from them
+     */
+    public Progress run(Consumer<Progress> onBatch) throws DataAccessException, InterruptedException {
+        Progress progress = start();
+        long started = System.nanoTime();
+        long scannedAtStart = progress.scanned();
+        while (!progress.done()) {
+            progress = migrateBatch(progress);
+            onBatch.accept(progress);
+            if (rowsPerSecond > 0) {
+                long due = started + (long) ((progress.scanned() - scannedAtStart) / rowsPerSecond * 1e9);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+            }
+        }
+        return progress;
+    }
+
+    private Progress start() throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection()) {
+            try (var stmt = conn.prepareStatement("INSERT IGNORE INTO game_migrations (name) VALUES (?)")) {
+                stmt.setString(1, name);
+                stmt.executeUpdate();
+            }
+            int maxGameID;
+            try (var stmt = conn.prepareStatement("SELECT COALESCE(MAX(game_id), 0) FROM games");
+                 var rs = stmt.executeQuery()) {
+                rs.next();
+                maxGameID = rs.getInt(1);
+            }
+            String sql = "SELECT last_game_id, scanned, rewritten FROM game_migrations WHERE name = ?";
+            try (var stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, name);
+                try (var rs = stmt.executeQuery()) {
+                    rs.next();
+                    return new Progress(name, rs.getInt("last_game_id"), maxGameID,
+                            rs.getLong("scanned"), rs.getLong("rewritten"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error starting migration " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Progress migrateBatch(Progress progress) throws DataAccessException {
+        String selectSql = "SELECT game_id, game_data, game_blob FROM games "
+                + "WHERE game_id > ? AND game_id <= ? ORDER BY game_id LIMIT ? FOR UPDATE";
+        String updateSql = "UPDATE games SET game_data=?, game_blob=? WHERE game_id=?";
+        String checkpointSql = "UPDATE game_migrations SET last_game_id=?, scanned=?, rewritten=? WHERE name=?";
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int lastGameID = progress.maxGameID();
+                int scanned = 0;
+                int rewritten = 0;
+                try (var select = conn.prepareStatement(selectSql);
+                     var update = conn.prepareStatement(updateSql)) {
+                    select.setInt(1, progress.lastGameID());
+                    select.setInt(2, progress.maxGameID());
+                    select.setInt(3, batchSize);
+                    try (var rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            scanned++;
+                            lastGameID = rs.getInt("game_id");
+                            ChessGame snapshot = writer.readSnapshot(rs);
+                            if (!writer.isWrittenAsCurrent(rs, snapshot)) {
+                                writer.setSnapshot(update, 1, snapshot);
+                                update.setInt(3, lastGameID);
+                                update.addBatch();
+                                rewritten++;
+                            }
+                        }
+                    }
+                    if (rewritten > 0) {
+                        update.executeBatch();
+                    }
+                }
+                // a short batch means nothing is left up to maxGameID, so the checkpoint can jump there
+                if (scanned < batchSize) {
+                    lastGameID = progress.maxGameID();
+                }
+                var next = new Progress(name, lastGameID, progress.maxGameID(),
+                        progress.scanned() + scanned, progress.rewritten() + rewritten);
+                saveCheckpoint(conn, checkpointSql, next);
+                conn.commit();
+                return next;
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error migrating games after " + progress.lastGameID() + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private static void saveCheckpoint(Connection conn, String sql, Progress progress) throws SQLException {
+        try (var stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, progress.lastGameID());
+            stmt.setLong(2, progress.scanned());
+            stmt.setLong(3, progress.rewritten());
+            stmt.setString(4, progress.name());
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Runs a migration against the database in {@code db.properties}, rewriting rows in the
+     * format its {@code db.compressGames} setting selects
+     * <p>
+     * Usage: {@code GameDataMigration <name> [rowsPerSecond=1000] [batchSize=500]}
+     */
+    public static void main(String[] args) throws DataAccessException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("usage: GameDataMigration <name> [rowsPerSecond] [batchSize]");
+            System.exit(2);
+        }
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 1000;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        DatabaseManager.initialize();
+        var migration = new GameDataMigration(args[0], new SqlGameDAO(), batchSize, rate);
+        Progress done = migration.run(progress -> System.out.printf("%s: game %d of %d, %d read, %d rewritten%n",
+                progress.name(), progress.lastGameID(), progress.maxGameID(), progress.scanned(),
+                progress.rewritten()));
+        System.out.printf("%s finished: %d rows read, %d rewritten%n", done.name(), done.scanned(),
+                done.rewritten());
+    }
+}
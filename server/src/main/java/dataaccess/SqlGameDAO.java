@@ -1,34 +1,100 @@
 package dataaccess;
 
+import chess.ChessBoard;
 import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
 import com.google.gson.Gson;
 import model.GameData;
+import model.GameSummary;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Stores games as a snapshot of the board in {@code games.game_data} plus an append-only log
+ * of moves in {@code game_moves}
+ * <p>
+ * A move costs one small {@code game_moves} row instead of rewriting the whole game. Every
+ * {@link #SNAPSHOT_INTERVAL} moves the current position is written as a new snapshot, so
+ * loading a game replays at most that many moves. {@code snapshot_ply} records how many moves
+ * the snapshot already contains and {@code move_count} how many are logged. The log keeps every
+ * move of the game, which {@link #listMoves} returns.
+ * <p>
+ * A loaded game's move history starts at its snapshot. The DAO remembers, for each game object
+ * it hands out or is given, the ply that history starts at and the moves logged after it, and
+ * {@link #updateGame} refuses the game unless the log still holds exactly those moves, so an
+ * update made through another object is never overwritten. Otherwise it appends whatever the
+ * history has gained and replaces logged moves that were taken back. Taking a snapshot does not
+ * change where the history starts, so the same object can go on being updated across snapshots.
+ * A game the DAO has not seen, such as a new {@link ChessGame}, must start at the stored snapshot
+ * with no moves logged after it.
+ * <p>
+ * With compression on, snapshots go to {@code game_blob} through {@link GameDataCompressor} and
+ * {@code game_data} is left empty. Rows are read from {@code game_blob} whenever it is set, so
+ * either kind of row loads whichever way the DAO writes.
+ */
 public class SqlGameDAO implements GameDAO {
+    static final int SNAPSHOT_INTERVAL = 32;
+
+    private static final LoadedGames LOADED = new LoadedGames();
+
     private final Gson gson = new Gson();
+    private final boolean compress;
+
+    public SqlGameDAO() {
+        this(DatabaseManager.compressGames());
+    }
+
+    /**
+     * @param compress whether to write snapshots compressed to {@code game_blob}
+     */
+    public SqlGameDAO(boolean compress) {
+        this.compress = compress;
+    }
 
     @Override
     public int createGame(GameData game) throws DataAccessException {
-        String sql = "INSERT INTO games (white_username, black_username, game_name, game_data) VALUES (?, ?, ?, ?)";
-        String gameJson = gson.toJson(game.game());
-        try (var conn = DatabaseManager.getConnection();
-             var stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            stmt.setString(1, game.whiteUsername());
-            stmt.setString(2, game.blackUsername());
-            stmt.setString(3, game.gameName());
-            stmt.setString(4, gameJson);
-            stmt.executeUpdate();
-
-            try (var keys = stmt.getGeneratedKeys()) {
-                if (keys.next()) {
-                    return keys.getInt(1);
+        String sql = "INSERT INTO games (white_username, black_username, game_name, game_data, game_blob, "
+                + "snapshot_ply, move_count) VALUES (?, ?, ?, ?, ?, 0, ?)";
+        List<ChessMove> moves = playedMoves(game.game());
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, game.whiteUsername());
+                stmt.setString(2, game.blackUsername());
+                stmt.setString(3, game.gameName());
+                setSnapshot(stmt, 4, historyStart(game.game()));
+                stmt.setInt(6, moves.size());
+                stmt.executeUpdate();
+
+                int gameID;
+                try (var keys = stmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new DataAccessException("No game ID generated");
+                    }
+                    gameID = keys.getInt(1);
                 }
-                throw new DataAccessException("No game ID generated");
+                appendMoves(conn, gameID, 0, moves);
+                conn.commit();
+                remember(gameID, game.game(), 0);
+                return gameID;
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error creating game: " + e.getMessage(), e);
@@ -37,75 +103,414 @@ public class SqlGameDAO implements GameDAO {
 
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        String sql = "SELECT game_id, white_username, black_username, game_name, game_data FROM games WHERE game_id = ?";
+        String sql = "SELECT game_id, white_username, black_username, game_name, game_data, game_blob, "
+                + "snapshot_ply FROM games WHERE game_id = ?";
+        String movesSql = "SELECT move FROM game_moves WHERE game_id = ? AND ply > ? ORDER BY ply";
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, gameID);
             try (var rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    ChessGame chessGame = gson.fromJson(rs.getString("game_data"), ChessGame.class);
-                    return new GameData(
-                            rs.getInt("game_id"),
-                            rs.getString("white_username"),
-                            rs.getString("black_username"),
-                            rs.getString("game_name"),
-                            chessGame
-                    );
+                if (!rs.next()) {
+                    return null;
+                }
+                GameData game = readGame(rs);
+                int snapshotPly = rs.getInt("snapshot_ply");
+                try (var movesStmt = conn.prepareStatement(movesSql)) {
+                    movesStmt.setInt(1, gameID);
+                    movesStmt.setInt(2, snapshotPly);
+                    try (var moves = movesStmt.executeQuery()) {
+                        while (moves.next()) {
+                            replay(game, moves.getInt("move"));
+                        }
+                    }
                 }
-                return null;
+                remember(game.gameID(), game.game(), snapshotPly);
+                return game;
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error getting game: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Reads every game in ID order, each game's row joined with the moves logged after its
+     * snapshot
+     */
     @Override
     public Collection<GameData> listGames() throws DataAccessException {
-        String sql = "SELECT game_id, white_username, black_username, game_name, game_data FROM games";
+        String sql = "SELECT g.game_id, g.white_username, g.black_username, g.game_name, g.game_data, g.game_blob, "
+                + "g.snapshot_ply, m.move FROM games g LEFT JOIN game_moves m ON m.game_id = g.game_id "
+                + "AND m.ply > g.snapshot_ply ORDER BY g.game_id, m.ply";
         var games = new ArrayList<GameData>();
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.prepareStatement(sql);
              var rs = stmt.executeQuery()) {
+            GameData game = null;
+            int snapshotPly = 0;
             while (rs.next()) {
-                ChessGame chessGame = gson.fromJson(rs.getString("game_data"), ChessGame.class);
-                games.add(new GameData(
-                        rs.getInt("game_id"),
-                        rs.getString("white_username"),
-                        rs.getString("black_username"),
-                        rs.getString("game_name"),
-                        chessGame
-                ));
+                if (game == null || game.gameID() != rs.getInt("game_id")) {
+                    if (game != null) {
+                        remember(game.gameID(), game.game(), snapshotPly);
+                    }
+                    game = readGame(rs);
+                    snapshotPly = rs.getInt("snapshot_ply");
+                    games.add(game);
+                }
+                int move = rs.getInt("move");
+                if (!rs.wasNull()) {
+                    replay(game, move);
+                }
+            }
+            if (game != null) {
+                remember(game.gameID(), game.game(), snapshotPly);
             }
-            return games;
         } catch (SQLException e) {
             throw new DataAccessException("Error listing games: " + e.getMessage(), e);
         }
+        return games;
     }
 
+    /**
+     * Reads the ID, name and players of a page of games, leaving the snapshot and move log
+     * unread. The page is read whole before the connection goes back to the pool, so a caller
+     * that is slow to take it holds no connection.
+     */
     @Override
-    public void updateGame(GameData game) throws DataAccessException {
-        String sql = "UPDATE games SET white_username=?, black_username=?, game_data=? WHERE game_id=?";
-        String gameJson = gson.toJson(game.game());
+    public List<GameSummary> listSummaries(int afterGameID, int limit) throws DataAccessException {
+        String sql = "SELECT game_id, white_username, black_username, game_name FROM games "
+                + "WHERE game_id > ? ORDER BY game_id LIMIT ?";
+        var summaries = new ArrayList<GameSummary>();
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, game.whiteUsername());
-            stmt.setString(2, game.blackUsername());
-            stmt.setString(3, gameJson);
-            stmt.setInt(4, game.gameID());
-            stmt.executeUpdate();
+            stmt.setInt(1, afterGameID);
+            stmt.setInt(2, limit);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    summaries.add(new GameSummary(rs.getInt("game_id"), rs.getString("white_username"),
+                            rs.getString("black_username"), rs.getString("game_name")));
+                }
+            }
         } catch (SQLException e) {
-            throw new DataAccessException("Error updating game: " + e.getMessage(), e);
+            throw new DataAccessException("Error listing games: " + e.getMessage(), e);
         }
+        return summaries;
     }
 
     @Override
-    public void clear() throws DataAccessException {
-        String sql = "TRUNCATE TABLE games";
+    public void updateGame(GameData game) throws DataAccessException {
+        String lockSql = "SELECT game_data, game_blob, snapshot_ply, move_count FROM games "
+                + "WHERE game_id = ? FOR UPDATE";
+        String loggedSql = "SELECT move FROM game_moves WHERE game_id = ? AND ply > ? ORDER BY ply";
+        String deleteSql = "DELETE FROM game_moves WHERE game_id = ? AND ply > ?";
+        String sql = "UPDATE games SET white_username=?, black_username=?, move_count=? WHERE game_id=?";
+        String snapshotSql = "UPDATE games SET white_username=?, black_username=?, move_count=?, "
+                + "game_data=?, game_blob=?, snapshot_ply=? WHERE game_id=?";
+        List<ChessMove> played = playedMoves(game.game());
+        Loaded loaded = LOADED.get(game.game());
+        if (loaded != null && loaded.gameID() != game.gameID()) {
+            // last seen as another game, so nothing is known about this one
+            loaded = null;
+        }
+        if (loaded != null && !loaded.startsAt(game.game())) {
+            // the position was set since, so the history no longer continues the log
+            throw new DataAccessException("Error: game changed since it was loaded");
+        }
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int snapshotPly;
+                int moveCount;
+                int base;
+                int[] expected;
+                try (var stmt = conn.prepareStatement(lockSql)) {
+                    stmt.setInt(1, game.gameID());
+                    try (var rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return;
+                        }
+                        snapshotPly = rs.getInt("snapshot_ply");
+                        moveCount = rs.getInt("move_count");
+                        if (loaded != null) {
+                            base = loaded.base();
+                            expected = loaded.moves();
+                        } else if (moveCount == snapshotPly && readSnapshot(rs).equals(historyStart(game.game()))) {
+                            base = snapshotPly;
+                            expected = new int[0];
+                        } else {
+                            throw new DataAccessException("Error: game changed since it was loaded");
+                        }
+                    }
+                }
+                if (moveCount != base + expected.length || !Arrays.equals(expected, logged(conn, loggedSql,
+                        game.gameID(), base))) {
+                    throw new DataAccessException("Error: game changed since it was loaded");
+                }
+
+                // the log is as loaded, so any logged move the game no longer agrees with was taken back
+                int kept = 0;
+                while (kept < expected.length && kept < played.size()
+                        && expected[kept] == ChessGameCodec.packMove(played.get(kept))) {
+                    kept++;
+                }
+                if (base + kept < moveCount) {
+                    try (var stmt = conn.prepareStatement(deleteSql)) {
+                        stmt.setInt(1, game.gameID());
+                        stmt.setInt(2, base + kept);
+                        stmt.executeUpdate();
+                    }
+                }
+                appendMoves(conn, game.gameID(), base + kept, played.subList(kept, played.size()));
+                moveCount = base + played.size();
+
+                // a move taken back from before the snapshot leaves the snapshot wrong as well as old
+                boolean snapshot = moveCount - snapshotPly >= SNAPSHOT_INTERVAL || base + kept < snapshotPly;
+                try (var stmt = conn.prepareStatement(snapshot ? snapshotSql : sql)) {
+                    stmt.setString(1, game.whiteUsername());
+                    stmt.setString(2, game.blackUsername());
+                    stmt.setInt(3, moveCount);
+                    if (snapshot) {
+                        setSnapshot(stmt, 4, position(game.game()));
+                        stmt.setInt(6, moveCount);
+                        stmt.setInt(7, game.gameID());
+                    } else {
+                        stmt.setInt(4, game.gameID());
+                    }
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+                remember(game.gameID(), game.game(), base);
+            } catch (SQLException | DataAccessException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating game: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return every move of a game from its creation, including those already folded into a
+     * snapshot
+     */
+    public List<ChessMove> listMoves(int gameID) throws DataAccessException {
+        String sql = "SELECT move FROM game_moves WHERE game_id = ? ORDER BY ply";
+        var moves = new ArrayList<ChessMove>();
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.prepareStatement(sql)) {
-            stmt.executeUpdate();
+            stmt.setInt(1, gameID);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(ChessGameCodec.unpackMove(rs.getInt("move")));
+                }
+            }
+            return moves;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error listing moves: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection()) {
+            for (String sql : new String[]{"TRUNCATE TABLE game_moves", "TRUNCATE TABLE games",
+                    // game IDs start over, so migration checkpoints no longer mean anything
+                    "TRUNCATE TABLE game_migrations"}) {
+                try (var stmt = conn.prepareStatement(sql)) {
+                    stmt.executeUpdate();
+                }
+            }
         } catch (SQLException e) {
             throw new DataAccessException("Error clearing games: " + e.getMessage(), e);
         }
     }
+
+    private GameData readGame(ResultSet rs) throws SQLException, DataAccessException {
+        return new GameData(
+                rs.getInt("game_id"),
+                rs.getString("white_username"),
+                rs.getString("black_username"),
+                rs.getString("game_name"),
+                readSnapshot(rs)
+        );
+    }
+
+    /**
+     * Reads the snapshot of a row selected with its {@code game_data} and {@code game_blob},
+     * whichever format it was written in
+     */
+    ChessGame readSnapshot(ResultSet rs) throws SQLException, DataAccessException {
+        byte[] blob = rs.getBytes("game_blob");
+        String json = blob == null ? rs.getString("game_data") : GameDataCompressor.decompress(blob);
+        // rows written before the move log may carry a history; the snapshot is the position alone
+        return position(gson.fromJson(json, ChessGame.class));
+    }
+
+    /**
+     * Sets the {@code game_data} and {@code game_blob} parameters at {@code index} and the one
+     * after it
+     */
+    void setSnapshot(PreparedStatement stmt, int index, ChessGame snapshot) throws SQLException {
+        String json = gson.toJson(snapshot);
+        if (compress) {
+            stmt.setString(index, "");
+            stmt.setBytes(index + 1, GameDataCompressor.compress(json));
+        } else {
+            stmt.setString(index, json);
+            stmt.setNull(index + 1, Types.BLOB);
+        }
+    }
+
+    /**
+     * @return whether a row already holds its snapshot exactly as {@link #setSnapshot} would
+     * write it
+     */
+    boolean isWrittenAsCurrent(ResultSet rs, ChessGame snapshot) throws SQLException {
+        String json = gson.toJson(snapshot);
+        byte[] blob = rs.getBytes("game_blob");
+        if (compress) {
+            return blob != null && Arrays.equals(blob, GameDataCompressor.compress(json));
+        }
+        return blob == null && json.equals(rs.getString("game_data"));
+    }
+
+    /**
+     * Plays a logged move without checking it again, since only legal moves were ever logged
+     *
+     * @throws SQLException if the move cannot be played, meaning the row is corrupt
+     */
+    private static void replay(GameData game, int packedMove) throws SQLException {
+        try {
+            ChessGameCodec.replay(game.game(), packedMove);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Logged move " + packedMove + " does not fit game " + game.gameID(), e);
+        }
+    }
+
+    /**
+     * @return the packed moves logged after a ply
+     */
+    private static int[] logged(Connection conn, String sql, int gameID, int afterPly) throws SQLException {
+        var moves = new ArrayList<Integer>();
+        try (var stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameID);
+            stmt.setInt(2, afterPly);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(rs.getInt("move"));
+                }
+            }
+        }
+        return moves.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void appendMoves(Connection conn, int gameID, int afterPly, List<ChessMove> moves)
+            throws SQLException {
+        if (moves.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO game_moves (game_id, ply, move) VALUES (?, ?, ?)";
+        try (var stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < moves.size(); i++) {
+                stmt.setInt(1, gameID);
+                stmt.setInt(2, afterPly + i + 1);
+                stmt.setInt(3, ChessGameCodec.packMove(moves.get(i)));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * @return the moves of a game's history that lead to its current position
+     */
+    private static List<ChessMove> playedMoves(ChessGame game) {
+        return game.getMoveHistory().subList(0, game.getPly());
+    }
+
+    /**
+     * @return a game with the same board and turn but no history
+     */
+    private static ChessGame position(ChessGame game) {
+        ChessGame position = new ChessGame();
+        position.setBoard(game.getBoard());
+        position.setTeamTurn(game.getTeamTurn());
+        return position;
+    }
+
+    /**
+     * @return the position a game's history starts from
+     */
+    private static ChessGame historyStart(ChessGame game) {
+        ChessGame start = new ChessGame();
+        start.setBoard(game.getHistoryStart());
+        start.setTeamTurn(game.getHistoryStartTurn());
+        return start;
+    }
+
+    /**
+     * Records that a game's history starts at {@code base} and that the log now holds its played
+     * moves after that
+     */
+    private static void remember(int gameID, ChessGame game, int base) {
+        int[] moves = playedMoves(game).stream().mapToInt(ChessGameCodec::packMove).toArray();
+        LOADED.put(game, new Loaded(gameID, base, game.getHistoryStart(), game.getHistoryStartTurn(), moves));
+    }
+
+    /**
+     * What the log held for a game object when it was last loaded or written
+     *
+     * @param base  the ply its history starts at
+     * @param start the position at that ply
+     * @param moves the packed moves logged after that ply
+     */
+    private record Loaded(int gameID, int base, ChessBoard start, ChessGame.TeamColor turn, int[] moves) {
+        boolean startsAt(ChessGame game) {
+            return turn == game.getHistoryStartTurn() && start.equals(game.getHistoryStart());
+        }
+    }
+
+    /**
+     * {@link Loaded} by game object, held weakly so a game nobody updates is forgotten, and by
+     * identity since {@link ChessGame#equals} compares positions
+     */
+    private static final class LoadedGames {
+        private final ReferenceQueue<ChessGame> cleared = new ReferenceQueue<>();
+        private final Map<Key, Loaded> loaded = new HashMap<>();
+
+        synchronized Loaded get(ChessGame game) {
+            expunge();
+            return loaded.get(new Key(game, null));
+        }
+
+        synchronized void put(ChessGame game, Loaded state) {
+            expunge();
+            loaded.put(new Key(game, cleared), state);
+        }
+
+        private void expunge() {
+            for (Reference<? extends ChessGame> key; (key = cleared.poll()) != null; ) {
+                loaded.remove(key);
+            }
+        }
+
+        private static final class Key extends WeakReference<ChessGame> {
+            private final int hash;
+
+            Key(ChessGame game, ReferenceQueue<ChessGame> queue) {
+                super(game, queue);
+                hash = System.identityHashCode(game);
+            }
+
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o == this || o instanceof Key key && key.get() != null && key.get() == get();
+            }
+        }
+    }
 }
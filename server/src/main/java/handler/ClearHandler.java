@@ -3,10 +3,9 @@ package handler;
 import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import io.javalin.http.Context;
+import model.ErrorResult;
 import service.ClearService;
 
-import java.util.Map;
-
 public class ClearHandler {
     private final ClearService clearService;
     private final Gson gson = new Gson();
@@ -22,7 +21,7 @@ public class ClearHandler {
             ctx.json(new Object());
         } catch (DataAccessException e) {
             ctx.status(500);
-            ctx.json(Map.of("message", "Error: " + e.getMessage()));
+            ctx.json(new ErrorResult("Error: " + e.getMessage()));
         }
     }
 }
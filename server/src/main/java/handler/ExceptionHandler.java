@@ -2,8 +2,7 @@ package handler;
 
 import dataaccess.DataAccessException;
 import io.javalin.http.Context;
-
-import java.util.Map;
+import model.ErrorResult;
 
 public class ExceptionHandler {
     static void handleDataAccessException(Context ctx, DataAccessException e) {
@@ -17,6 +16,6 @@ public class ExceptionHandler {
         } else {
             ctx.status(500);
         }
-        ctx.json(Map.of("message", message));
+        ctx.json(new ErrorResult(message));
     }
 }
@@ -2,13 +2,17 @@ package handler;
 
 import chess.ChessGame;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import dataaccess.DataAccessException;
 import io.javalin.http.Context;
-import model.GameData;
+import model.CreateGameRequest;
+import model.CreateGameResult;
+import model.ErrorResult;
+import model.JoinGameRequest;
 import service.GameService;
 
-import java.util.Collection;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class GameHandler {
     private final GameService gameService;
@@ -18,25 +22,35 @@ public class GameHandler {
         this.gameService = gameService;
     }
 
+    /**
+     * Writes the games a page at a time as the service reads them, each page with its database
+     * connection already back in the pool, rather than building the whole list first
+     */
     public void listGames(Context ctx) {
         String authToken = ctx.header("authorization");
+        var writer = new GameListWriter(ctx, gson);
         try {
-            Collection<GameData> games = gameService.listGames(authToken);
-            ctx.status(200);
-            ctx.json(Map.of("games", games));
+            gameService.listGames(authToken, writer::write);
+            writer.finish();
         } catch (DataAccessException e) {
+            if (writer.started()) {
+                // the status and part of the list are already sent
+                throw new IllegalStateException("Game list failed partway through", e);
+            }
             ExceptionHandler.handleDataAccessException(ctx, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
     public void createGame(Context ctx) {
         String authToken = ctx.header("authorization");
         try {
-            Map body = gson.fromJson(ctx.body(), Map.class);
-            String gameName = (String) body.get("gameName");
+            CreateGameRequest body = gson.fromJson(ctx.body(), CreateGameRequest.class);
+            String gameName = body == null ? null : body.gameName();
             int gameID = gameService.createGame(authToken, gameName);
             ctx.status(200);
-            ctx.json(Map.of("gameID", gameID));
+            ctx.json(new CreateGameResult(gameID));
         } catch (DataAccessException e) {
             ExceptionHandler.handleDataAccessException(ctx, e);
         }
@@ -45,16 +59,15 @@ public class GameHandler {
     public void joinGame(Context ctx) {
         String authToken = ctx.header("authorization");
         try {
-            Map body = gson.fromJson(ctx.body(), Map.class);
-            String playerColor = (String) body.get("playerColor");
-            ChessGame.TeamColor color = ChessGame.TeamColor.valueOf(playerColor);
-            int gameID = ((Double) body.get("gameID")).intValue();
+            JoinGameRequest body = gson.fromJson(ctx.body(), JoinGameRequest.class);
+            ChessGame.TeamColor color = ChessGame.TeamColor.valueOf(body.playerColor());
+            int gameID = body.gameID();
             gameService.joinGame(authToken, color, gameID);
             ctx.status(200);
             ctx.json(new Object());
-        } catch (IllegalArgumentException | NullPointerException e) {
+        } catch (IllegalArgumentException | NullPointerException | JsonParseException e) {
             ctx.status(400);
-            ctx.json(Map.of("message", "Error: bad request"));
+            ctx.json(new ErrorResult("Error: bad request"));
         } catch (DataAccessException e) {
             ExceptionHandler.handleDataAccessException(ctx, e);
         }
@@ -0,0 +1,74 @@
+package handler;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import model.GameSummary;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the {@code GET /game} body straight to the response a page of games at a time,
+ * producing the same JSON as a {@code ListGamesResult} without first building it as one string
+ * <p>
+ * Nothing is written until the first page arrives, so a failure reading it still gets its own
+ * status; a failure reading a later page can only cut the response short.
+ */
+final class GameListWriter {
+    private final Context ctx;
+    private final Gson gson;
+    private final TypeAdapter<GameSummary> adapter;
+    private JsonWriter json;
+
+    GameListWriter(Context ctx, Gson gson) {
+        this.ctx = ctx;
+        this.gson = gson;
+        adapter = gson.getAdapter(GameSummary.class);
+    }
+
+    /**
+     * @return whether the status and the start of the body have been written
+     */
+    boolean started() {
+        return json != null;
+    }
+
+    void write(List<GameSummary> page) throws IOException {
+        start();
+        for (GameSummary game : page) {
+            adapter.write(json, game);
+        }
+        // send the page before the next one is read
+        json.flush();
+    }
+
+    /**
+     * Closes the list, writing an empty one if no page came
+     */
+    void finish() throws IOException {
+        start();
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private void start() throws IOException {
+        if (json != null) {
+            return;
+        }
+        ctx.status(200);
+        ctx.contentType(ContentType.APPLICATION_JSON);
+        // made by the Gson so it keeps the Gson's settings, such as leaving out null fields
+        var out = new BufferedWriter(new OutputStreamWriter(ctx.outputStream(), StandardCharsets.UTF_8));
+        json = gson.newJsonWriter(out);
+        json.beginObject();
+        json.name("games");
+        json.beginArray();
+    }
+}
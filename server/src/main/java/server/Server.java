@@ -1,10 +1,12 @@
 package server;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import dataaccess.*;
 import handler.*;
 import io.javalin.*;
 import io.javalin.json.JsonMapper;
+import model.ModelJson;
 import service.*;
 
 import java.lang.reflect.Type;
@@ -32,7 +34,8 @@ public class Server {
         GameHandler gameHandler = new GameHandler(gameService);
         ClearHandler clearHandler = new ClearHandler(clearService);
 
-        Gson gson = new Gson();
+        // streaming adapters for the model records and request/response bodies
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ModelJson()).create();
         javalin = Javalin.create(config -> {
             config.staticFiles.add("web");
             config.jsonMapper(new JsonMapper() {
@@ -6,10 +6,15 @@ import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 public class GameService {
+    public static final int LIST_PAGE_SIZE = 100;
+
     private final GameDAO gameDAO;
     private final AuthDAO authDAO;
 
@@ -18,9 +23,42 @@ public class GameService {
         this.authDAO = authDAO;
     }
 
-    public Collection<GameData> listGames(String authToken) throws DataAccessException {
+    /**
+     * @return the lobby's view of every game; boards are only loaded one game at a time, by ID
+     */
+    public Collection<GameSummary> listGames(String authToken) throws DataAccessException {
+        var games = new ArrayList<GameSummary>();
+        listGames(authToken, games::addAll);
+        return games;
+    }
+
+    /**
+     * Hands the lobby's view of every game to a consumer in pages of at most
+     * {@link #LIST_PAGE_SIZE}, in ID order. Each page is its own query, so no database connection
+     * is held while the consumer runs and at most one page is in memory.
+     */
+    public <E extends Exception> void listGames(String authToken, PageConsumer<E> consumer)
+            throws DataAccessException, E {
         AuthData auth = authenticate(authToken);
-        return gameDAO.listGames();
+        List<GameSummary> page;
+        int after = 0;
+        do {
+            page = gameDAO.listSummaries(after, LIST_PAGE_SIZE);
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+                after = page.get(page.size() - 1).gameID();
+            }
+        } while (page.size() == LIST_PAGE_SIZE);
+    }
+
+    /**
+     * Receives the pages of {@link #listGames(String, PageConsumer)}
+     *
+     * @param <E> what the consumer may throw, so a writer can pass its {@code IOException} on
+     */
+    @FunctionalInterface
+    public interface PageConsumer<E extends Exception> {
+        void accept(List<GameSummary> page) throws E;
     }
 
     public int createGame(String authToken, String gameName) throws DataAccessException {
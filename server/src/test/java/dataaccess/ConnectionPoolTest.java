@@ -0,0 +1,374 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+    /**
+     * A stand-in for a physical connection that records what was done to it
+     */
+    private static final class FakeConnection {
+        boolean autoCommit = true;
+        boolean closed;
+        boolean valid = true;
+        int rollbacks;
+        int isolation = Connection.TRANSACTION_REPEATABLE_READ;
+        boolean readOnly;
+        String catalog = "chess";
+        int networkTimeout;
+        final List<Statement> statements = new ArrayList<>();
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getAutoCommit" -> autoCommit;
+                        case "getTransactionIsolation" -> isolation;
+                        case "setTransactionIsolation" -> {
+                            isolation = (Integer) args[0];
+                            yield null;
+                        }
+                        case "isReadOnly" -> readOnly;
+                        case "setReadOnly" -> {
+                            readOnly = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "getCatalog" -> catalog;
+                        case "setCatalog" -> {
+                            catalog = (String) args[0];
+                            yield null;
+                        }
+                        case "getNetworkTimeout" -> networkTimeout;
+                        case "setNetworkTimeout" -> {
+                            networkTimeout = (Integer) args[1];
+                            yield null;
+                        }
+                        case "prepareStatement" -> statement((Connection) proxy);
+                        case "getMetaData" -> Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(),
+                                new Class<?>[]{DatabaseMetaData.class}, (metaData, call, params) ->
+                                        call.getName().equals("getConnection") ? proxy : null);
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks++;
+                            yield null;
+                        }
+                        case "isValid" -> valid;
+                        case "isClosed" -> closed;
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        default -> null;
+                    });
+        }
+
+        private PreparedStatement statement(Connection connection) {
+            boolean[] closed = new boolean[1];
+            var statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "getConnection" -> connection;
+                        case "isClosed" -> closed[0];
+                        case "close" -> {
+                            closed[0] = true;
+                            yield null;
+                        }
+                        case "executeQuery" -> Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                new Class<?>[]{ResultSet.class}, (rs, call, params) ->
+                                        call.getName().equals("getStatement") ? proxy : null);
+                        case "executeUpdate" -> 1;
+                        default -> null;
+                    });
+            statements.add(statement);
+            return statement;
+        }
+    }
+
+    private final List<FakeConnection> opened = Collections.synchronizedList(new ArrayList<>());
+    private ConnectionPool pool;
+
+    private ConnectionPool pool(ConnectionPool.Settings settings) {
+        pool = new ConnectionPool(() -> {
+            var connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, settings);
+        return pool;
+    }
+
+    private static void await(CountDownLatch latch) throws SQLException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("closing a connection returns it for reuse")
+    void reuse() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 2, 100, 60_000, 60_000, 0));
+        try (var conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        try (var conn = pool.borrow()) {
+            assertNotNull(conn);
+        }
+        assertEquals(1, opened.size());
+        assertFalse(opened.get(0).closed);
+        var stats = pool.stats();
+        assertEquals(2, stats.borrows());
+        assertEquals(1, stats.created());
+        assertEquals(1, stats.idle());
+    }
+
+    @Test
+    @DisplayName("a closed handle cannot be used and closing it again does nothing")
+    void closedHandle() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 60_000, 0));
+        Connection conn = pool.borrow();
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, () -> conn.prepareStatement("SELECT 1"));
+        assertEquals(0, pool.stats().borrowed());
+    }
+
+    @Test
+    @DisplayName("statements, result sets and metadata lead back to the handle, not the physical connection")
+    void wrappedStatements() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 60_000, 0));
+        try (var conn = pool.borrow()) {
+            var stmt = conn.prepareStatement("SELECT 1");
+            assertSame(conn, stmt.getConnection());
+            assertSame(stmt, stmt.executeQuery().getStatement());
+            assertSame(conn, conn.getMetaData().getConnection());
+        }
+    }
+
+    @Test
+    @DisplayName("statements left open are closed when the connection is returned and refused after")
+    void openStatements() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 60_000, 0));
+        PreparedStatement stmt;
+        try (var conn = pool.borrow()) {
+            stmt = conn.prepareStatement("UPDATE games SET game_name = 'x'");
+            assertEquals(1, stmt.executeUpdate());
+            assertFalse(stmt.isClosed());
+        }
+        assertTrue(stmt.isClosed());
+        assertTrue(opened.get(0).statements.get(0).isClosed());
+        assertThrows(SQLException.class, stmt::executeUpdate);
+    }
+
+    @Test
+    @DisplayName("session settings changed by a borrower are put back when the connection is returned")
+    void restoreSettings() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 60_000, 0));
+        try (var conn = pool.borrow()) {
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            conn.setReadOnly(true);
+            conn.setCatalog("other");
+            conn.setNetworkTimeout(Runnable::run, 5000);
+        }
+        var fake = opened.get(0);
+        assertEquals(Connection.TRANSACTION_REPEATABLE_READ, fake.isolation);
+        assertFalse(fake.readOnly);
+        assertEquals("chess", fake.catalog);
+        assertEquals(0, fake.networkTimeout);
+        try (var conn = pool.borrow()) {
+            assertEquals(Connection.TRANSACTION_REPEATABLE_READ, conn.getTransactionIsolation());
+        }
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    @DisplayName("borrowing fails after the timeout when the pool is exhausted")
+    void timeout() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 2, 50, 60_000, 60_000, 0));
+        try (var first = pool.borrow(); var second = pool.borrow()) {
+            assertThrows(SQLException.class, pool::borrow);
+            assertEquals(1, pool.stats().timeouts());
+        }
+        try (var conn = pool.borrow()) {
+            assertEquals(2, opened.size());
+        }
+    }
+
+    @Test
+    @DisplayName("an open transaction is rolled back when the connection is returned")
+    void rollback() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 60_000, 0));
+        try (var conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+        }
+        assertEquals(1, opened.get(0).rollbacks);
+        assertTrue(opened.get(0).autoCommit);
+    }
+
+    @Test
+    @DisplayName("connections past their lifetime are replaced")
+    void maxLifetime() throws SQLException, InterruptedException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 20, 0));
+        pool.borrow().close();
+        Thread.sleep(30);
+        pool.borrow().close();
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed);
+        assertEquals(1, pool.stats().retired());
+    }
+
+    @Test
+    @DisplayName("idle connections that fail validation are replaced")
+    void validation() throws SQLException, InterruptedException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 0, 60_000, 0));
+        pool.borrow().close();
+        opened.get(0).valid = false;
+        Thread.sleep(5);
+        pool.borrow().close();
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed);
+    }
+
+    @Test
+    @DisplayName("fill opens the minimum number of connections")
+    void fill() {
+        pool(new ConnectionPool.Settings(3, 5, 100, 60_000, 60_000, 0));
+        pool.fill();
+        assertEquals(3, opened.size());
+        assertEquals(3, pool.stats().idle());
+    }
+
+    @Test
+    @DisplayName("fill never opens past the maximum while a borrower is still connecting")
+    void fillWhileConnecting() throws Exception {
+        var firstConnecting = new CountDownLatch(1);
+        var releaseFirst = new CountDownLatch(1);
+        var connects = new AtomicInteger();
+        pool = new ConnectionPool(() -> {
+            if (connects.incrementAndGet() == 1) {
+                firstConnecting.countDown();
+                await(releaseFirst);
+            }
+            var connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, new ConnectionPool.Settings(2, 2, 1000, 60_000, 60_000, 0));
+        var borrower = Executors.newSingleThreadExecutor();
+        try {
+            Future<Connection> borrowed = borrower.submit(() -> pool.borrow());
+            assertTrue(firstConnecting.await(1, TimeUnit.SECONDS));
+            pool.fill();
+            releaseFirst.countDown();
+            borrowed.get(1, TimeUnit.SECONDS).close();
+        } finally {
+            borrower.shutdownNow();
+        }
+
+        assertEquals(2, opened.size());
+        assertEquals(2, pool.stats().open());
+        assertEquals(2, pool.stats().idle());
+    }
+
+    @Test
+    @DisplayName("a borrower waits for a connection fill is opening rather than opening too many")
+    void borrowWhileFilling() throws Exception {
+        var fillConnecting = new CountDownLatch(1);
+        var releaseFill = new CountDownLatch(1);
+        var connects = new AtomicInteger();
+        pool = new ConnectionPool(() -> {
+            if (connects.incrementAndGet() == 2) {
+                fillConnecting.countDown();
+                await(releaseFill);
+            }
+            var connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, new ConnectionPool.Settings(2, 2, 1000, 60_000, 60_000, 0));
+        var first = pool.borrow();
+        var filler = Executors.newSingleThreadExecutor();
+        try {
+            filler.submit(pool::fill);
+            assertTrue(fillConnecting.await(1, TimeUnit.SECONDS));
+            var borrower = Executors.newSingleThreadExecutor();
+            try {
+                Future<Connection> second = borrower.submit(() -> pool.borrow());
+                Thread.sleep(30);
+                assertFalse(second.isDone());
+                releaseFill.countDown();
+                second.get(1, TimeUnit.SECONDS).close();
+            } finally {
+                borrower.shutdownNow();
+            }
+        } finally {
+            filler.shutdownNow();
+            first.close();
+        }
+
+        assertEquals(2, opened.size());
+        assertEquals(2, pool.stats().open());
+    }
+
+    @Test
+    @DisplayName("connections held past the leak threshold are reported")
+    void leakDetection() throws SQLException, InterruptedException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 60_000, 20));
+        try (var conn = pool.borrow()) {
+            long deadline = System.currentTimeMillis() + 2000;
+            while (pool.stats().leaks() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(1, pool.stats().leaks());
+    }
+
+    @Test
+    @DisplayName("a closed pool refuses to lend and closes its idle connections")
+    void close() throws SQLException {
+        pool(new ConnectionPool.Settings(0, 1, 100, 60_000, 60_000, 0));
+        pool.borrow().close();
+        pool.close();
+        assertTrue(opened.get(0).closed);
+        assertThrows(SQLException.class, pool::borrow);
+    }
+
+    @Test
+    @DisplayName("settings are read from db.pool properties")
+    void settings() {
+        var props = new Properties();
+        props.setProperty("db.pool.maxSize", "4");
+        props.setProperty("db.pool.leakThresholdMillis", "1000");
+        var settings = ConnectionPool.Settings.from(props);
+        assertEquals(4, settings.maxSize());
+        assertEquals(1000, settings.leakThresholdMillis());
+        assertEquals(2, settings.minSize());
+        props.setProperty("db.pool.minSize", "5");
+        assertThrows(IllegalArgumentException.class, () -> ConnectionPool.Settings.from(props));
+    }
+}
@@ -0,0 +1,95 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports DAO calls per second against the database in {@code db.properties}, with the
+ * driver's prepared statement cache off (each call parses its SQL again) and on
+ * <p>
+ * Each thread repeats the calls a request makes most: an auth lookup, a game lookup and a
+ * game update. Optional arguments: threads (default 4), then seconds per configuration
+ * (default 5). Clears the database first.
+ */
+public class DaoThroughputBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Properties base = new Properties();
+        try (var in = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
+            base.load(in);
+        }
+        base.setProperty("db.pool.maxSize", Integer.toString(Math.max(threads, 2)));
+
+        Properties uncached = new Properties();
+        uncached.putAll(base);
+        uncached.setProperty("db.jdbc.useServerPrepStmts", "false");
+        uncached.setProperty("db.jdbc.cachePrepStmts", "false");
+
+        run("no statement cache", uncached, threads, seconds);
+        run("statement cache", base, threads, seconds);
+        DatabaseManager.loadPropertiesFromResources();
+    }
+
+    private static void run(String label, Properties props, int threads, int seconds) throws Exception {
+        DatabaseManager.loadProperties(props);
+        DatabaseManager.initialize();
+        var userDAO = new SqlUserDAO();
+        var authDAO = new SqlAuthDAO();
+        var gameDAO = new SqlGameDAO();
+        authDAO.clear();
+        userDAO.clear();
+        gameDAO.clear();
+
+        userDAO.createUser(new UserData("bench", "password", "bench@example.com"));
+        int[] gameIDs = new int[threads];
+        for (int i = 0; i < threads; i++) {
+            authDAO.createAuth(new AuthData("token-" + i, "bench"));
+            gameIDs[i] = gameDAO.createGame(new GameData(0, null, null, "bench " + i, new ChessGame()));
+        }
+
+        // one warm-up pass lets the JIT and the connections settle before measuring
+        measure(threads, 1, authDAO, gameDAO, gameIDs);
+        var calls = measure(threads, seconds, authDAO, gameDAO, gameIDs);
+        System.out.printf("%-20s %2d threads  %,10.0f DAO calls/s  (pool %s)%n", label, threads,
+                calls / (double) seconds, DatabaseManager.poolStats());
+    }
+
+    private static long measure(int threads, int seconds, SqlAuthDAO authDAO, SqlGameDAO gameDAO, int[] gameIDs)
+            throws Exception {
+        var calls = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] workers = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                int worker = i;
+                workers[i] = pool.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        authDAO.getAuth("token-" + worker);
+                        GameData game = gameDAO.getGame(gameIDs[worker]);
+                        gameDAO.updateGame(game);
+                        calls.add(3);
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return calls.sum();
+    }
+}
@@ -0,0 +1,105 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.Search;
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reports compression ratio and latency of {@link GameDataCompressor} on the rows
+ * {@link SqlGameDAO} writes: a position snapshot at the start of a game and every
+ * {@link SqlGameDAO#SNAPSHOT_INTERVAL} moves after it
+ * <p>
+ * Games come from shallow engine self-play after a few random opening moves. Optional
+ * arguments: game count (default 200), then {@code --train} to print a dictionary trained on
+ * half of the games and measured on the other half.
+ */
+public class GameDataCompressionBenchmark {
+    public static void main(String[] args) throws InvalidMoveException, DataAccessException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        boolean train = args.length > 1 && args[1].equals("--train");
+
+        List<String> rows = new ArrayList<>();
+        List<String> trainingRows = new ArrayList<>();
+        Gson gson = new Gson();
+        for (int i = 0; i < count; i++) {
+            for (ChessGame snapshot : selfPlay(i, 160)) {
+                (i % 2 == 0 ? rows : trainingRows).add(gson.toJson(snapshot));
+            }
+        }
+        if (!train) {
+            rows.addAll(trainingRows);
+        }
+
+        report("no dictionary", rows, new byte[0]);
+        report("dictionary v1", rows, GameDataCompressor.DICTIONARY_V1);
+        if (train) {
+            byte[] trained = GameDataCompressor.train(trainingRows, 1024);
+            report("trained", rows, trained);
+            System.out.println(new String(trained, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static List<ChessGame> selfPlay(long seed, int plies) throws InvalidMoveException {
+        Random random = new Random(seed);
+        ChessGame game = new ChessGame();
+        List<ChessGame> snapshots = new ArrayList<>();
+        for (int ply = 0; ply < plies; ply++) {
+            if (ply % SqlGameDAO.SNAPSHOT_INTERVAL == 0) {
+                ChessGame snapshot = new ChessGame();
+                snapshot.setBoard(new chess.ChessBoard(game.getBoard()));
+                snapshot.setTeamTurn(game.getTeamTurn());
+                snapshots.add(snapshot);
+            }
+            List<ChessMove> moves = new ArrayList<>();
+            game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+            if (moves.isEmpty()) {
+                break;
+            }
+            ChessMove move = ply < 6 || random.nextInt(8) == 0 ? moves.get(random.nextInt(moves.size()))
+                    : new Search(game).search(Search.Limits.depth(2), info -> { }).bestMove();
+            game.makeMove(move);
+        }
+        return snapshots;
+    }
+
+    private static void report(String label, List<String> rows, byte[] dictionary) throws DataAccessException {
+        long raw = 0;
+        long compressed = 0;
+        List<byte[]> stored = new ArrayList<>();
+        for (String row : rows) {
+            byte[] bytes = GameDataCompressor.compress(row, dictionary, GameDataCompressor.DEFLATE_V1);
+            raw += row.getBytes(StandardCharsets.UTF_8).length;
+            compressed += bytes.length;
+            stored.add(bytes);
+            if (!GameDataCompressor.inflate(bytes, dictionary).equals(row)) {
+                throw new IllegalStateException("round trip failed for " + row);
+            }
+        }
+        int rounds = Math.max(1, 200_000 / rows.size());
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String row : rows) {
+                checksum += GameDataCompressor.compress(row, dictionary, GameDataCompressor.DEFLATE_V1).length;
+            }
+        }
+        long encode = (System.nanoTime() - start) / ((long) rounds * rows.size());
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (byte[] bytes : stored) {
+                checksum += GameDataCompressor.inflate(bytes, dictionary).length();
+            }
+        }
+        long decode = (System.nanoTime() - start) / ((long) rounds * rows.size());
+        System.out.printf("%-14s %,6d rows  %5.1f -> %5.1f bytes/row (%.2fx)  encode %,6d ns  decode %,6d ns  (checksum %d)%n",
+                label, rows.size(), (double) raw / rows.size(), (double) compressed / rows.size(),
+                (double) raw / compressed, encode, decode, checksum);
+    }
+}
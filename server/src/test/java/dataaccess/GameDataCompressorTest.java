@@ -0,0 +1,59 @@
+package dataaccess;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameDataCompressorTest {
+    private static final String START = "\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w\"";
+    private static final String MIDDLEGAME = "\"r2q1rk1/pp2bppp/2n1pn2/3p4/3P4/2NBPN2/PP3PPP/R2Q1RK1 b\"";
+
+    @Test
+    @DisplayName("compressed rows decompress to the same text")
+    void roundTrip() throws DataAccessException {
+        for (String text : List.of(START, MIDDLEGAME, "", "{\"unicode\":\"\u265A\"}")) {
+            byte[] stored = GameDataCompressor.compress(text);
+            assertEquals(GameDataCompressor.DEFLATE_V1, stored[0]);
+            assertEquals(text, GameDataCompressor.decompress(stored));
+        }
+    }
+
+    @Test
+    @DisplayName("the dictionary shrinks typical rows")
+    void dictionaryShrinks() {
+        assertTrue(GameDataCompressor.compress(START).length < START.length() / 3);
+        assertTrue(GameDataCompressor.compress(MIDDLEGAME).length < MIDDLEGAME.length());
+    }
+
+    @Test
+    @DisplayName("raw rows read back unchanged")
+    void raw() throws DataAccessException {
+        byte[] stored = GameDataCompressor.raw(MIDDLEGAME);
+        assertEquals(GameDataCompressor.RAW, stored[0]);
+        assertEquals(MIDDLEGAME, GameDataCompressor.decompress(stored));
+    }
+
+    @Test
+    @DisplayName("unknown formats and damaged rows are rejected")
+    void rejectsBadData() {
+        assertThrows(DataAccessException.class, () -> GameDataCompressor.decompress(new byte[0]));
+        assertThrows(DataAccessException.class, () -> GameDataCompressor.decompress(new byte[]{42, 1, 2}));
+
+        byte[] stored = GameDataCompressor.compress(MIDDLEGAME);
+        assertThrows(DataAccessException.class,
+                () -> GameDataCompressor.decompress(Arrays.copyOf(stored, stored.length / 2)));
+    }
+
+    @Test
+    @DisplayName("a trained dictionary fits its size and round-trips")
+    void train() throws DataAccessException {
+        byte[] dictionary = GameDataCompressor.train(List.of(START, MIDDLEGAME, START, MIDDLEGAME), 64);
+        assertTrue(dictionary.length > 0 && dictionary.length <= 64);
+        byte[] stored = GameDataCompressor.compress(MIDDLEGAME, dictionary, (byte) 99);
+        assertEquals(MIDDLEGAME, GameDataCompressor.inflate(stored, dictionary));
+    }
+}
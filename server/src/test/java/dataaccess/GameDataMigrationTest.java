@@ -0,0 +1,113 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameDataMigrationTest {
+    private SqlGameDAO plainDAO;
+    private SqlGameDAO compressedDAO;
+
+    @BeforeAll
+    static void init() throws DataAccessException {
+        DatabaseManager.initialize();
+    }
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        plainDAO = new SqlGameDAO(false);
+        compressedDAO = new SqlGameDAO(true);
+        plainDAO.clear();
+    }
+
+    @Test
+    @DisplayName("migration rewrites every row and the games read back unchanged")
+    void migratesAllRows() throws DataAccessException, InterruptedException, InvalidMoveException {
+        List<ChessGame> expected = createGames(25);
+
+        var batches = new ArrayList<GameDataMigration.Progress>();
+        var done = new GameDataMigration("compress", compressedDAO, 10, 0).run(batches::add);
+
+        assertEquals(25, done.scanned());
+        assertEquals(25, done.rewritten());
+        assertTrue(done.done());
+        assertEquals(3, batches.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), plainDAO.getGame(i + 1).game());
+        }
+    }
+
+    @Test
+    @DisplayName("a finished migration does nothing when run again")
+    void rerunIsNoOp() throws DataAccessException, InterruptedException, InvalidMoveException {
+        createGames(5);
+        new GameDataMigration("compress", compressedDAO, 2, 0).run(progress -> { });
+
+        var batches = new ArrayList<GameDataMigration.Progress>();
+        var again = new GameDataMigration("compress", compressedDAO, 2, 0).run(batches::add);
+        assertTrue(batches.isEmpty());
+        assertEquals(5, again.rewritten());
+    }
+
+    @Test
+    @DisplayName("rows already in the current format are not rewritten")
+    void skipsCurrentRows() throws DataAccessException, InterruptedException, InvalidMoveException {
+        createGames(4);
+        new GameDataMigration("compress", compressedDAO, 10, 0).run(progress -> { });
+
+        var back = new GameDataMigration("decompress", plainDAO, 10, 0).run(progress -> { });
+        assertEquals(4, back.rewritten());
+        var compressAgain = new GameDataMigration("compress-again", compressedDAO, 10, 0).run(progress -> { });
+        assertEquals(4, compressAgain.rewritten());
+        var noChange = new GameDataMigration("still-compressed", compressedDAO, 10, 0).run(progress -> { });
+        assertEquals(4, noChange.scanned());
+        assertEquals(0, noChange.rewritten());
+    }
+
+    @Test
+    @DisplayName("an interrupted migration resumes after its last batch")
+    void resumes() throws DataAccessException, InvalidMoveException, InterruptedException {
+        createGames(6);
+        var migration = new GameDataMigration("compress", compressedDAO, 2, 0);
+        assertThrows(IllegalStateException.class, () -> migration.run(progress -> {
+            throw new IllegalStateException("stop");
+        }));
+
+        var batches = new ArrayList<GameDataMigration.Progress>();
+        var done = migration.run(batches::add);
+        assertEquals(2, batches.size());
+        assertEquals(4, batches.get(0).lastGameID());
+        assertEquals(6, done.scanned());
+    }
+
+    @Test
+    @DisplayName("migration keeps to its rate")
+    void throttles() throws DataAccessException, InterruptedException, InvalidMoveException {
+        createGames(6);
+        long start = System.nanoTime();
+        new GameDataMigration("compress", compressedDAO, 2, 20).run(progress -> { });
+        assertTrue(System.nanoTime() - start >= 250_000_000L);
+    }
+
+    private List<ChessGame> createGames(int count) throws DataAccessException, InvalidMoveException {
+        var games = new ArrayList<ChessGame>();
+        for (int i = 0; i < count; i++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < i % 7; ply++) {
+                ChessMove move = game.allValidMoves(game.getTeamTurn()).values().iterator().next()
+                        .iterator().next();
+                game.makeMove(move);
+            }
+            plainDAO.createGame(new GameData(0, null, null, "Game " + i, game));
+            games.add(game);
+        }
+        return games;
+    }
+}
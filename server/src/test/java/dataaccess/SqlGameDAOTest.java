@@ -1,10 +1,17 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessGameCodec;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
 import model.GameData;
+import model.GameSummary;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -106,4 +113,189 @@ public class SqlGameDAOTest {
 
         assertTrue(gameDAO.listGames().isEmpty());
     }
+
+    private static List<ChessMove> play(ChessGame game, int plies) throws InvalidMoveException {
+        var played = new ArrayList<ChessMove>();
+        for (int i = 0; i < plies; i++) {
+            var moves = new ArrayList<ChessMove>();
+            game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+            if (moves.isEmpty()) {
+                break;
+            }
+            ChessMove move = moves.get((i * 7) % moves.size());
+            game.makeMove(move);
+            played.add(move);
+        }
+        return played;
+    }
+
+    @Test
+    @DisplayName("updateGame appends moves and getGame replays them")
+    void updateGameAppendsMoves() throws DataAccessException, InvalidMoveException {
+        int gameID = gameDAO.createGame(new GameData(0, null, null, "Game", new ChessGame()));
+        var expected = new ArrayList<ChessMove>();
+        for (int turn = 0; turn < 50; turn++) {
+            GameData game = gameDAO.getGame(gameID);
+            expected.addAll(play(game.game(), 1));
+            gameDAO.updateGame(game);
+        }
+
+        ChessGame replayed = new ChessGame();
+        for (ChessMove move : expected) {
+            replayed.makeMove(move);
+        }
+        GameData result = gameDAO.getGame(gameID);
+        assertEquals(replayed, result.game());
+        // a snapshot was taken at move 32, so only the moves after it are replayed
+        assertEquals(50 - SqlGameDAO.SNAPSHOT_INTERVAL, result.game().getMoveHistory().size());
+        assertEquals(expected, gameDAO.listMoves(gameID));
+        assertEquals(replayed, gameDAO.listGames().iterator().next().game());
+    }
+
+    @Test
+    @DisplayName("updateGame replaces moves that were taken back")
+    void updateGameAfterUndo() throws DataAccessException, InvalidMoveException {
+        ChessGame start = new ChessGame();
+        var moves = play(start, 10);
+        int gameID = gameDAO.createGame(new GameData(0, null, null, "Game", start));
+        assertEquals(moves, gameDAO.listMoves(gameID));
+
+        GameData game = gameDAO.getGame(gameID);
+        assertTrue(game.game().undo());
+        assertTrue(game.game().undo());
+        var replacement = play(game.game(), 1);
+        gameDAO.updateGame(game);
+
+        var expected = new ArrayList<>(moves.subList(0, 8));
+        expected.addAll(replacement);
+        assertEquals(expected, gameDAO.listMoves(gameID));
+        assertEquals(game.game(), gameDAO.getGame(gameID).game());
+    }
+
+    @Test
+    @DisplayName("getGame reports a logged move that cannot be played")
+    void getGameCorruptMove() throws Exception {
+        ChessGame start = new ChessGame();
+        play(start, 2);
+        int gameID = gameDAO.createGame(new GameData(0, null, null, "Game", start));
+        // a4 to a5 starts on an empty square
+        int corrupt = ChessGameCodec.packMove(new ChessMove(new ChessPosition(4, 1), new ChessPosition(5, 1), null));
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.prepareStatement("UPDATE game_moves SET move = ? WHERE game_id = ? AND ply = 2")) {
+            stmt.setInt(1, corrupt);
+            stmt.setInt(2, gameID);
+            assertEquals(1, stmt.executeUpdate());
+        }
+
+        DataAccessException ex = assertThrows(DataAccessException.class, () -> gameDAO.getGame(gameID));
+        assertTrue(ex.getMessage().contains("does not fit game " + gameID));
+    }
+
+    @Test
+    @DisplayName("updateGame refuses a game loaded before a newer snapshot")
+    void updateGameStale() throws DataAccessException, InvalidMoveException {
+        int gameID = gameDAO.createGame(new GameData(0, null, null, "Game", new ChessGame()));
+        GameData stale = gameDAO.getGame(gameID);
+        GameData fresh = gameDAO.getGame(gameID);
+        play(fresh.game(), SqlGameDAO.SNAPSHOT_INTERVAL);
+        gameDAO.updateGame(fresh);
+
+        play(stale.game(), 1);
+        assertThrows(DataAccessException.class, () -> gameDAO.updateGame(stale));
+        assertEquals(fresh.game(), gameDAO.getGame(gameID).game());
+    }
+
+    @Test
+    @DisplayName("updateGame takes the same game object across snapshots")
+    void updateGameAcrossSnapshots() throws DataAccessException, InvalidMoveException {
+        int gameID = gameDAO.createGame(new GameData(0, null, null, "Game", new ChessGame()));
+        GameData game = gameDAO.getGame(gameID);
+        var expected = new ArrayList<ChessMove>();
+        for (int turn = 0; turn < SqlGameDAO.SNAPSHOT_INTERVAL + 8; turn++) {
+            expected.addAll(play(game.game(), 1));
+            gameDAO.updateGame(game);
+        }
+        assertEquals(8, gameDAO.getGame(gameID).game().getMoveHistory().size());
+
+        // take back moves the snapshot already holds
+        for (int i = 0; i < 10; i++) {
+            assertTrue(game.game().undo());
+        }
+        expected.subList(expected.size() - 10, expected.size()).clear();
+        expected.addAll(play(game.game(), 1));
+        gameDAO.updateGame(game);
+
+        assertEquals(expected, gameDAO.listMoves(gameID));
+        assertEquals(game.game(), gameDAO.getGame(gameID).game());
+    }
+
+    @Test
+    @DisplayName("updateGame refuses a game another update changed first")
+    void updateGameConcurrent() throws DataAccessException, InvalidMoveException {
+        ChessGame start = new ChessGame();
+        play(start, 4);
+        int gameID = gameDAO.createGame(new GameData(0, null, null, "Game", start));
+        GameData first = gameDAO.getGame(gameID);
+        GameData second = gameDAO.getGame(gameID);
+        ChessMove takenBack = first.game().getMoveHistory().get(3);
+        assertTrue(first.game().undo());
+        first.game().makeMove(first.game().allValidMoves(first.game().getTeamTurn()).values().stream()
+                .flatMap(Collection::stream).filter(move -> !move.equals(takenBack)).findFirst().orElseThrow());
+        gameDAO.updateGame(first);
+
+        // the move count is what this game was loaded with, but the last move is not
+        play(second.game(), 1);
+        assertThrows(DataAccessException.class, () -> gameDAO.updateGame(second));
+        assertEquals(first.game(), gameDAO.getGame(gameID).game());
+    }
+
+    @Test
+    @DisplayName("compressed and uncompressed rows read back the same")
+    void compressedSnapshots() throws DataAccessException, InvalidMoveException {
+        ChessGame start = new ChessGame();
+        play(start, 5);
+        int plainID = gameDAO.createGame(new GameData(0, null, null, "Plain", start));
+
+        SqlGameDAO compressed = new SqlGameDAO(true);
+        int compressedID = compressed.createGame(new GameData(0, null, null, "Compressed", start));
+        GameData game = compressed.getGame(compressedID);
+        play(game.game(), SqlGameDAO.SNAPSHOT_INTERVAL);
+        compressed.updateGame(game);
+
+        assertEquals(start, compressed.getGame(plainID).game());
+        assertEquals(game.game(), gameDAO.getGame(compressedID).game());
+    }
+
+    @Test
+    @DisplayName("listGames reads games in ID order with their logged moves")
+    void listGamesReplaysMoves() throws DataAccessException, InvalidMoveException {
+        ChessGame played = new ChessGame();
+        play(played, SqlGameDAO.SNAPSHOT_INTERVAL + 3);
+        int first = gameDAO.createGame(new GameData(0, "w", null, "First", played));
+        int second = gameDAO.createGame(new GameData(0, null, null, "Second", new ChessGame()));
+        GameData game = gameDAO.getGame(first);
+        play(game.game(), SqlGameDAO.SNAPSHOT_INTERVAL);
+        gameDAO.updateGame(game);
+
+        var listed = new ArrayList<>(gameDAO.listGames());
+        assertEquals(List.of(first, second), listed.stream().map(GameData::gameID).toList());
+        assertEquals(game.game(), listed.get(0).game());
+        assertEquals(new ChessGame(), listed.get(1).game());
+    }
+
+    @Test
+    @DisplayName("summaries page through every game's players and name in ID order")
+    void listSummaries() throws DataAccessException, InvalidMoveException {
+        ChessGame played = new ChessGame();
+        play(played, 5);
+        int first = gameDAO.createGame(new GameData(0, "w", null, "First", played));
+        int second = gameDAO.createGame(new GameData(0, null, "b", "Second", new ChessGame()));
+        int third = gameDAO.createGame(new GameData(0, null, null, "Third", new ChessGame()));
+
+        assertEquals(List.of(new GameSummary(first, "w", null, "First"), new GameSummary(second, null, "b", "Second")),
+                gameDAO.listSummaries(0, 2));
+        assertEquals(List.of(new GameSummary(third, null, null, "Third")), gameDAO.listSummaries(second, 2));
+        assertTrue(gameDAO.listSummaries(third, 2).isEmpty());
+        assertEquals(gameDAO.listGames().stream().map(GameSummary::of).toList(), gameDAO.listSummaries(0, 10));
+    }
 }
@@ -3,11 +3,14 @@ package service;
 import chess.ChessGame;
 import dataaccess.*;
 import model.AuthData;
-import model.GameData;
+import model.GameSummary;
 import model.UserData;
 import org.junit.jupiter.api.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -49,10 +52,26 @@ public class GameServiceTest {
         gameService.createGame(authToken, "game1");
         gameService.createGame(authToken, "game2");
 
-        Collection<GameData> games = gameService.listGames(authToken);
+        Collection<GameSummary> games = gameService.listGames(authToken);
         assertEquals(2, games.size());
     }
 
+    @Test
+    @DisplayName("listGames hands every game over a page at a time")
+    void listGamesPages() throws DataAccessException {
+        int count = GameService.LIST_PAGE_SIZE * 2 + 5;
+        for (int i = 0; i < count; i++) {
+            gameService.createGame(authToken, "game" + i);
+        }
+
+        var pages = new ArrayList<List<GameSummary>>();
+        gameService.listGames(authToken, pages::add);
+        assertEquals(List.of(GameService.LIST_PAGE_SIZE, GameService.LIST_PAGE_SIZE, 5),
+                pages.stream().map(List::size).toList());
+        assertEquals(IntStream.rangeClosed(1, count).boxed().toList(),
+                pages.stream().flatMap(List::stream).map(GameSummary::gameID).toList());
+    }
+
     @Test
     @DisplayName("listGames unauthorized")
     void listGamesUnauthorized() {
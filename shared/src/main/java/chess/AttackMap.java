@@ -0,0 +1,169 @@
+package chess;
+
+/**
+ * Per-color counts of how many pieces attack each square, kept in step with a board
+ * <p>
+ * Squares are indexed {@code (row - 1) * 8 + (column - 1)}, so bit 0 of a mask is a1 and
+ * bit 63 is h8. A square is attacked when any piece of that color could capture on it,
+ * whether or not the square is occupied. When one square changes only the changed piece's
+ * attacks and the slider rays passing through that square are recomputed.
+ */
+final class AttackMap {
+    private static final int[][] KNIGHT_STEPS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] KING_STEPS = {{-1, -1}, {0, -1}, {1, -1}, {-1, 0}, {1, 0}, {-1, 1}, {0, 1}, {1, 1}};
+    private static final int[][] ROOK_RAYS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+    private static final int[][] BISHOP_RAYS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private final int[][] counts = new int[2][64];
+    private final long[] masks = new long[2];
+
+    AttackMap(ChessPiece[][] board) {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (board[row][col] != null) {
+                    applyPiece(board, row, col, board[row][col], 1);
+                }
+            }
+        }
+    }
+
+    static int squareIndex(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    long mask(ChessGame.TeamColor attacker) {
+        return masks[attacker.ordinal()];
+    }
+
+    boolean isAttacked(int square, ChessGame.TeamColor attacker) {
+        return (masks[attacker.ordinal()] & (1L << square)) != 0;
+    }
+
+    /**
+     * Places a piece (or null) on a square of the board, updating the attack counts
+     */
+    void setPiece(ChessPiece[][] board, int row, int col, ChessPiece piece) {
+        ChessPiece old = board[row][col];
+        if (old == piece) {
+            return;
+        }
+
+        // sliders whose ray reaches this square see past it (or stop at it) depending on occupancy
+        int[] sliderRows = new int[8];
+        int[] sliderCols = new int[8];
+        int[] rayIndex = new int[8];
+        int sliders = 0;
+        if ((old == null) != (piece == null)) {
+            for (int i = 0; i < KING_STEPS.length; i++) {
+                int dr = KING_STEPS[i][0];
+                int dc = KING_STEPS[i][1];
+                int r = row + dr;
+                int c = col + dc;
+                while (r >= 0 && r < 8 && c >= 0 && c < 8 && board[r][c] == null) {
+                    r += dr;
+                    c += dc;
+                }
+                if (r < 0 || r >= 8 || c < 0 || c >= 8 || !slidesAlong(board[r][c], dr, dc)) {
+                    continue;
+                }
+                sliderRows[sliders] = r;
+                sliderCols[sliders] = c;
+                rayIndex[sliders] = i;
+                sliders++;
+            }
+        }
+
+        for (int i = 0; i < sliders; i++) {
+            int[] step = KING_STEPS[rayIndex[i]];
+            ChessPiece slider = board[sliderRows[i]][sliderCols[i]];
+            applyRay(board, sliderRows[i], sliderCols[i], -step[0], -step[1], slider.getTeamColor(), -1);
+        }
+        if (old != null) {
+            applyPiece(board, row, col, old, -1);
+        }
+
+        board[row][col] = piece;
+
+        for (int i = 0; i < sliders; i++) {
+            int[] step = KING_STEPS[rayIndex[i]];
+            ChessPiece slider = board[sliderRows[i]][sliderCols[i]];
+            applyRay(board, sliderRows[i], sliderCols[i], -step[0], -step[1], slider.getTeamColor(), 1);
+        }
+        if (piece != null) {
+            applyPiece(board, row, col, piece, 1);
+        }
+    }
+
+    /**
+     * @return true if the piece slides in the direction pointing from (dr, dc) back toward the origin
+     */
+    private static boolean slidesAlong(ChessPiece piece, int dr, int dc) {
+        boolean diagonal = dr != 0 && dc != 0;
+        return switch (piece.getPieceType()) {
+            case QUEEN -> true;
+            case BISHOP -> diagonal;
+            case ROOK -> !diagonal;
+            default -> false;
+        };
+    }
+
+    private void applyPiece(ChessPiece[][] board, int row, int col, ChessPiece piece, int delta) {
+        ChessGame.TeamColor color = piece.getTeamColor();
+        switch (piece.getPieceType()) {
+            case PAWN -> {
+                int forward = color == ChessGame.TeamColor.WHITE ? 1 : -1;
+                applyStep(row + forward, col - 1, color, delta);
+                applyStep(row + forward, col + 1, color, delta);
+            }
+            case KNIGHT -> applySteps(row, col, KNIGHT_STEPS, color, delta);
+            case KING -> applySteps(row, col, KING_STEPS, color, delta);
+            case BISHOP -> applyRays(board, row, col, BISHOP_RAYS, color, delta);
+            case ROOK -> applyRays(board, row, col, ROOK_RAYS, color, delta);
+            case QUEEN -> {
+                applyRays(board, row, col, BISHOP_RAYS, color, delta);
+                applyRays(board, row, col, ROOK_RAYS, color, delta);
+            }
+        }
+    }
+
+    private void applySteps(int row, int col, int[][] steps, ChessGame.TeamColor color, int delta) {
+        for (int[] step : steps) {
+            applyStep(row + step[0], col + step[1], color, delta);
+        }
+    }
+
+    private void applyRays(ChessPiece[][] board, int row, int col, int[][] rays, ChessGame.TeamColor color, int delta) {
+        for (int[] ray : rays) {
+            applyRay(board, row, col, ray[0], ray[1], color, delta);
+        }
+    }
+
+    private void applyRay(ChessPiece[][] board, int row, int col, int dr, int dc, ChessGame.TeamColor color, int delta) {
+        int r = row + dr;
+        int c = col + dc;
+        while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+            mark(r * 8 + c, color, delta);
+            if (board[r][c] != null) {
+                break;
+            }
+            r += dr;
+            c += dc;
+        }
+    }
+
+    private void applyStep(int row, int col, ChessGame.TeamColor color, int delta) {
+        if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            mark(row * 8 + col, color, delta);
+        }
+    }
+
+    private void mark(int square, ChessGame.TeamColor color, int delta) {
+        int side = color.ordinal();
+        int count = counts[side][square] += delta;
+        if (count == 0) {
+            masks[side] &= ~(1L << square);
+        } else if (count == delta) {
+            masks[side] |= 1L << square;
+        }
+    }
+}
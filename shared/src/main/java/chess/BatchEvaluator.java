@@ -0,0 +1,21 @@
+package chess;
+
+/**
+ * Scores every position of a {@link PositionBatch} the way {@link Evaluator#evaluate} scores one board
+ */
+public interface BatchEvaluator {
+    /**
+     * @param scores receives each position's score in centipawns from white's point of view,
+     *               at the position's index; must hold at least {@code batch.size()} entries
+     */
+    void evaluate(PositionBatch batch, int[] scores);
+
+    /**
+     * @return a short label for reports, e.g. "scalar"
+     */
+    String name();
+
+    static BatchEvaluator scalar() {
+        return new ScalarBatchEvaluator();
+    }
+}
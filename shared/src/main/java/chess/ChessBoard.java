@@ -1,5 +1,7 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -9,14 +11,29 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoardAdapter.class)
 public class ChessBoard {
     private ChessPiece[][] board;
     private ChessPiece piece;
     private ChessPosition position;
+    // derived from board, so rebuilt on demand instead of being serialized or compared
+    private transient AttackMap attacks;
     public ChessBoard() {
         this.board = new ChessPiece[8][8]; // empty board
     }
 
+    /**
+     * Creates a board holding the same pieces as another board
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        this();
+        for (int row = 0; row < 8; row++) {
+            System.arraycopy(other.board[row], 0, board[row], 0, 8);
+        }
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -24,7 +41,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        if (attacks != null) {
+            attacks.setPiece(board, position.getRow()-1, position.getColumn()-1, piece);
+        } else {
+            board[position.getRow()-1][position.getColumn()-1] = piece;
+        }
     }
 
     /**
@@ -38,6 +59,44 @@ public class ChessBoard {
         return board[position.getRow()-1][position.getColumn()-1];
     }
 
+    /**
+     * Gets a chess piece by square index, without building a position
+     *
+     * @param square index {@code (row - 1) * 8 + (column - 1)}
+     */
+    ChessPiece getPiece(int square) {
+        return board[square / 8][square % 8];
+    }
+
+    /**
+     * Determines if any piece of a team could capture on a square
+     *
+     * @param position the square to test
+     * @param attacker the team doing the attacking
+     * @return True if the square is attacked by that team
+     */
+    public boolean isAttacked(ChessPosition position, ChessGame.TeamColor attacker) {
+        return attackMap().isAttacked(AttackMap.squareIndex(position), attacker);
+    }
+
+    /**
+     * Gets every square a team attacks as a bitmap, where bit {@code (row-1)*8 + (column-1)}
+     * is set if that square is attacked
+     *
+     * @param attacker the team doing the attacking
+     * @return the attacked squares
+     */
+    public long getAttackMask(ChessGame.TeamColor attacker) {
+        return attackMap().mask(attacker);
+    }
+
+    private AttackMap attackMap() {
+        if (attacks == null) {
+            attacks = new AttackMap(board);
+        }
+        return attacks;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -45,6 +104,7 @@ public class ChessBoard {
     public void resetBoard() {
 
         board = new ChessPiece[8][8];
+        attacks = null;
 
         ChessPiece.PieceType[] backRow = {
                 ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
@@ -0,0 +1,38 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessBoard} as its FEN piece placement string instead of its fields
+ */
+public final class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(Fen.formatPlacement(board));
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String placement = in.nextString();
+        try {
+            return Fen.parsePlacement(placement);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Bad chess board: " + placement, e);
+        }
+    }
+}
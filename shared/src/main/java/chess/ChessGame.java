@@ -1,7 +1,10 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -10,9 +13,12 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGameAdapter.class)
 public class ChessGame {
     private ChessBoard board;
     private TeamColor currentTurn;
+    // started by the first move after the position was last set, so it starts wherever play did
+    private GameHistory history;
     public ChessGame() {
         board = new ChessBoard();
         board.resetBoard();
@@ -33,6 +39,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         currentTurn = team;
+        history = null;
     }
 
     /**
@@ -45,56 +52,207 @@ public class ChessGame {
 
     /**
      * Gets a valid moves for a piece at the given location
+     * <p>
+     * Looked up in {@link LegalMoveCache#shared()}, so a position any game has already seen
+     * costs a hash of the board rather than a move generation.
      *
      * @param startPosition the piece to get valid moves for
      * @return Set of valid moves for requested piece, or null if no piece at
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
+        ChessPiece piece = board.getPiece(startPosition);
+        TeamColor teamColor = piece.getTeamColor();
+        return new java.util.ArrayList<>(LegalMoveCache.shared().moves(board, teamColor)
+                .getOrDefault(startPosition, List.of()));
+    }
+
+    /**
+     * Finds a piece's valid moves by playing each of its moves and testing for check, the
+     * slow reference that {@link #validMoves} and {@link #allValidMoves} are checked against
+     */
+    Collection<ChessMove> simulatedValidMoves(ChessPosition startPosition) {
         Collection<ChessMove> moves = new java.util.ArrayList<>(List.of());
         ChessPiece piece = board.getPiece(startPosition);
         TeamColor teamColor = piece.getTeamColor();
         for (ChessMove move : piece.pieceMoves(board, startPosition)) {
-            ChessPiece captured = board.getPiece(move.getEndPosition());
-            board.addPiece(move.getEndPosition(), piece);
-            board.addPiece(move.getStartPosition(), null);
-            boolean inCheck = isInCheck(teamColor);
-            if (!inCheck){
+            if (simulateMoveIsLegal(teamColor, piece, move)) {
                 moves.add(move);
             }
-            board.addPiece(move.getStartPosition(), piece);
-            board.addPiece(move.getEndPosition(), captured);
         }
         return moves;
     }
 
     /**
-     * Makes a move in a chess game
+     * Gets every valid move for a team in one pass, sharing the check and pin
+     * analysis across all of its pieces
+     *
+     * @param teamColor the team to get valid moves for
+     * @return valid moves grouped by the square they start from; pieces with no
+     * valid moves are left out
+     */
+    public Map<ChessPosition, Collection<ChessMove>> allValidMoves(TeamColor teamColor) {
+        return LegalMoveGenerator.generate(board, teamColor);
+    }
+
+    /**
+     * Makes a move in a chess game, recording it in the move history
      *
      * @param move chess move to perform
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPosition start = move.getStartPosition();
-        ChessPosition end  = move.getEndPosition();
-        ChessPiece.PieceType promotion = move.getPromotionPiece();
-        ChessPiece piece = board.getPiece(start);
+        if (!ChessPiece.onBoard(move.getStartPosition())) {
+            throw new InvalidMoveException("off the board");
+        }
+        ChessPiece piece = board.getPiece(move.getStartPosition());
         if (piece == null) {
             throw new InvalidMoveException("no piece");
         }
         if (piece.getTeamColor() != currentTurn) {
             throw new InvalidMoveException("wrong turn");
         }
-        if (!validMoves(start).contains(move)) {
+        if (!isLegal(move)) {
             throw new InvalidMoveException("invalid move");
         }
-        if (promotion != null){
-            board.addPiece(end, new ChessPiece(piece.getTeamColor(), promotion));
-        } else {
-            board.addPiece(end, piece);
+        play(move);
+    }
+
+    private void play(ChessMove move) {
+        if (history == null || history.length() == 0) {
+            history = new GameHistory(board, currentTurn);
         }
-        board.addPiece(start, null);
+        GameHistory.apply(board, move);
         currentTurn = (currentTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        history.record(move, board);
+    }
+
+    /**
+     * Replaces the history with moves from the current position, played without checking
+     * them, then seeks to a ply of it; for loading a saved game
+     *
+     * @throws IllegalArgumentException if a move starts on an empty square or the ply is outside
+     * the moves
+     */
+    void replayHistory(List<ChessMove> moves, int ply) {
+        history = null;
+        for (ChessMove move : moves) {
+            playUnchecked(move);
+        }
+        seek(ply);
+    }
+
+    /**
+     * Plays and records a move of a saved game without checking that it is legal, for moves that
+     * were checked when they were first made
+     *
+     * @throws IllegalArgumentException if the move starts on an empty square
+     */
+    void playUnchecked(ChessMove move) {
+        if (board.getPiece(move.getStartPosition()) == null) {
+            throw new IllegalArgumentException("no piece to move for " + UciEngine.formatMove(move));
+        }
+        play(move);
+    }
+
+    /**
+     * @return the move history, or null if no move was made since the position was last set
+     */
+    GameHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * @return a copy of the board {@link #getMoveHistory} starts from
+     */
+    public ChessBoard getHistoryStart() {
+        return history == null ? new ChessBoard(board) : history.startBoard();
+    }
+
+    /**
+     * @return the team to move in the position {@link #getMoveHistory} starts from
+     */
+    public TeamColor getHistoryStartTurn() {
+        return history == null ? currentTurn : history.turnAt(0);
+    }
+
+    /**
+     * @return the moves made since the position was last set, including undone moves that
+     * {@link #redo} can still replay
+     */
+    public List<ChessMove> getMoveHistory() {
+        return history == null ? List.of() : history.moves();
+    }
+
+    /**
+     * @return how many moves of {@link #getMoveHistory} lead to the current position
+     */
+    public int getPly() {
+        return history == null ? 0 : history.ply();
+    }
+
+    /**
+     * Moves the game to the position after a given number of moves of its history, restoring
+     * the nearest earlier checkpoint and replaying the rest. The history assumes the board only
+     * changes through this game's own methods.
+     *
+     * @param ply number of moves from the start of {@link #getMoveHistory}
+     * @throws IllegalArgumentException if the history has no such ply
+     */
+    public void seek(int ply) {
+        if (history == null) {
+            if (ply != 0) {
+                throw new IllegalArgumentException("ply " + ply + " outside 0..0");
+            }
+            return;
+        }
+        history.seek(board, ply);
+        currentTurn = history.turnAt(ply);
+    }
+
+    /**
+     * Takes back the last move
+     *
+     * @return False if there was no move to take back
+     */
+    public boolean undo() {
+        if (getPly() == 0) {
+            return false;
+        }
+        seek(getPly() - 1);
+        return true;
+    }
+
+    /**
+     * Replays the last move taken back by {@link #undo}
+     *
+     * @return False if there was no such move, or a new move was made since
+     */
+    public boolean redo() {
+        if (history == null || history.ply() == history.length()) {
+            return false;
+        }
+        seek(history.ply() + 1);
+        return true;
+    }
+
+    /**
+     * Determines if a single move is valid for the piece on its start square,
+     * without generating the piece's other moves. Turn order is not considered.
+     *
+     * @param move the move to test
+     * @return True if the move is one {@link #validMoves} would return
+     */
+    public boolean isLegal(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        if (!ChessPiece.onBoard(start)) {
+            return false;
+        }
+        ChessPiece piece = board.getPiece(start);
+        if (piece == null || !piece.isPseudoLegal(board, move)) {
+            return false;
+        }
+        return simulateMoveIsLegal(piece.getTeamColor(), piece, move);
     }
 
     /**
@@ -117,33 +275,13 @@ public class ChessGame {
         }
         return null;
     }
-    private boolean isLethal(TeamColor teamColor, ChessPosition kingPosition){
-        for (int row = 1; row < 9; row++) {
-            for (int col = 1; col < 9; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                if (canAttackPosition(teamColor, position, kingPosition)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private boolean canAttackPosition(TeamColor teamColor, ChessPosition attackerPos, ChessPosition targetPos) {
-        ChessPiece piece = board.getPiece(attackerPos);
-        if (piece == null || piece.getTeamColor() == teamColor) {
-            return false;
-        }
-        for (ChessMove move : piece.pieceMoves(board, attackerPos)) {
-            if (move.getEndPosition().equals(targetPos)) {
-                return true;
-            }
-        }
-        return false;
-    }
     public boolean isInCheck(TeamColor teamColor) {
         ChessPosition kingPosition = findKing(teamColor);
-        return isLethal(teamColor, kingPosition);
+        return kingPosition != null && board.isAttacked(kingPosition, opponent(teamColor));
+    }
+
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
@@ -167,24 +305,14 @@ public boolean isInCheckmate(TeamColor teamColor) {
         return !isInCheck(teamColor) && !hasValidMove(teamColor);
     }
 
+    /**
+     * Walks the team's moves captures first and stops at the first legal one, so a side
+     * that is not mated is usually proven so after generating a handful of moves
+     */
     private boolean hasValidMove(TeamColor teamColor) {
-        for (int row = 1; row < 9; row++) {
-            for (int col = 1; col < 9; col++) {
-                if (positionHasValidMove(teamColor, new ChessPosition(row, col))) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private boolean positionHasValidMove(TeamColor teamColor, ChessPosition position) {
-        ChessPiece piece = board.getPiece(position);
-        if (piece == null || !piece.getTeamColor().equals(teamColor)) {
-            return false;
-        }
-        for (ChessMove move : piece.pieceMoves(board, position)) {
-            if (simulateMoveIsLegal(teamColor, piece, move)) {
+        MoveCursor cursor = new MoveCursor(board, teamColor);
+        for (ChessMove move = cursor.next(); move != null; move = cursor.next()) {
+            if (simulateMoveIsLegal(teamColor, board.getPiece(move.getStartPosition()), move)) {
                 return true;
             }
         }
@@ -208,6 +336,7 @@ public boolean isInCheckmate(TeamColor teamColor) {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        history = null;
     }
 
     /**
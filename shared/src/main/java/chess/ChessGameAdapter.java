@@ -0,0 +1,161 @@
+package chess;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a {@link ChessGame} as one JSON string instead of its fields
+ * <p>
+ * The string is the FEN placement and side to move of the current position, for example
+ * {@code "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w"}, which is what storage and the wire
+ * need. The adapter from {@link #withHistory()} writes the history as well, for a caller that
+ * needs undo and redo to survive: the position the history starts from, then {@code ply N} if
+ * moves have been undone, then {@code moves} and the history in UCI form, for example
+ * {@code "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w moves e2e4 e7e5"}. Either adapter reads
+ * both forms, replaying moves without checking them, since they were checked when first made.
+ * <p>
+ * Games stored before this adapter existed are JSON objects of the game's fields; reading one
+ * keeps its board and side to move.
+ */
+public final class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    private final boolean history;
+
+    public ChessGameAdapter() {
+        this(false);
+    }
+
+    private ChessGameAdapter(boolean history) {
+        this.history = history;
+    }
+
+    /**
+     * @return an adapter that also writes the move history, to register with a
+     * {@link com.google.gson.GsonBuilder} in place of the default
+     */
+    public static ChessGameAdapter withHistory() {
+        return new ChessGameAdapter(true);
+    }
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(history ? formatHistory(game) : format(game));
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (in.peek() == JsonToken.BEGIN_OBJECT) {
+            return readFields(JsonParser.parseReader(in).getAsJsonObject());
+        }
+        String text = in.nextString();
+        try {
+            return parse(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Bad chess game: " + text, e);
+        }
+    }
+
+    static String format(ChessGame game) {
+        return position(game.getBoard(), game.getTeamTurn());
+    }
+
+    static String formatHistory(ChessGame game) {
+        List<ChessMove> moves = game.getMoveHistory();
+        if (moves.isEmpty()) {
+            return format(game);
+        }
+        var sb = new StringBuilder(80 + moves.size() * 5);
+        sb.append(position(game.getHistoryStart(), game.getHistoryStartTurn()));
+        if (game.getPly() != moves.size()) {
+            sb.append(" ply ").append(game.getPly());
+        }
+        sb.append(" moves");
+        for (ChessMove move : moves) {
+            sb.append(' ').append(UciEngine.formatMove(move));
+        }
+        return sb.toString();
+    }
+
+    static ChessGame parse(String text) {
+        String[] fields = text.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("needs placement and side to move");
+        }
+        ChessGame game = Fen.parse(fields[0] + " " + fields[1]);
+        int next = 2;
+        int ply = -1;
+        if (next < fields.length && fields[next].equals("ply")) {
+            if (next + 1 >= fields.length) {
+                throw new IllegalArgumentException("ply without a number");
+            }
+            ply = Integer.parseInt(fields[next + 1]);
+            next += 2;
+        }
+        List<ChessMove> moves = new ArrayList<>();
+        if (next < fields.length) {
+            if (!fields[next].equals("moves")) {
+                throw new IllegalArgumentException("unexpected " + fields[next]);
+            }
+            for (next++; next < fields.length; next++) {
+                ChessMove move = UciEngine.parseMove(fields[next]);
+                if (move == null) {
+                    throw new IllegalArgumentException("bad move " + fields[next]);
+                }
+                moves.add(move);
+            }
+        }
+        game.replayHistory(moves, ply < 0 ? moves.size() : ply);
+        return game;
+    }
+
+    /**
+     * Reads the field-by-field layout Gson used to write for a game by reflection
+     */
+    static ChessGame readFields(JsonObject fields) {
+        try {
+            JsonArray rows = fields.getAsJsonObject("board").getAsJsonArray("board");
+            ChessBoard board = new ChessBoard();
+            for (int row = 0; row < 8; row++) {
+                JsonArray squares = rows.get(row).getAsJsonArray();
+                for (int col = 0; col < 8; col++) {
+                    JsonElement square = squares.get(col);
+                    if (square.isJsonNull()) {
+                        continue;
+                    }
+                    JsonObject piece = square.getAsJsonObject();
+                    board.addPiece(new ChessPosition(row + 1, col + 1), new ChessPiece(
+                            ChessGame.TeamColor.valueOf(piece.get("pieceColor").getAsString()),
+                            ChessPiece.PieceType.valueOf(piece.get("type").getAsString())));
+                }
+            }
+            ChessGame game = new ChessGame();
+            game.setBoard(board);
+            game.setTeamTurn(ChessGame.TeamColor.valueOf(fields.get("currentTurn").getAsString()));
+            return game;
+        } catch (RuntimeException e) {
+            throw new JsonParseException("Bad chess game: " + fields, e);
+        }
+    }
+
+    private static String position(ChessBoard board, ChessGame.TeamColor turn) {
+        return Fen.formatPlacement(board) + (turn == ChessGame.TeamColor.WHITE ? " w" : " b");
+    }
+}
@@ -0,0 +1,266 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Versioned binary encoding of a {@link ChessGame}, for storage and network frames where JSON
+ * is too large
+ * <p>
+ * Layout, all multi-byte fields big-endian whatever the buffer's byte order:
+ * <pre>
+ * version       1 byte, {@link #VERSION}
+ * flags         1 byte: bit 0 black to move, bit 1 move history follows, other bits zero
+ * occupancy     8 bytes, bit (row - 1) * 8 + (column - 1) set for each occupied square
+ * pieces        one 4-bit {@link PositionBatch#kind} per occupied square in square order,
+ *               low nibble first, padded to a whole byte
+ * [history]     move count and current ply as varints, then 2 bytes per move:
+ *               {@link #packMove}
+ * </pre>
+ * With a history the position and side to move are those the history starts from, and decoding
+ * replays the moves up to the ply. {@link ChessGame} has no castling rights or en passant square,
+ * so the reserved flag bits stay zero until a version that has them.
+ * <p>
+ * Encoding allocates nothing. Decoding builds an ordinary game: a board of {@link ChessPiece}
+ * objects and, when there is a history, the {@link ChessMove}s and {@link GameHistory} that
+ * replaying it records.
+ */
+public final class ChessGameCodec {
+    public static final int VERSION = 1;
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int HAS_HISTORY = 2;
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
+    private ChessGameCodec() {
+    }
+
+    /**
+     * @return the exact number of bytes {@link #encode(ChessGame, ByteBuffer)} writes
+     */
+    public static int encodedSize(ChessGame game) {
+        GameHistory history = game.getHistory();
+        long occupancy = history == null ? occupancy(game.getBoard()) : startOccupancy(history);
+        int size = 2 + 8 + (Long.bitCount(occupancy) + 1) / 2;
+        if (history != null) {
+            size += varintSize(history.length()) + varintSize(history.ply()) + 2 * history.length();
+        }
+        return size;
+    }
+
+    public static byte[] encode(ChessGame game) {
+        ByteBuffer out = ByteBuffer.allocate(encodedSize(game));
+        encode(game, out);
+        return out.array();
+    }
+
+    /**
+     * Writes a game at the buffer's position, advancing it
+     *
+     * @throws java.nio.BufferOverflowException if fewer than {@link #encodedSize} bytes remain
+     */
+    public static void encode(ChessGame game, ByteBuffer out) {
+        GameHistory history = game.getHistory();
+        ChessGame.TeamColor turn = history == null ? game.getTeamTurn() : history.turnAt(0);
+        out.put((byte) VERSION);
+        out.put((byte) ((turn == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0) | (history == null ? 0 : HAS_HISTORY)));
+        if (history == null) {
+            ChessBoard board = game.getBoard();
+            long occupancy = occupancy(board);
+            putLong(out, occupancy);
+            int pending = -1;
+            for (long rest = occupancy; rest != 0; rest &= rest - 1) {
+                ChessPiece piece = board.getPiece(Long.numberOfTrailingZeros(rest));
+                pending = putNibble(out, pending, PositionBatch.kind(piece.getTeamColor(), piece.getPieceType()));
+            }
+            flushNibble(out, pending);
+            return;
+        }
+        long occupancy = startOccupancy(history);
+        putLong(out, occupancy);
+        int pending = -1;
+        for (long rest = occupancy; rest != 0; rest &= rest - 1) {
+            pending = putNibble(out, pending, history.startKind(Long.numberOfTrailingZeros(rest)));
+        }
+        flushNibble(out, pending);
+        putVarint(out, history.length());
+        putVarint(out, history.ply());
+        for (int i = 0; i < history.length(); i++) {
+            int packed = packMove(history.move(i));
+            out.put((byte) (packed >>> 8));
+            out.put((byte) packed);
+        }
+    }
+
+    /**
+     * Reads a game at the buffer's position, advancing it past the game
+     *
+     * @throws IllegalArgumentException if the version is unknown or the bytes do not describe a
+     * game
+     * @throws java.nio.BufferUnderflowException if the buffer ends inside the game
+     */
+    public static ChessGame decode(ByteBuffer in) {
+        int version = in.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported game encoding version " + version);
+        }
+        int flags = in.get() & 0xFF;
+        if ((flags & ~(BLACK_TO_MOVE | HAS_HISTORY)) != 0) {
+            throw new IllegalArgumentException("Unknown game encoding flags " + flags);
+        }
+        long occupancy = getLong(in);
+        ChessBoard board = new ChessBoard();
+        int packed = 0;
+        int index = 0;
+        for (long rest = occupancy; rest != 0; rest &= rest - 1, index++) {
+            if ((index & 1) == 0) {
+                packed = in.get() & 0xFF;
+            }
+            int kind = (index & 1) == 0 ? packed & 0xF : packed >>> 4;
+            if (kind >= PositionBatch.KINDS) {
+                throw new IllegalArgumentException("Bad piece code " + kind);
+            }
+            board.addPiece(SQUARES[Long.numberOfTrailingZeros(rest)],
+                    new ChessPiece(PositionBatch.colorOf(kind), PositionBatch.typeOf(kind)));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn((flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        if ((flags & HAS_HISTORY) != 0) {
+            int count = getVarint(in);
+            int ply = getVarint(in);
+            for (int i = 0; i < count; i++) {
+                replay(game, (in.get() & 0xFF) << 8 | in.get() & 0xFF);
+            }
+            game.seek(ply);
+        }
+        return game;
+    }
+
+    public static ChessGame decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Plays and records a move {@link #packMove} packed without checking that it is legal, for
+     * stored moves that were checked when they were first made
+     *
+     * @throws IllegalArgumentException if the promotion code is not a piece type or the move
+     * starts on an empty square
+     */
+    public static void replay(ChessGame game, int packed) {
+        game.playUnchecked(unpackMove(packed));
+    }
+
+    /**
+     * @return a move in 15 bits: {@code from | to << 6 | (promotion type + 1, or 0) << 12},
+     * squares numbered {@code (row - 1) * 8 + (column - 1)}
+     */
+    public static int packMove(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return AttackMap.squareIndex(move.getStartPosition())
+                | AttackMap.squareIndex(move.getEndPosition()) << 6
+                | (promotion == null ? 0 : promotion.ordinal() + 1) << 12;
+    }
+
+    /**
+     * @return the move {@link #packMove} packed
+     * @throws IllegalArgumentException if the promotion code is not a piece type
+     */
+    public static ChessMove unpackMove(int packed) {
+        int promotion = packed >>> 12;
+        if (promotion > TYPES.length) {
+            throw new IllegalArgumentException("Bad promotion code " + promotion);
+        }
+        return new ChessMove(SQUARES[packed & 63], SQUARES[packed >>> 6 & 63],
+                promotion == 0 ? null : TYPES[promotion - 1]);
+    }
+
+    private static long occupancy(ChessBoard board) {
+        long occupancy = 0;
+        for (int square = 0; square < 64; square++) {
+            if (board.getPiece(square) != null) {
+                occupancy |= 1L << square;
+            }
+        }
+        return occupancy;
+    }
+
+    private static long startOccupancy(GameHistory history) {
+        long occupancy = 0;
+        for (int square = 0; square < 64; square++) {
+            if (history.startKind(square) >= 0) {
+                occupancy |= 1L << square;
+            }
+        }
+        return occupancy;
+    }
+
+    /**
+     * Buffers a nibble until its partner arrives, writing both as one byte
+     *
+     * @param pending the buffered nibble, or -1
+     * @return the new buffered nibble, or -1 if a byte was written
+     */
+    private static int putNibble(ByteBuffer out, int pending, int nibble) {
+        if (pending < 0) {
+            return nibble;
+        }
+        out.put((byte) (pending | nibble << 4));
+        return -1;
+    }
+
+    private static void flushNibble(ByteBuffer out, int pending) {
+        if (pending >= 0) {
+            out.put((byte) pending);
+        }
+    }
+
+    private static void putLong(ByteBuffer out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.put((byte) (value >>> shift));
+        }
+    }
+
+    private static long getLong(ByteBuffer in) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | in.get() & 0xFF;
+        }
+        return value;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
@@ -11,8 +11,6 @@ import java.util.*;
 public class ChessPiece {
     private ChessGame.TeamColor pieceColor;
     private ChessPiece.PieceType type;
-    private ChessPosition myPosition;
-    private ChessBoard board;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
@@ -53,7 +51,7 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
 
-    private Collection<ChessMove> pieceMovesHelper(int[][] directions){
+    private Collection<ChessMove> pieceMovesHelper(ChessBoard board, ChessPosition myPosition, int[][] directions){
         Collection<ChessMove> moves = new ArrayList<>();
         for (int[] direction : directions) {
             int rowDelta = direction[0];
@@ -88,7 +86,8 @@ public class ChessPiece {
         return moves;
     }
 
-    private Collection<ChessMove> pieceMovesHelperSingle(int[][] directions){
+    private Collection<ChessMove> pieceMovesHelperSingle(ChessBoard board, ChessPosition myPosition,
+                                                         int[][] directions){
         Collection<ChessMove> moves = new ArrayList<>();
         for (int[] direction : directions) {
             int rowDelta = direction[0];
@@ -122,31 +121,30 @@ public class ChessPiece {
     }
 
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        this.board = board;
-        this.myPosition = myPosition;
-
+        // board and position are passed down rather than kept, since boards share their pieces
+        // and one piece may be generating moves on several boards at once
         return switch (this.type) {
-            case QUEEN -> pieceMovesHelper(new int[][]{
+            case QUEEN -> pieceMovesHelper(board, myPosition, new int[][]{
                     {-1, -1}, {0, -1}, {1, -1},
                     {-1, 0},           {1, 0},
                     {-1, 1},  {0, 1},  {1, 1}
             });
-            case BISHOP -> pieceMovesHelper(new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}});
-            case ROOK -> pieceMovesHelper(new int[][]{{1, 0}, {0, 1}, {-1, 0}, {0, -1}});
-            case KNIGHT -> pieceMovesHelperSingle(new int[][]{
+            case BISHOP -> pieceMovesHelper(board, myPosition, new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}});
+            case ROOK -> pieceMovesHelper(board, myPosition, new int[][]{{1, 0}, {0, 1}, {-1, 0}, {0, -1}});
+            case KNIGHT -> pieceMovesHelperSingle(board, myPosition, new int[][]{
                     {2, 1}, {2, -1}, {-2, 1}, {-2, -1},
                     {1, 2}, {1, -2}, {-1, 2}, {-1, -2}
             });
-            case KING -> pieceMovesHelperSingle(new int[][]{
+            case KING -> pieceMovesHelperSingle(board, myPosition, new int[][]{
                     {-1, -1}, {0, -1}, {1, -1},
                     {-1, 0},           {1, 0},
                     {-1, 1},  {0, 1},  {1, 1}
             });
-            case PAWN -> pawnMoves();
+            case PAWN -> pawnMoves(board, myPosition);
         };
     }
 
-    private Collection<ChessMove> pawnMoves() {
+    private Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPosition) {
         Collection<ChessMove> moves = new ArrayList<>();
         int directionColor = (this.getTeamColor() == ChessGame.TeamColor.WHITE) ? 1 : -1;
         int startRow = (this.getTeamColor() == ChessGame.TeamColor.WHITE) ? 2 : 7;
@@ -192,6 +190,84 @@ public class ChessPiece {
         return moves;
     }
 
+    /**
+     * Checks a single move against this piece's movement rules without generating
+     * every move. Like {@link #pieceMoves}, this ignores whether the king is left in danger.
+     *
+     * @return True if the move is one {@link #pieceMoves} would return
+     */
+    boolean isPseudoLegal(ChessBoard board, ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        if (!onBoard(end) || start.equals(end)) {
+            return false;
+        }
+        ChessPiece target = board.getPiece(end);
+        if (target != null && target.getTeamColor() == pieceColor) {
+            return false;
+        }
+        int rowDelta = end.getRow() - start.getRow();
+        int colDelta = end.getColumn() - start.getColumn();
+        if (type != PieceType.PAWN && move.getPromotionPiece() != null) {
+            return false;
+        }
+
+        return switch (type) {
+            case KNIGHT -> Math.abs(rowDelta * colDelta) == 2;
+            case KING -> Math.max(Math.abs(rowDelta), Math.abs(colDelta)) == 1;
+            case ROOK -> (rowDelta == 0 || colDelta == 0) && pathIsClear(board, start, end);
+            case BISHOP -> Math.abs(rowDelta) == Math.abs(colDelta) && pathIsClear(board, start, end);
+            case QUEEN -> (rowDelta == 0 || colDelta == 0 || Math.abs(rowDelta) == Math.abs(colDelta))
+                    && pathIsClear(board, start, end);
+            case PAWN -> pawnMoveIsPseudoLegal(board, move, target, rowDelta, colDelta);
+        };
+    }
+
+    private boolean pawnMoveIsPseudoLegal(ChessBoard board, ChessMove move, ChessPiece target,
+                                          int rowDelta, int colDelta) {
+        int directionColor = (pieceColor == ChessGame.TeamColor.WHITE) ? 1 : -1;
+        int startRow = (pieceColor == ChessGame.TeamColor.WHITE) ? 2 : 7;
+        int promotionRow = (pieceColor == ChessGame.TeamColor.WHITE) ? 8 : 1;
+        PieceType promotion = move.getPromotionPiece();
+        boolean promotes = move.getEndPosition().getRow() == promotionRow;
+        if (promotes != (promotion != null) || promotion == PieceType.KING || promotion == PieceType.PAWN) {
+            return false;
+        }
+
+        ChessPosition start = move.getStartPosition();
+        if (colDelta == 0) {
+            if (target != null) {
+                return false;
+            }
+            if (rowDelta == directionColor) {
+                return true;
+            }
+            ChessPosition frontPos = new ChessPosition(start.getRow() + directionColor, start.getColumn());
+            return rowDelta == 2 * directionColor && start.getRow() == startRow && board.getPiece(frontPos) == null;
+        }
+        return Math.abs(colDelta) == 1 && rowDelta == directionColor && target != null;
+    }
+
+    private static boolean pathIsClear(ChessBoard board, ChessPosition start, ChessPosition end) {
+        int rowStep = Integer.signum(end.getRow() - start.getRow());
+        int colStep = Integer.signum(end.getColumn() - start.getColumn());
+        int row = start.getRow() + rowStep;
+        int col = start.getColumn() + colStep;
+        while (row != end.getRow() || col != end.getColumn()) {
+            if (board.getPiece(new ChessPosition(row, col)) != null) {
+                return false;
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return true;
+    }
+
+    static boolean onBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -0,0 +1,214 @@
+package chess;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ChessGame} that many threads can read while one of them moves
+ * <p>
+ * Moves, {@link #setBoard} and {@link #setTeamTurn} take a {@link StampedLock} write lock.
+ * Every read, including {@link #getBoard}, {@link #snapshot}, {@link #allValidMoves} and
+ * {@link #isInCheck}, first runs without locking under an optimistic stamp and keeps its answer
+ * if no write happened meanwhile; otherwise, or if the torn read threw, it runs again under the
+ * read lock. An optimistic read must therefore change nothing, which is why legality and mate
+ * tests go through {@link LegalMoveCache} rather than the game's own simulate-and-undo checks,
+ * and why a reader only looks cache entries up until it holds the read lock, so it never stores
+ * moves generated from a torn board.
+ * <p>
+ * The wrapped game must not be used directly once wrapped; {@link #getBoard} and
+ * {@link #snapshot} hand out copies. The copies share the game's {@link ChessPiece} objects,
+ * which is safe because move generation keeps no state in a piece.
+ */
+public final class ConcurrentChessGame {
+    private final StampedLock lock = new StampedLock();
+    private final ChessGame game;
+
+    public ConcurrentChessGame() {
+        this(new ChessGame());
+    }
+
+    /**
+     * @param game the game to guard, which this object takes ownership of
+     */
+    public ConcurrentChessGame(ChessGame game) {
+        this.game = game;
+        primeAttackMap();
+    }
+
+    public void makeMove(ChessMove move) throws InvalidMoveException {
+        long stamp = lock.writeLock();
+        try {
+            game.makeMove(move);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setBoard(ChessBoard board) {
+        long stamp = lock.writeLock();
+        try {
+            game.setBoard(new ChessBoard(board));
+            primeAttackMap();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setTeamTurn(ChessGame.TeamColor team) {
+        long stamp = lock.writeLock();
+        try {
+            game.setTeamTurn(team);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return read(game::getTeamTurn);
+    }
+
+    /**
+     * @return a copy of the current board
+     */
+    public ChessBoard getBoard() {
+        return read(() -> new ChessBoard(game.getBoard()));
+    }
+
+    /**
+     * @return a copy of the whole game, for serializing or analysing without holding the lock
+     */
+    public ChessGame snapshot() {
+        return read(() -> {
+            ChessGame copy = new ChessGame();
+            copy.setBoard(new ChessBoard(game.getBoard()));
+            copy.setTeamTurn(game.getTeamTurn());
+            return copy;
+        });
+    }
+
+    /**
+     * @return the valid moves of the piece on a square, or null if the square is empty
+     */
+    public Collection<ChessMove> validMoves(ChessPosition startPosition) {
+        List<ChessMove> moves = movesFrom(startPosition);
+        return moves == null ? null : new java.util.ArrayList<>(moves);
+    }
+
+    public Map<ChessPosition, Collection<ChessMove>> allValidMoves(ChessGame.TeamColor teamColor) {
+        return read(() -> game.allValidMoves(teamColor));
+    }
+
+    /**
+     * @return True if the move is valid for the piece on its start square; turn order is not
+     * considered
+     */
+    public boolean isLegal(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        if (start.getRow() < 1 || start.getRow() > 8 || start.getColumn() < 1 || start.getColumn() > 8) {
+            return false;
+        }
+        List<ChessMove> moves = movesFrom(start);
+        return moves != null && moves.contains(move);
+    }
+
+    public boolean isInCheck(ChessGame.TeamColor teamColor) {
+        return read(() -> game.isInCheck(teamColor));
+    }
+
+    public boolean isInCheckmate(ChessGame.TeamColor teamColor) {
+        return read(() -> game.isInCheck(teamColor), () -> isStuck(teamColor, false), () -> isStuck(teamColor, true));
+    }
+
+    public boolean isInStalemate(ChessGame.TeamColor teamColor) {
+        return read(() -> !game.isInCheck(teamColor), () -> isStuck(teamColor, false), () -> isStuck(teamColor, true));
+    }
+
+    /**
+     * @return whether a side has no legal move, or null if {@code generate} is false and the
+     * position is not cached
+     */
+    private Boolean isStuck(ChessGame.TeamColor teamColor, boolean generate) {
+        var moves = generate ? LegalMoveCache.shared().moves(game.getBoard(), teamColor)
+                : LegalMoveCache.shared().peek(game.getBoard(), teamColor);
+        return moves == null ? null : moves.isEmpty();
+    }
+
+    private List<ChessMove> movesFrom(ChessPosition start) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                ChessPiece piece = game.getBoard().getPiece(start);
+                var cached = piece == null ? null : LegalMoveCache.shared().peek(game.getBoard(), piece.getTeamColor());
+                if ((piece == null || cached != null) && lock.validate(stamp)) {
+                    return piece == null ? null : cached.getOrDefault(start, List.of());
+                }
+            } catch (RuntimeException torn) {
+                // a concurrent move left the board half updated; retry under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            ChessPiece piece = game.getBoard().getPiece(start);
+            return piece == null ? null
+                    : LegalMoveCache.shared().moves(game.getBoard(), piece.getTeamColor()).getOrDefault(start, List.of());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException torn) {
+                // a concurrent move left the board half updated; retry under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads {@code check && stuck}, where {@code stuck} first tries a cache lookup and only
+     * generates moves once the read lock is held
+     */
+    private boolean read(Supplier<Boolean> check, Supplier<Boolean> cachedStuck, Supplier<Boolean> stuck) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                boolean result = check.get();
+                Boolean value = result ? cachedStuck.get() : Boolean.FALSE;
+                if (value != null && lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException torn) {
+                // a concurrent move left the board half updated; retry under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return check.get() && stuck.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Builds the board's attack map while no reader can see the board, since the board
+     * otherwise builds it lazily on the first query and readers would race to do so
+     */
+    private void primeAttackMap() {
+        game.getBoard().getAttackMask(ChessGame.TeamColor.WHITE);
+    }
+}
@@ -0,0 +1,142 @@
+package chess;
+
+/**
+ * Static evaluation of a board from material and piece-square tables
+ * <p>
+ * Scores are in centipawns from white's point of view. Tables are written from white's side
+ * with a1 first, and mirrored vertically for black.
+ */
+public final class Evaluator {
+    static final int[] PIECE_VALUES = new int[ChessPiece.PieceType.values().length];
+
+    static {
+        PIECE_VALUES[ChessPiece.PieceType.KING.ordinal()] = 0;
+        PIECE_VALUES[ChessPiece.PieceType.QUEEN.ordinal()] = 900;
+        PIECE_VALUES[ChessPiece.PieceType.BISHOP.ordinal()] = 330;
+        PIECE_VALUES[ChessPiece.PieceType.KNIGHT.ordinal()] = 320;
+        PIECE_VALUES[ChessPiece.PieceType.ROOK.ordinal()] = 500;
+        PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()] = 100;
+    }
+
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 5, 5, 0, 0, 0,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    private static final int[] KING_TABLE = {
+            20, 30, 10, 0, 0, 10, 30, 20,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30
+    };
+
+    private Evaluator() {
+    }
+
+    /**
+     * @return the board's score in centipawns, positive when white is better
+     */
+    public static int evaluate(ChessBoard board) {
+        int score = 0;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece == null) {
+                    continue;
+                }
+                int value = PIECE_VALUES[piece.getPieceType().ordinal()]
+                        + pieceSquareValue(piece.getPieceType(), piece.getTeamColor(), (row - 1) * 8 + col - 1);
+                score += piece.getTeamColor() == ChessGame.TeamColor.WHITE ? value : -value;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @param kind a {@link PositionBatch} piece kind
+     * @return the kind's material value, negative for black
+     */
+    static int signedPieceValue(int kind) {
+        int value = PIECE_VALUES[PositionBatch.typeOf(kind).ordinal()];
+        return PositionBatch.colorOf(kind) == ChessGame.TeamColor.WHITE ? value : -value;
+    }
+
+    /**
+     * @param kind a {@link PositionBatch} piece kind
+     * @return the kind's positional bonus for every square, negative for black
+     */
+    static int[] signedSquareValues(int kind) {
+        ChessGame.TeamColor color = PositionBatch.colorOf(kind);
+        int[] values = new int[64];
+        for (int square = 0; square < 64; square++) {
+            int value = pieceSquareValue(PositionBatch.typeOf(kind), color, square);
+            values[square] = color == ChessGame.TeamColor.WHITE ? value : -value;
+        }
+        return values;
+    }
+
+    /**
+     * @param square index {@code (row - 1) * 8 + (column - 1)}
+     * @return the positional bonus for a piece on a square, from its own side's point of view
+     */
+    static int pieceSquareValue(ChessPiece.PieceType type, ChessGame.TeamColor color, int square) {
+        int index = color == ChessGame.TeamColor.WHITE ? square : square ^ 56;
+        return switch (type) {
+            case PAWN -> PAWN_TABLE[index];
+            case KNIGHT -> KNIGHT_TABLE[index];
+            case BISHOP -> BISHOP_TABLE[index];
+            case ROOK -> ROOK_TABLE[index];
+            case QUEEN -> QUEEN_TABLE[index];
+            case KING -> KING_TABLE[index];
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation
+ * <p>
+ * Only piece placement and side to move are meaningful to {@link ChessGame}, so
+ * castling rights and the en passant square are written as "-" and ignored when read.
+ */
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a game from a FEN string
+     *
+     * @param fen placement, side to move and any optional trailing fields
+     * @return a game with the described board and turn
+     * @throws IllegalArgumentException if the placement or side to move is malformed
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 2) {
+            throw new IllegalArgumentException("FEN needs placement and side to move: " + fen);
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(parsePlacement(fields[0]));
+        game.setTeamTurn(switch (fields[1]) {
+            case "w" -> ChessGame.TeamColor.WHITE;
+            case "b" -> ChessGame.TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Bad side to move in FEN: " + fields[1]);
+        });
+        return game;
+    }
+
+    /**
+     * Parses the piece placement field of a FEN string
+     *
+     * @param placement ranks 8 to 1 separated by '/'
+     * @return the described board
+     */
+    public static ChessBoard parsePlacement(String placement) {
+        String[] ranks = placement.split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN placement needs 8 ranks: " + placement);
+        }
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else {
+                    if (col > 8) {
+                        throw new IllegalArgumentException("FEN rank too long: " + ranks[i]);
+                    }
+                    board.addPiece(new ChessPosition(row, col), pieceFor(c));
+                    col++;
+                }
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("FEN rank has wrong length: " + ranks[i]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return the FEN string for the game's board and side to move
+     */
+    public static String format(ChessGame game) {
+        String side = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? "w" : "b";
+        return formatPlacement(game.getBoard()) + " " + side + " - - 0 1";
+    }
+
+    /**
+     * @return the piece placement field for a board
+     */
+    public static String formatPlacement(ChessBoard board) {
+        var sb = new StringBuilder(64);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(letterFor(piece));
+            }
+            if (empty > 0) {
+                sb.append(empty);
+            }
+            if (row > 1) {
+                sb.append('/');
+            }
+        }
+        return sb.toString();
+    }
+
+    static char letterFor(ChessPiece piece) {
+        char letter = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+
+    static ChessPiece pieceFor(char letter) {
+        ChessGame.TeamColor color = Character.isUpperCase(letter) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(letter)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown piece letter: " + letter);
+        };
+        return new ChessPiece(color, type);
+    }
+}
@@ -0,0 +1,169 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The moves of a {@link ChessGame} with a checkpoint of the board every
+ * {@link #CHECKPOINT_INTERVAL} plies, so any ply is reached by restoring the checkpoint at or
+ * before it and replaying at most {@code CHECKPOINT_INTERVAL - 1} moves
+ * <p>
+ * Checkpoints hold one byte per square, {@link PositionBatch#kind} plus one or zero for an
+ * empty square. They can be rebuilt from the moves, so they are not serialized. Moves past the
+ * current ply stay recorded until a different move is made there, which is what lets undone
+ * moves be redone.
+ */
+final class GameHistory {
+    static final int CHECKPOINT_INTERVAL = 16;
+
+    private final byte[] start;
+    private final ChessGame.TeamColor startTurn;
+    private final List<ChessMove> moves = new ArrayList<>();
+    private int ply;
+    private transient List<byte[]> checkpoints;
+
+    GameHistory(ChessBoard board, ChessGame.TeamColor turn) {
+        start = encode(board);
+        startTurn = turn;
+    }
+
+    /**
+     * @return moves made so far, the position after the last of them being the current one
+     */
+    int ply() {
+        return ply;
+    }
+
+    /**
+     * @return recorded moves, including undone ones that can still be redone
+     */
+    int length() {
+        return moves.size();
+    }
+
+    /**
+     * @return a new board holding the position the history starts from
+     */
+    ChessBoard startBoard() {
+        ChessBoard board = new ChessBoard();
+        restore(board, start);
+        return board;
+    }
+
+    /**
+     * @return the {@link PositionBatch#kind} on a square of the start position, or -1 if empty
+     */
+    int startKind(int square) {
+        return start[square] - 1;
+    }
+
+    ChessMove move(int index) {
+        return moves.get(index);
+    }
+
+    List<ChessMove> moves() {
+        return Collections.unmodifiableList(moves);
+    }
+
+    ChessGame.TeamColor turnAt(int target) {
+        if (target % 2 == 0) {
+            return startTurn;
+        }
+        return startTurn == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Records a move made from the current ply, dropping any undone moves after it
+     *
+     * @param after the board once the move has been made
+     */
+    void record(ChessMove move, ChessBoard after) {
+        List<byte[]> saved = checkpoints();
+        if (ply < moves.size()) {
+            moves.subList(ply, moves.size()).clear();
+            saved.subList(ply / CHECKPOINT_INTERVAL + 1, saved.size()).clear();
+        }
+        moves.add(move);
+        ply++;
+        if (ply % CHECKPOINT_INTERVAL == 0) {
+            saved.add(encode(after));
+        }
+    }
+
+    /**
+     * Changes a board from the position at the current ply to the one at {@code target}
+     *
+     * @throws IllegalArgumentException if {@code target} is not between 0 and {@link #length}
+     */
+    void seek(ChessBoard board, int target) {
+        if (target < 0 || target > moves.size()) {
+            throw new IllegalArgumentException("ply " + target + " outside 0.." + moves.size());
+        }
+        int from = target - target % CHECKPOINT_INTERVAL;
+        if (ply < from || ply > target) {
+            restore(board, checkpoints().get(target / CHECKPOINT_INTERVAL));
+        } else {
+            from = ply;
+        }
+        for (int i = from; i < target; i++) {
+            apply(board, moves.get(i));
+        }
+        ply = target;
+    }
+
+    /**
+     * Plays a move on a board without checking that it is legal
+     */
+    static void apply(ChessBoard board, ChessMove move) {
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        board.addPiece(move.getEndPosition(), promotion == null ? piece : new ChessPiece(piece.getTeamColor(), promotion));
+        board.addPiece(move.getStartPosition(), null);
+    }
+
+    /**
+     * @return the checkpoints, replaying the moves to rebuild them after deserialization
+     */
+    private List<byte[]> checkpoints() {
+        if (checkpoints == null) {
+            checkpoints = new ArrayList<>();
+            checkpoints.add(start);
+            ChessBoard board = new ChessBoard();
+            restore(board, start);
+            for (int i = 0; i < moves.size(); i++) {
+                apply(board, moves.get(i));
+                if ((i + 1) % CHECKPOINT_INTERVAL == 0) {
+                    checkpoints.add(encode(board));
+                }
+            }
+        }
+        return checkpoints;
+    }
+
+    private static byte[] encode(ChessBoard board) {
+        byte[] squares = new byte[64];
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                squares[square] = (byte) (PositionBatch.kind(piece.getTeamColor(), piece.getPieceType()) + 1);
+            }
+        }
+        return squares;
+    }
+
+    /**
+     * Sets a board to an encoded position, touching only the squares that differ
+     */
+    private static void restore(ChessBoard board, byte[] squares) {
+        for (int square = 0; square < 64; square++) {
+            ChessPiece current = board.getPiece(square);
+            int kind = squares[square] - 1;
+            int currentKind = current == null ? -1 : PositionBatch.kind(current.getTeamColor(), current.getPieceType());
+            if (kind != currentKind) {
+                board.addPiece(new ChessPosition(square / 8 + 1, square % 8 + 1), kind < 0 ? null
+                        : new ChessPiece(PositionBatch.colorOf(kind), PositionBatch.typeOf(kind)));
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Re-validates many games in parallel by replaying their moves through {@link ChessGame}
+ * <p>
+ * The calling thread feeds move sequences into a bounded queue and a fixed pool of workers
+ * replays them. When the workers fall behind the queue fills and the feeder blocks, so at most
+ * {@code queueCapacity} games are held in memory no matter how long the input is.
+ */
+public class GameReplayPipeline {
+    private static final Job END_OF_INPUT = new Job(-1, List.of());
+
+    private final int threads;
+    private final int queueCapacity;
+
+    /**
+     * The state of the final position of a replayed game, from the side to move's view
+     */
+    public enum GameStatus {
+        IN_PROGRESS,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    /**
+     * The outcome of replaying one game
+     *
+     * @param index      position of the game in the input, starting at 0
+     * @param valid      true if every move was legal
+     * @param illegalPly the 1-based ply of the first illegal move, or 0 if the game is valid
+     * @param status     the state of the last legal position reached
+     */
+    public record Verdict(long index, boolean valid, int illegalPly, GameStatus status) {
+    }
+
+    /**
+     * Totals for one pipeline run
+     */
+    public record Metrics(long games, long invalidGames, long plies, long elapsedNanos) {
+        public double gamesPerSecond() {
+            return elapsedNanos > 0 ? games * 1e9 / elapsedNanos : 0;
+        }
+
+        public double pliesPerSecond() {
+            return elapsedNanos > 0 ? plies * 1e9 / elapsedNanos : 0;
+        }
+    }
+
+    private record Job(long index, List<ChessMove> moves) {
+    }
+
+    /**
+     * Creates a pipeline with one worker per available core
+     */
+    public GameReplayPipeline() {
+        this(Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+    /**
+     * @param threads       number of worker threads
+     * @param queueCapacity games buffered between the feeder and the workers
+     */
+    public GameReplayPipeline(int threads, int queueCapacity) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("threads and queueCapacity must be positive");
+        }
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Replays every game from the standard starting position
+     *
+     * @param games move sequences to replay; consumed on the calling thread
+     * @param sink  receives one verdict per game, called concurrently from worker threads
+     * @return totals for the run
+     */
+    public Metrics run(Iterator<? extends List<ChessMove>> games, Consumer<Verdict> sink)
+            throws InterruptedException {
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong invalid = new AtomicLong();
+        AtomicLong plies = new AtomicLong();
+        long start = System.nanoTime();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            running.add(workers.submit(() -> {
+                while (true) {
+                    Job job = queue.take();
+                    if (job == END_OF_INPUT) {
+                        return null;
+                    }
+                    Verdict verdict = replay(job);
+                    plies.addAndGet(verdict.valid() ? job.moves().size() : verdict.illegalPly() - 1);
+                    if (!verdict.valid()) {
+                        invalid.incrementAndGet();
+                    }
+                    sink.accept(verdict);
+                }
+            }));
+        }
+
+        long count = 0;
+        try {
+            while (games.hasNext()) {
+                enqueue(queue, new Job(count++, games.next()), running);
+            }
+            for (int i = 0; i < threads; i++) {
+                enqueue(queue, END_OF_INPUT, running);
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("replay worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return new Metrics(count, invalid.get(), plies.get(), System.nanoTime() - start);
+    }
+
+    private static void enqueue(BlockingQueue<Job> queue, Job job, List<Future<?>> running)
+            throws InterruptedException, ExecutionException {
+        // a worker that died would never drain the queue, so surface its failure instead of blocking
+        while (!queue.offer(job, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<?> worker : running) {
+                if (worker.isDone()) {
+                    worker.get();
+                }
+            }
+        }
+    }
+
+    private static Verdict replay(Job job) {
+        ChessGame game = new ChessGame();
+        int ply = 0;
+        for (ChessMove move : job.moves()) {
+            ply++;
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException e) {
+                return new Verdict(job.index(), false, ply, statusOf(game));
+            }
+        }
+        return new Verdict(job.index(), true, 0, statusOf(game));
+    }
+
+    private static GameStatus statusOf(ChessGame game) {
+        ChessGame.TeamColor toMove = game.getTeamTurn();
+        if (game.isInCheckmate(toMove)) {
+            return GameStatus.CHECKMATE;
+        }
+        if (game.isInStalemate(toMove)) {
+            return GameStatus.STALEMATE;
+        }
+        return game.isInCheck(toMove) ? GameStatus.CHECK : GameStatus.IN_PROGRESS;
+    }
+}
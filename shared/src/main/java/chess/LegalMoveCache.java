@@ -0,0 +1,166 @@
+package chess;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Bounded cache of legal-move lists shared by every game, keyed by {@link Zobrist#hash}
+ * <p>
+ * Games on a server keep passing through the same opening positions, so the moves of a
+ * position are generated once and then looked up. Slots are picked by the low bits of the key
+ * and a new position simply replaces whatever held its slot, which keeps the cache at its
+ * size without any bookkeeping. Entries are immutable and published through an atomic array,
+ * so readers never lock; two threads missing on the same position may both generate it.
+ * <p>
+ * Each entry keeps its position's 64 squares as well as its key and is only used when both
+ * match, so two positions whose keys collide never share moves.
+ * <p>
+ * An entry takes about 3 KB, mostly its move lists, so the shared cache's default of 4,096
+ * entries holds roughly 12 MB.
+ */
+public final class LegalMoveCache {
+    private static final LegalMoveCache SHARED =
+            new LegalMoveCache(Integer.getInteger("chess.moveCache.entries", 1 << 12));
+    private static final int TYPES = ChessPiece.PieceType.values().length;
+
+    /**
+     * @param squares each square's piece as {@link #code}, in square order
+     */
+    private record Entry(long key, ChessGame.TeamColor color, byte[] squares,
+                         Map<ChessPosition, List<ChessMove>> moves) {
+        boolean holds(long key, ChessBoard board, ChessGame.TeamColor color) {
+            if (this.key != key || this.color != color) {
+                return false;
+            }
+            for (int square = 0; square < 64; square++) {
+                if (squares[square] != code(board.getPiece(square))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final ToLongBiFunction<ChessBoard, ChessGame.TeamColor> hash;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * @param entries positions the cache can hold, rounded up to a power of two
+     */
+    public LegalMoveCache(int entries) {
+        this(entries, Zobrist::hash);
+    }
+
+    /**
+     * @param hash picks the key positions are found by, so tests can force collisions
+     */
+    LegalMoveCache(int entries, ToLongBiFunction<ChessBoard, ChessGame.TeamColor> hash) {
+        int size = Integer.highestOneBit(Math.max(entries, 2) - 1) << 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        this.hash = hash;
+    }
+
+    /**
+     * @return the cache {@link ChessGame#validMoves} consults, sized by the
+     * {@code chess.moveCache.entries} system property
+     */
+    public static LegalMoveCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return every legal move of a side, keyed by origin square; squares whose piece has no
+     * legal moves are left out. The map and its lists are unmodifiable.
+     */
+    public Map<ChessPosition, List<ChessMove>> moves(ChessBoard board, ChessGame.TeamColor color) {
+        lookups.increment();
+        long key = hash.applyAsLong(board, color);
+        int slot = (int) key & mask;
+        Entry entry = entries.get(slot);
+        if (entry != null && entry.holds(key, board, color)) {
+            hits.increment();
+            return entry.moves;
+        }
+        byte[] squares = new byte[64];
+        for (int square = 0; square < 64; square++) {
+            squares[square] = code(board.getPiece(square));
+        }
+        Map<ChessPosition, Collection<ChessMove>> generated = LegalMoveGenerator.generate(board, color);
+        Map<ChessPosition, List<ChessMove>> moves = new HashMap<>(generated.size() * 2);
+        generated.forEach((square, list) -> moves.put(square, List.copyOf(list)));
+        entry = new Entry(key, color, squares, Map.copyOf(moves));
+        entries.set(slot, entry);
+        return entry.moves;
+    }
+
+    /**
+     * Looks a position up without generating it on a miss, for callers that may be reading a
+     * board another thread is changing and so must not store what they see. A hit counts as a
+     * lookup; a miss is left for the {@link #moves} call that is expected to follow.
+     *
+     * @return the cached moves as {@link #moves} would return them, or null if not cached
+     */
+    Map<ChessPosition, List<ChessMove>> peek(ChessBoard board, ChessGame.TeamColor color) {
+        long key = hash.applyAsLong(board, color);
+        Entry entry = entries.get((int) key & mask);
+        if (entry == null || !entry.holds(key, board, color)) {
+            return null;
+        }
+        lookups.increment();
+        hits.increment();
+        return entry.moves;
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the fraction of lookups answered from the cache since the last reset
+     */
+    public double hitRate() {
+        long total = lookups.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * Zeroes the lookup and hit counts, keeping the cached positions
+     */
+    public void resetStats() {
+        lookups.reset();
+        hits.reset();
+    }
+
+    /**
+     * Drops every cached position
+     */
+    public void clear() {
+        for (int slot = 0; slot < entries.length(); slot++) {
+            entries.set(slot, null);
+        }
+    }
+
+    public int capacity() {
+        return entries.length();
+    }
+
+    /**
+     * @return 0 for an empty square, otherwise one more than the piece's {@link PositionBatch#kind}
+     */
+    private static byte code(ChessPiece piece) {
+        return piece == null ? 0 : (byte) (1 + piece.getTeamColor().ordinal() * TYPES + piece.getPieceType().ordinal());
+    }
+}
@@ -0,0 +1,186 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates every legal move for one side without simulating each candidate
+ * <p>
+ * Checkers, the squares that resolve a single check and pinned pieces are worked out once
+ * from the king's square. After that each pseudo-legal move is accepted or rejected with a
+ * mask test: king moves against the opponent's attack map, other moves against the check and
+ * pin masks.
+ */
+final class LegalMoveGenerator {
+    private static final int[][] RAYS = {{-1, -1}, {0, -1}, {1, -1}, {-1, 0}, {1, 0}, {-1, 1}, {0, 1}, {1, 1}};
+    private static final int[][] KNIGHT_STEPS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final long ALL_SQUARES = -1L;
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor color;
+    private final ChessGame.TeamColor enemy;
+
+    private ChessPosition king;
+    private int checkers;
+    private long checkMask = ALL_SQUARES;
+    private long kingForbidden;
+    private final long[] pinMasks = new long[64];
+
+    private LegalMoveGenerator(ChessBoard board, ChessGame.TeamColor color) {
+        this.board = board;
+        this.color = color;
+        this.enemy = color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * @return the legal moves of every piece of a team, keyed by origin square; pieces without
+     * legal moves are left out
+     */
+    static Map<ChessPosition, Collection<ChessMove>> generate(ChessBoard board, ChessGame.TeamColor color) {
+        var generator = new LegalMoveGenerator(board, color);
+        generator.analyzeKing();
+        Map<ChessPosition, Collection<ChessMove>> moves = new LinkedHashMap<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece == null || piece.getTeamColor() != color) {
+                    continue;
+                }
+                Collection<ChessMove> legal = generator.legalMoves(position, piece);
+                if (!legal.isEmpty()) {
+                    moves.put(position, legal);
+                }
+            }
+        }
+        return moves;
+    }
+
+    private Collection<ChessMove> legalMoves(ChessPosition position, ChessPiece piece) {
+        Collection<ChessMove> legal = new ArrayList<>();
+        boolean isKing = position.equals(king);
+        if (!isKing && checkers > 1) {
+            return legal;
+        }
+        long allowed;
+        if (isKing) {
+            allowed = ~(board.getAttackMask(enemy) | kingForbidden);
+        } else {
+            long pin = pinMasks[AttackMap.squareIndex(position)];
+            allowed = checkMask & (pin == 0 ? ALL_SQUARES : pin);
+        }
+        for (ChessMove move : piece.pieceMoves(board, position)) {
+            if ((allowed & bit(move.getEndPosition())) != 0) {
+                legal.add(move);
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Finds the king, the pieces giving check and the pieces pinned against the king
+     */
+    private void analyzeKing() {
+        king = findKing();
+        if (king == null) {
+            return;
+        }
+        long resolving = 0;
+        for (int[] ray : RAYS) {
+            ChessPosition own = null;
+            long path = 0;
+            int r = king.getRow() + ray[0];
+            int c = king.getColumn() + ray[1];
+            while (onBoard(r, c)) {
+                ChessPosition square = new ChessPosition(r, c);
+                path |= bit(square);
+                ChessPiece piece = board.getPiece(square);
+                if (piece != null) {
+                    if (piece.getTeamColor() == color) {
+                        if (own != null) {
+                            break;
+                        }
+                        own = square;
+                    } else {
+                        if (slidesAlong(piece, ray)) {
+                            if (own == null) {
+                                checkers++;
+                                resolving |= path;
+                                // stepping back along the checking line stays in check
+                                int behindRow = king.getRow() - ray[0];
+                                int behindCol = king.getColumn() - ray[1];
+                                if (onBoard(behindRow, behindCol)) {
+                                    kingForbidden |= bit(new ChessPosition(behindRow, behindCol));
+                                }
+                            } else {
+                                pinMasks[AttackMap.squareIndex(own)] = path;
+                            }
+                        }
+                        break;
+                    }
+                }
+                r += ray[0];
+                c += ray[1];
+            }
+        }
+
+        for (int[] step : KNIGHT_STEPS) {
+            if (isEnemy(king.getRow() + step[0], king.getColumn() + step[1], ChessPiece.PieceType.KNIGHT)) {
+                checkers++;
+                resolving |= bit(new ChessPosition(king.getRow() + step[0], king.getColumn() + step[1]));
+            }
+        }
+        int pawnRow = king.getRow() + (color == ChessGame.TeamColor.WHITE ? 1 : -1);
+        for (int side : new int[]{-1, 1}) {
+            if (isEnemy(pawnRow, king.getColumn() + side, ChessPiece.PieceType.PAWN)) {
+                checkers++;
+                resolving |= bit(new ChessPosition(pawnRow, king.getColumn() + side));
+            }
+        }
+
+        if (checkers > 0) {
+            checkMask = resolving;
+        }
+    }
+
+    private boolean isEnemy(int row, int col, ChessPiece.PieceType type) {
+        if (!onBoard(row, col)) {
+            return false;
+        }
+        ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+        return piece != null && piece.getTeamColor() == enemy && piece.getPieceType() == type;
+    }
+
+    private ChessPosition findKing() {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == color && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                    return position;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean slidesAlong(ChessPiece piece, int[] ray) {
+        boolean diagonal = ray[0] != 0 && ray[1] != 0;
+        return switch (piece.getPieceType()) {
+            case QUEEN -> true;
+            case BISHOP -> diagonal;
+            case ROOK -> !diagonal;
+            default -> false;
+        };
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    private static long bit(ChessPosition position) {
+        return 1L << AttackMap.squareIndex(position);
+    }
+}
@@ -0,0 +1,461 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Proves or disproves a forced mate with depth-first proof-number search (df-pn)
+ * <p>
+ * Proof numbers count how many positions still have to be solved to prove the mate, disproof
+ * numbers how many to refute it, and the search always expands the position that is cheapest
+ * to settle. Narrow lines of checks and forced replies are therefore followed deep before wide
+ * quiet alternatives are looked at, unlike a full-width search. Proof and disproof numbers
+ * live in a fixed-size table that overwrites unsolved positions first, so memory stays
+ * bounded however long the search runs. Mates are searched for at increasing lengths, so the
+ * first mate found is also the shortest.
+ */
+public class MateSolver {
+    private static final int INFINITY = 1 << 28;
+
+    private final long[] keys;
+    private final int[] proofs;
+    private final int[] disproofs;
+    private final byte[] entryPlies;
+    private final int mask;
+
+    private ChessBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stopped;
+
+    public enum Outcome {
+        MATE,
+        NO_MATE,
+        UNKNOWN
+    }
+
+    /**
+     * @param maxMoves  longest mate to look for, in moves of the mating side
+     * @param maxNodes  positions to expand before giving up, or 0 for no limit
+     * @param maxMillis time to spend before giving up, or 0 for no limit
+     */
+    public record Limits(int maxMoves, long maxNodes, long maxMillis) {
+    }
+
+    /**
+     * @param line the mating moves of both sides, ending in checkmate; empty unless the outcome is MATE
+     */
+    public record Result(Outcome outcome, List<ChessMove> line, long nodes, long nanos) {
+        /**
+         * @return the number of moves the mating side needs, or 0 if no mate was found
+         */
+        public int mateIn() {
+            return (line.size() + 1) / 2;
+        }
+    }
+
+    public MateSolver() {
+        this(1 << 18);
+    }
+
+    /**
+     * @param tableEntries positions the proof table can hold, rounded up to a power of two;
+     *                     each takes 17 bytes
+     */
+    public MateSolver(int tableEntries) {
+        int size = Integer.highestOneBit(Math.max(tableEntries, 2) - 1) << 1;
+        keys = new long[size];
+        proofs = new int[size];
+        disproofs = new int[size];
+        entryPlies = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Asks a running solve to give up as soon as possible
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Looks for a forced mate by the side to move
+     */
+    public Result solve(ChessGame game, Limits limits) {
+        long start = System.nanoTime();
+        board = new ChessBoard(game.getBoard());
+        nodes = 0;
+        nodeLimit = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+        deadline = limits.maxMillis() > 0 ? start + limits.maxMillis() * 1_000_000L : Long.MAX_VALUE;
+        stopped = false;
+
+        ChessGame.TeamColor attacker = game.getTeamTurn();
+        long key = Zobrist.hash(board, attacker);
+        for (int plies = 1; plies <= 2 * limits.maxMoves() - 1; plies += 2) {
+            long numbers = search(key, attacker, true, plies, INFINITY, INFINITY);
+            if (stopped) {
+                break;
+            }
+            if (proofOf(numbers) == 0) {
+                nodeLimit = Long.MAX_VALUE;
+                deadline = Long.MAX_VALUE;
+                return new Result(Outcome.MATE, mateLine(key, attacker, plies), nodes, System.nanoTime() - start);
+            }
+        }
+        Outcome outcome = stopped ? Outcome.UNKNOWN : Outcome.NO_MATE;
+        return new Result(outcome, List.of(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Expands a position until its proof or disproof number reaches its threshold
+     * <p>
+     * The children's numbers are kept in this frame as well as in the table, so a child whose
+     * entry is overwritten while a sibling is searched does not have to be searched again from
+     * scratch, and the search always makes progress however small the table is.
+     *
+     * @param attacking whether the mating side is to move
+     * @param plies     moves left for both sides before the mate must be delivered
+     * @return the position's proof and disproof numbers, packed by {@link #pack}
+     */
+    private long search(long key, ChessGame.TeamColor side, boolean attacking, int plies, int proofLimit, int disproofLimit) {
+        nodes++;
+        if (nodes >= nodeLimit || ((nodes & 1023) == 0 && System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return pack(1, 1);
+        }
+
+        List<ChessMove> moves = legalMoves(side);
+        if (moves.isEmpty()) {
+            boolean mated = !attacking && isInCheck(side);
+            return store(key, plies, mated ? 0 : INFINITY, mated ? INFINITY : 0);
+        }
+        if (plies == 0) {
+            return store(key, plies, INFINITY, 0);
+        }
+
+        long[] childKeys = new long[moves.size()];
+        int[] childProofs = new int[moves.size()];
+        int[] childDisproofs = new int[moves.size()];
+        int[] initialProofs = attacking ? initialProofs(moves, side, plies) : null;
+        for (int i = 0; i < childKeys.length; i++) {
+            childKeys[i] = Zobrist.afterMove(key, board, moves.get(i));
+            int initialProof = initialProofs == null ? 1 : initialProofs[i];
+            childProofs[i] = proof(childKeys[i], plies - 1, initialProof);
+            childDisproofs[i] = initialProof == INFINITY ? 0 : disproof(childKeys[i], plies - 1);
+        }
+        while (true) {
+            // "selected" numbers are proof numbers when attacking and disproof numbers when
+            // defending: the side to move picks the child that is cheapest for it to settle
+            int selected = INFINITY;
+            int runnerUp = INFINITY;
+            int summed = 0;
+            int best = 0;
+            int bestOther = 0;
+            for (int i = 0; i < childKeys.length; i++) {
+                int mine = attacking ? childProofs[i] : childDisproofs[i];
+                int other = attacking ? childDisproofs[i] : childProofs[i];
+                summed = Math.min(INFINITY, summed + other);
+                if (mine < selected) {
+                    runnerUp = selected;
+                    selected = mine;
+                    best = i;
+                    bestOther = other;
+                } else if (mine < runnerUp) {
+                    runnerUp = mine;
+                }
+            }
+            int proof = attacking ? selected : summed;
+            int disproof = attacking ? summed : selected;
+            long numbers = store(key, plies, proof, disproof);
+            if (stopped || proof >= proofLimit || disproof >= disproofLimit) {
+                return numbers;
+            }
+
+            int mineLimit = Math.min(attacking ? proofLimit : disproofLimit, runnerUp == INFINITY ? INFINITY : runnerUp + 1);
+            int otherLimit = attacking ? disproofLimit : proofLimit;
+            int otherTotal = attacking ? disproof : proof;
+            int childOtherLimit = otherLimit >= INFINITY ? INFINITY : otherLimit - otherTotal + bestOther;
+
+            ChessMove move = moves.get(best);
+            ChessPiece moved = board.getPiece(move.getStartPosition());
+            ChessPiece captured = make(move, moved);
+            long child = search(childKeys[best], opponent(side), !attacking, plies - 1,
+                    attacking ? mineLimit : childOtherLimit, attacking ? childOtherLimit : mineLimit);
+            unmake(move, moved, captured);
+            if (!stopped) {
+                childProofs[best] = proofOf(child);
+                childDisproofs[best] = disproofOf(child);
+            }
+        }
+    }
+
+    /**
+     * Guesses how hard each of the mating side's moves is to prove before it is searched:
+     * checks restrict the defender the most and are tried first, and with one ply left only a
+     * check can mate at all
+     */
+    private int[] initialProofs(List<ChessMove> moves, ChessGame.TeamColor side, int plies) {
+        int[] initial = new int[moves.size()];
+        ChessPosition king = findKing(opponent(side));
+        for (int i = 0; i < initial.length; i++) {
+            boolean check = king != null && givesCheck(moves.get(i), king, side);
+            initial[i] = check ? 1 : plies == 1 ? INFINITY : 2;
+        }
+        return initial;
+    }
+
+    /**
+     * Works out whether a move checks the king without making it: either the moved piece
+     * attacks the king from its new square, or it uncovers a slider behind it
+     */
+    private boolean givesCheck(ChessMove move, ChessPosition king, ChessGame.TeamColor side) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece.PieceType type = move.getPromotionPiece() != null
+                ? move.getPromotionPiece() : board.getPiece(start).getPieceType();
+        int rowDelta = king.getRow() - end.getRow();
+        int colDelta = king.getColumn() - end.getColumn();
+        boolean straight = rowDelta == 0 || colDelta == 0;
+        boolean diagonal = Math.abs(rowDelta) == Math.abs(colDelta);
+        boolean direct = switch (type) {
+            case PAWN -> rowDelta == (side == ChessGame.TeamColor.WHITE ? 1 : -1) && Math.abs(colDelta) == 1;
+            case KNIGHT -> Math.abs(rowDelta * colDelta) == 2;
+            case KING -> false;
+            case ROOK -> straight && clearBetween(end, king, start);
+            case BISHOP -> diagonal && clearBetween(end, king, start);
+            case QUEEN -> (straight || diagonal) && clearBetween(end, king, start);
+        };
+        return direct || uncoversCheck(start, end, king, side);
+    }
+
+    /**
+     * @return whether the squares strictly between two aligned squares are empty, counting
+     * {@code vacated} as empty
+     */
+    private boolean clearBetween(ChessPosition from, ChessPosition to, ChessPosition vacated) {
+        int rowStep = Integer.signum(to.getRow() - from.getRow());
+        int colStep = Integer.signum(to.getColumn() - from.getColumn());
+        int row = from.getRow() + rowStep;
+        int col = from.getColumn() + colStep;
+        while (row != to.getRow() || col != to.getColumn()) {
+            ChessPosition square = new ChessPosition(row, col);
+            if (board.getPiece(square) != null && !square.equals(vacated)) {
+                return false;
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return true;
+    }
+
+    private boolean uncoversCheck(ChessPosition start, ChessPosition end, ChessPosition king, ChessGame.TeamColor side) {
+        int rowDelta = start.getRow() - king.getRow();
+        int colDelta = start.getColumn() - king.getColumn();
+        if (rowDelta != 0 && colDelta != 0 && Math.abs(rowDelta) != Math.abs(colDelta)) {
+            return false;
+        }
+        int rowStep = Integer.signum(rowDelta);
+        int colStep = Integer.signum(colDelta);
+        boolean diagonal = rowStep != 0 && colStep != 0;
+        int row = king.getRow() + rowStep;
+        int col = king.getColumn() + colStep;
+        while (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+            ChessPosition square = new ChessPosition(row, col);
+            if (square.equals(end)) {
+                return false;
+            }
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null && !square.equals(start)) {
+                ChessPiece.PieceType type = piece.getPieceType();
+                return piece.getTeamColor() == side && (type == ChessPiece.PieceType.QUEEN
+                        || type == (diagonal ? ChessPiece.PieceType.BISHOP : ChessPiece.PieceType.ROOK));
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return false;
+    }
+
+    /**
+     * Walks a proven tree from the root, taking a proven move for the mating side and any
+     * reply for the defender, until the defender is mated
+     */
+    private List<ChessMove> mateLine(long key, ChessGame.TeamColor side, int plies) {
+        List<ChessMove> line = new ArrayList<>();
+        boolean attacking = true;
+        while (plies > 0) {
+            List<ChessMove> moves = legalMoves(side);
+            ChessMove next = null;
+            for (int pass = 0; pass < 2 && next == null; pass++) {
+                for (ChessMove move : moves) {
+                    long childKey = Zobrist.afterMove(key, board, move);
+                    int proof = proof(childKey, plies - 1);
+                    if (pass == 1 && proof != 0) {
+                        // an evicted entry looks unsolved; solving it again is cheap from what is left
+                        ChessPiece moved = board.getPiece(move.getStartPosition());
+                        ChessPiece captured = make(move, moved);
+                        proof = proofOf(search(childKey, opponent(side), !attacking, plies - 1, INFINITY, INFINITY));
+                        unmake(move, moved, captured);
+                    }
+                    if (proof == 0) {
+                        next = move;
+                        break;
+                    }
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            line.add(next);
+            key = Zobrist.afterMove(key, board, next);
+            make(next, board.getPiece(next.getStartPosition()));
+            side = opponent(side);
+            attacking = !attacking;
+            plies--;
+        }
+        return List.copyOf(line);
+    }
+
+    private int slot(long key) {
+        int bucket = (int) key & mask & ~1;
+        if (keys[bucket] == key && !isEmpty(bucket)) {
+            return bucket;
+        }
+        if (keys[bucket + 1] == key && !isEmpty(bucket + 1)) {
+            return bucket + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * A mate proven in fewer plies also holds with more to spare, and a refutation with more
+     * plies also holds with fewer, so solved entries answer for other lengths too
+     */
+    private int proof(long key, int plies) {
+        return proof(key, plies, 1);
+    }
+
+    /**
+     * @param unknown the proof number to assume for a position the table knows nothing about
+     */
+    private int proof(long key, int plies, int unknown) {
+        int slot = slot(key);
+        if (slot < 0) {
+            return unknown;
+        }
+        if (proofs[slot] == 0) {
+            return entryPlies[slot] <= plies ? 0 : unknown;
+        }
+        if (disproofs[slot] == 0) {
+            return entryPlies[slot] >= plies ? INFINITY : unknown;
+        }
+        return entryPlies[slot] == plies ? proofs[slot] : unknown;
+    }
+
+    private int disproof(long key, int plies) {
+        int slot = slot(key);
+        if (slot < 0) {
+            return 1;
+        }
+        if (proofs[slot] == 0) {
+            return entryPlies[slot] <= plies ? INFINITY : 1;
+        }
+        if (disproofs[slot] == 0) {
+            return entryPlies[slot] >= plies ? 0 : 1;
+        }
+        return entryPlies[slot] == plies ? disproofs[slot] : 1;
+    }
+
+    /**
+     * Saves a position's numbers, replacing an unsolved position of the bucket before a solved
+     * one, and never replacing a result that already covers this one
+     *
+     * @return the numbers the position now has, packed by {@link #pack}
+     */
+    private long store(long key, int plies, int proof, int disproof) {
+        int slot = slot(key);
+        if (slot >= 0 && proofs[slot] == 0 && entryPlies[slot] <= plies) {
+            return pack(0, INFINITY);
+        }
+        if (slot >= 0 && disproofs[slot] == 0 && entryPlies[slot] >= plies) {
+            return pack(INFINITY, 0);
+        }
+        if (slot < 0) {
+            int bucket = (int) key & mask & ~1;
+            slot = isEmpty(bucket) || !isSolved(bucket) || isSolved(bucket + 1) ? bucket : bucket + 1;
+        }
+        keys[slot] = key;
+        proofs[slot] = proof;
+        disproofs[slot] = disproof;
+        entryPlies[slot] = (byte) plies;
+        return pack(proof, disproof);
+    }
+
+    private static long pack(int proof, int disproof) {
+        return (long) proof << 32 | disproof;
+    }
+
+    private static int proofOf(long numbers) {
+        return (int) (numbers >>> 32);
+    }
+
+    private static int disproofOf(long numbers) {
+        return (int) numbers;
+    }
+
+    private boolean isEmpty(int slot) {
+        return proofs[slot] == 0 && disproofs[slot] == 0;
+    }
+
+    private boolean isSolved(int slot) {
+        return proofs[slot] == 0 || disproofs[slot] == 0;
+    }
+
+    private List<ChessMove> legalMoves(ChessGame.TeamColor side) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (Collection<ChessMove> fromSquare : LegalMoveGenerator.generate(board, side).values()) {
+            moves.addAll(fromSquare);
+        }
+        return moves;
+    }
+
+    private ChessPiece make(ChessMove move, ChessPiece moved) {
+        ChessPiece captured = board.getPiece(move.getEndPosition());
+        ChessPiece placed = move.getPromotionPiece() == null ? moved
+                : new ChessPiece(moved.getTeamColor(), move.getPromotionPiece());
+        board.addPiece(move.getEndPosition(), placed);
+        board.addPiece(move.getStartPosition(), null);
+        return captured;
+    }
+
+    private void unmake(ChessMove move, ChessPiece moved, ChessPiece captured) {
+        board.addPiece(move.getStartPosition(), moved);
+        board.addPiece(move.getEndPosition(), captured);
+    }
+
+    private boolean isInCheck(ChessGame.TeamColor side) {
+        ChessPosition king = findKing(side);
+        return king != null && board.isAttacked(king, opponent(side));
+    }
+
+    private ChessPosition findKing(ChessGame.TeamColor side) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == side && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                    return position;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor side) {
+        return side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
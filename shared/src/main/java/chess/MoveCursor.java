@@ -0,0 +1,158 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Walks one side's moves in stages, generating each stage only when the caller gets to it
+ * <p>
+ * Captures and promotions come first, then quiet moves. Moves are produced one origin square
+ * at a time, so a caller that stops early never generates the rest. Like
+ * {@link ChessPiece#pieceMoves}, this ignores whether the king is left in danger.
+ */
+final class MoveCursor {
+    private static final int[][] DIAGONALS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] STRAIGHTS = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+    private static final int[][] ALL_DIRECTIONS = {{-1, -1}, {0, -1}, {1, -1}, {-1, 0}, {1, 0}, {-1, 1}, {0, 1}, {1, 1}};
+    private static final int[][] KNIGHT_STEPS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+
+    enum Stage {
+        CAPTURES,
+        QUIETS,
+        DONE
+    }
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor color;
+    private final List<ChessMove> pending = new ArrayList<>();
+    private Stage stage = Stage.CAPTURES;
+    private int square = -1;
+    private int index;
+
+    MoveCursor(ChessBoard board, ChessGame.TeamColor color) {
+        this.board = board;
+        this.color = color;
+    }
+
+    /**
+     * @return the stage the last move returned by {@link #next} came from
+     */
+    Stage stage() {
+        return stage;
+    }
+
+    /**
+     * @return the next move, or null once every stage is exhausted
+     */
+    ChessMove next() {
+        while (index >= pending.size()) {
+            if (stage == Stage.DONE) {
+                return null;
+            }
+            pending.clear();
+            index = 0;
+            if (++square == 64) {
+                stage = stage == Stage.CAPTURES ? Stage.QUIETS : Stage.DONE;
+                square = -1;
+                continue;
+            }
+            ChessPosition from = new ChessPosition(square / 8 + 1, square % 8 + 1);
+            ChessPiece piece = board.getPiece(from);
+            if (piece != null && piece.getTeamColor() == color) {
+                generate(from, piece, stage == Stage.CAPTURES);
+            }
+        }
+        return pending.get(index++);
+    }
+
+    private void generate(ChessPosition from, ChessPiece piece, boolean captures) {
+        switch (piece.getPieceType()) {
+            case QUEEN -> steps(from, ALL_DIRECTIONS, true, captures);
+            case BISHOP -> steps(from, DIAGONALS, true, captures);
+            case ROOK -> steps(from, STRAIGHTS, true, captures);
+            case KNIGHT -> steps(from, KNIGHT_STEPS, false, captures);
+            case KING -> steps(from, ALL_DIRECTIONS, false, captures);
+            case PAWN -> pawnMoves(from, captures);
+        }
+    }
+
+    private void steps(ChessPosition from, int[][] directions, boolean slides, boolean captures) {
+        for (int[] direction : directions) {
+            int row = from.getRow() + direction[0];
+            int col = from.getColumn() + direction[1];
+            while (onBoard(row, col)) {
+                ChessPosition to = new ChessPosition(row, col);
+                ChessPiece target = board.getPiece(to);
+                if (target != null) {
+                    if (captures && target.getTeamColor() != color) {
+                        pending.add(new ChessMove(from, to, null));
+                    }
+                    break;
+                }
+                if (!captures) {
+                    pending.add(new ChessMove(from, to, null));
+                }
+                if (!slides) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+    }
+
+    private void pawnMoves(ChessPosition from, boolean captures) {
+        int direction = color == ChessGame.TeamColor.WHITE ? 1 : -1;
+        int startRow = color == ChessGame.TeamColor.WHITE ? 2 : 7;
+        int promotionRow = color == ChessGame.TeamColor.WHITE ? 8 : 1;
+        int row = from.getRow() + direction;
+        if (!onBoard(row, from.getColumn())) {
+            return;
+        }
+        boolean promotes = row == promotionRow;
+
+        ChessPosition front = new ChessPosition(row, from.getColumn());
+        if (board.getPiece(front) == null) {
+            if (captures && promotes) {
+                addPromotions(from, front);
+            } else if (!captures && !promotes) {
+                pending.add(new ChessMove(from, front, null));
+                ChessPosition twoAhead = new ChessPosition(row + direction, from.getColumn());
+                if (from.getRow() == startRow && board.getPiece(twoAhead) == null) {
+                    pending.add(new ChessMove(from, twoAhead, null));
+                }
+            }
+        }
+        if (!captures) {
+            return;
+        }
+        for (int side : new int[]{-1, 1}) {
+            int col = from.getColumn() + side;
+            if (!onBoard(row, col)) {
+                continue;
+            }
+            ChessPosition to = new ChessPosition(row, col);
+            ChessPiece target = board.getPiece(to);
+            if (target != null && target.getTeamColor() != color) {
+                if (promotes) {
+                    addPromotions(from, to);
+                } else {
+                    pending.add(new ChessMove(from, to, null));
+                }
+            }
+        }
+    }
+
+    private void addPromotions(ChessPosition from, ChessPosition to) {
+        for (ChessPiece.PieceType promotion : PROMOTIONS) {
+            pending.add(new ChessMove(from, to, promotion));
+        }
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+}
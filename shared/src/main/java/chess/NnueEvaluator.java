@@ -0,0 +1,114 @@
+package chess;
+
+/**
+ * Evaluates positions with an {@link NnueNetwork}, keeping the first layer's output up to date
+ * as pieces come and go
+ * <p>
+ * The feature transformer is the expensive layer, but one piece changing only adds or
+ * subtracts one weight column, so a move costs a few column updates instead of a full
+ * recomputation. Call {@link #refresh} once for a position, then mirror every
+ * {@link ChessBoard#addPiece} with {@link #setPiece}. Not thread-safe; use one evaluator per
+ * search thread.
+ */
+public final class NnueEvaluator {
+    private final NnueNetwork network;
+    private final short[] white;
+    private final short[] black;
+    private final ChessPiece[] pieces = new ChessPiece[64];
+    private final short[] activations;
+    private final int[] denseOutput;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this.network = network;
+        this.white = new short[network.hidden];
+        this.black = new short[network.hidden];
+        this.activations = new short[2 * network.hidden];
+        this.denseOutput = new int[network.dense];
+    }
+
+    /**
+     * Recomputes both accumulators from scratch for a board
+     */
+    public void refresh(ChessBoard board) {
+        System.arraycopy(network.featureBias, 0, white, 0, white.length);
+        System.arraycopy(network.featureBias, 0, black, 0, black.length);
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(new ChessPosition(square / 8 + 1, square % 8 + 1));
+            pieces[square] = piece;
+            if (piece != null) {
+                update(piece, square, 1);
+            }
+        }
+    }
+
+    /**
+     * Records a change to one square, updating the accumulators incrementally
+     *
+     * @param piece the square's new occupant, or null to empty it
+     */
+    public void setPiece(ChessPosition position, ChessPiece piece) {
+        int square = AttackMap.squareIndex(position);
+        ChessPiece old = pieces[square];
+        if (old == piece) {
+            return;
+        }
+        if (old != null) {
+            update(old, square, -1);
+        }
+        if (piece != null) {
+            update(piece, square, 1);
+        }
+        pieces[square] = piece;
+    }
+
+    /**
+     * @return the score in centipawns from the point of view of the side to move
+     */
+    public int evaluate(ChessGame.TeamColor sideToMove) {
+        short[] us = sideToMove == ChessGame.TeamColor.WHITE ? white : black;
+        short[] them = sideToMove == ChessGame.TeamColor.WHITE ? black : white;
+        int hidden = network.hidden;
+        for (int i = 0; i < hidden; i++) {
+            activations[i] = clip(us[i]);
+            activations[hidden + i] = clip(them[i]);
+        }
+        short[] weights = network.denseWeightsWide;
+        for (int neuron = 0; neuron < network.dense; neuron++) {
+            int offset = neuron * activations.length;
+            int sum = 0;
+            for (int i = 0; i < activations.length; i++) {
+                sum += activations[i] * weights[offset + i];
+            }
+            denseOutput[neuron] = Math.max(0, Math.min(NnueNetwork.ACTIVATION_MAX,
+                    (sum + network.denseBias[neuron]) >> NnueNetwork.DENSE_SHIFT));
+        }
+        int output = network.outputBias;
+        for (int neuron = 0; neuron < network.dense; neuron++) {
+            output += denseOutput[neuron] * network.outputWeights[neuron];
+        }
+        return output >> NnueNetwork.OUTPUT_SHIFT;
+    }
+
+    private void update(ChessPiece piece, int square, int sign) {
+        addColumn(white, NnueNetwork.feature(ChessGame.TeamColor.WHITE, piece, square), sign);
+        addColumn(black, NnueNetwork.feature(ChessGame.TeamColor.BLACK, piece, square), sign);
+    }
+
+    private void addColumn(short[] accumulator, int feature, int sign) {
+        short[] weights = network.featureWeights;
+        int offset = feature * accumulator.length;
+        if (sign > 0) {
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] += weights[offset + i];
+            }
+        } else {
+            for (int i = 0; i < accumulator.length; i++) {
+                accumulator[i] -= weights[offset + i];
+            }
+        }
+    }
+
+    private static short clip(short value) {
+        return (short) Math.max(0, Math.min(NnueNetwork.ACTIVATION_MAX, value));
+    }
+}
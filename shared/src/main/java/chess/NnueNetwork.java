@@ -0,0 +1,155 @@
+package chess;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Quantized weights of an efficiently updatable evaluation network
+ * <p>
+ * Layout: 768 one-hot piece features (piece kind × square) feed an int16 feature transformer
+ * of {@code hidden} neurons, evaluated once from each side's perspective. The side to move's
+ * half and the other half are clipped to [0, 127] and concatenated into a dense int8 layer of
+ * {@code dense} neurons, clipped again, then reduced to one output.
+ * <p>
+ * File format, little-endian: int magic {@code "NNUE"}, int version, int hidden, int dense,
+ * short[hidden] feature biases, short[768 × hidden] feature weights (feature-major),
+ * int[dense] dense biases, byte[dense × 2·hidden] dense weights (neuron-major),
+ * int output bias, byte[dense] output weights.
+ */
+public final class NnueNetwork {
+    static final int FEATURES = PositionBatch.KINDS * 64;
+    static final int ACTIVATION_MAX = 127;
+    static final int DENSE_SHIFT = 6;
+    static final int OUTPUT_SHIFT = 4;
+
+    private static final int MAGIC = 0x45554E4E;
+    private static final int VERSION = 1;
+
+    final int hidden;
+    final int dense;
+    final short[] featureBias;
+    final short[] featureWeights;
+    final int[] denseBias;
+    final byte[] denseWeights;
+    // widened copy, so the dense dot product is a short-by-short multiply-add the JIT vectorises
+    final short[] denseWeightsWide;
+    final int outputBias;
+    final byte[] outputWeights;
+
+    private NnueNetwork(int hidden, int dense, short[] featureBias, short[] featureWeights,
+                        int[] denseBias, byte[] denseWeights, int outputBias, byte[] outputWeights) {
+        this.hidden = hidden;
+        this.dense = dense;
+        this.featureBias = featureBias;
+        this.featureWeights = featureWeights;
+        this.denseBias = denseBias;
+        this.denseWeights = denseWeights;
+        this.denseWeightsWide = new short[denseWeights.length];
+        for (int i = 0; i < denseWeights.length; i++) {
+            denseWeightsWide[i] = denseWeights[i];
+        }
+        this.outputBias = outputBias;
+        this.outputWeights = outputWeights;
+    }
+
+    /**
+     * Reads a network from a weights file
+     *
+     * @throws IOException if the file cannot be read or is not a network of this format
+     */
+    public static NnueNetwork load(Path path) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException(path + " is not a version " + VERSION + " network");
+            }
+            int hidden = in.getInt();
+            int dense = in.getInt();
+            if (hidden <= 0 || dense <= 0 || hidden > 4096 || dense > 4096) {
+                throw new IOException(path + " has bad layer sizes " + hidden + "/" + dense);
+            }
+            short[] featureBias = new short[hidden];
+            in.asShortBuffer().get(featureBias);
+            in.position(in.position() + 2 * hidden);
+            short[] featureWeights = new short[FEATURES * hidden];
+            in.asShortBuffer().get(featureWeights);
+            in.position(in.position() + 2 * featureWeights.length);
+            int[] denseBias = new int[dense];
+            in.asIntBuffer().get(denseBias);
+            in.position(in.position() + 4 * dense);
+            byte[] denseWeights = new byte[dense * 2 * hidden];
+            in.get(denseWeights);
+            int outputBias = in.getInt();
+            byte[] outputWeights = new byte[dense];
+            in.get(outputWeights);
+            if (in.hasRemaining()) {
+                throw new IOException(path + " has " + in.remaining() + " trailing bytes");
+            }
+            return new NnueNetwork(hidden, dense, featureBias, featureWeights,
+                    denseBias, denseWeights, outputBias, outputWeights);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(path + " is truncated", e);
+        }
+    }
+
+    /**
+     * Writes the network in the format {@link #load} reads
+     */
+    public void write(OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 2 * (hidden + featureWeights.length) + 4 * dense
+                + denseWeights.length + 4 + dense).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(hidden).putInt(dense);
+        buffer.asShortBuffer().put(featureBias);
+        buffer.position(buffer.position() + 2 * hidden);
+        buffer.asShortBuffer().put(featureWeights);
+        buffer.position(buffer.position() + 2 * featureWeights.length);
+        buffer.asIntBuffer().put(denseBias);
+        buffer.position(buffer.position() + 4 * dense);
+        buffer.put(denseWeights).putInt(outputBias).put(outputWeights);
+        out.write(buffer.array());
+    }
+
+    /**
+     * @return a network with small random weights, for tests and benchmarks
+     */
+    static NnueNetwork random(long seed, int hidden, int dense) {
+        Random random = new Random(seed);
+        short[] featureBias = new short[hidden];
+        short[] featureWeights = new short[FEATURES * hidden];
+        int[] denseBias = new int[dense];
+        byte[] denseWeights = new byte[dense * 2 * hidden];
+        byte[] outputWeights = new byte[dense];
+        for (int i = 0; i < hidden; i++) {
+            featureBias[i] = (short) random.nextInt(-32, 64);
+        }
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) random.nextInt(-24, 25);
+        }
+        for (int i = 0; i < dense; i++) {
+            denseBias[i] = random.nextInt(-256, 256);
+            outputWeights[i] = (byte) random.nextInt(-64, 65);
+        }
+        random.nextBytes(denseWeights);
+        return new NnueNetwork(hidden, dense, featureBias, featureWeights,
+                denseBias, denseWeights, random.nextInt(-64, 64), outputWeights);
+    }
+
+    /**
+     * @return the feature for a piece seen from one side, which sees its own pieces as white
+     * on a board flipped so that its back rank is rank 1
+     */
+    static int feature(ChessGame.TeamColor perspective, ChessPiece piece, int square) {
+        if (perspective == ChessGame.TeamColor.WHITE) {
+            return PositionBatch.kind(piece.getTeamColor(), piece.getPieceType()) * 64 + square;
+        }
+        ChessGame.TeamColor relative = piece.getTeamColor() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return PositionBatch.kind(relative, piece.getPieceType()) * 64 + (square ^ 56);
+    }
+}
@@ -0,0 +1,110 @@
+package chess;
+
+/**
+ * Fixed-size cache of {@link PawnStructure} results keyed by a pawn-only Zobrist key
+ * <p>
+ * Pawns move rarely compared with other pieces, so most positions in a search share their
+ * pawn structure with many others and its score can be looked up instead of recomputed. Each
+ * entry holds the score and both sides' passed pawns; a new structure simply overwrites
+ * whatever shared its slot. Hits and probes are counted so the table can be sized.
+ * <p>
+ * Lookups take the structure's key and both sides' pawn bitboards rather than a board, since
+ * working those out from a board costs about as much as the evaluation a hit saves. Callers
+ * keep them up to date as moves are made, as {@link Search} does.
+ * <p>
+ * Not thread-safe; give each searching thread its own table.
+ */
+public final class PawnHashTable {
+    private final long[] keys;
+    private final int[] scores;
+    private final long[] whitePassed;
+    private final long[] blackPassed;
+    private final boolean[] used;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    public PawnHashTable() {
+        this(1 << 14);
+    }
+
+    /**
+     * @param entries structures the table can hold, rounded up to a power of two; each takes
+     *                29 bytes
+     */
+    public PawnHashTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(entries, 2) - 1) << 1;
+        keys = new long[size];
+        scores = new int[size];
+        whitePassed = new long[size];
+        blackPassed = new long[size];
+        used = new boolean[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @param key the structure's {@link Zobrist#pawnHash}
+     * @return the pawn-structure score, positive when white's pawns are better
+     */
+    int evaluate(long key, long whitePawns, long blackPawns) {
+        return scores[probe(key, whitePawns, blackPawns)];
+    }
+
+    /**
+     * @param key the structure's {@link Zobrist#pawnHash}
+     * @return a side's passed pawns as a bitboard
+     */
+    long passedPawns(long key, long whitePawns, long blackPawns, ChessGame.TeamColor color) {
+        int slot = probe(key, whitePawns, blackPawns);
+        return color == ChessGame.TeamColor.WHITE ? whitePassed[slot] : blackPassed[slot];
+    }
+
+    /**
+     * Finds a structure's entry, filling it in first if the structure is not cached
+     *
+     * @param key the structure's {@link Zobrist#pawnHash}
+     * @return the entry's slot
+     */
+    private int probe(long key, long whitePawns, long blackPawns) {
+        probes++;
+        int slot = (int) key & mask;
+        if (used[slot] && keys[slot] == key) {
+            hits++;
+            return slot;
+        }
+        keys[slot] = key;
+        used[slot] = true;
+        scores[slot] = PawnStructure.evaluate(whitePawns, blackPawns);
+        whitePassed[slot] = PawnStructure.passedPawns(whitePawns, blackPawns, ChessGame.TeamColor.WHITE);
+        blackPassed[slot] = PawnStructure.passedPawns(blackPawns, whitePawns, ChessGame.TeamColor.BLACK);
+        return slot;
+    }
+
+    public long probes() {
+        return probes;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the fraction of probes answered from the table since the last reset
+     */
+    public double hitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Zeroes the hit and probe counts, keeping the cached entries
+     */
+    public void resetStats() {
+        probes = 0;
+        hits = 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,100 @@
+package chess;
+
+/**
+ * Pawn-structure evaluation: doubled, isolated and passed pawns
+ * <p>
+ * Works on pawn bitboards with bit {@code (row - 1) * 8 + (column - 1)} set for each pawn.
+ * Scores are in centipawns from white's point of view, like {@link Evaluator}. Only pawns are
+ * looked at, so the result can be cached under a pawn-only key by {@link PawnHashTable}.
+ */
+public final class PawnStructure {
+    static final int DOUBLED_PENALTY = 12;
+    static final int ISOLATED_PENALTY = 15;
+    // by rank counted from the pawn's own side, so index 6 is one step from promoting
+    static final int[] PASSED_BONUS = {0, 5, 10, 20, 35, 60, 100, 0};
+
+    private static final long FILE_A = 0x0101010101010101L;
+
+    private PawnStructure() {
+    }
+
+    /**
+     * @return the board's pawns of one color as a bitboard
+     */
+    public static long pawns(ChessBoard board, ChessGame.TeamColor color) {
+        long pawns = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null && piece.getPieceType() == ChessPiece.PieceType.PAWN && piece.getTeamColor() == color) {
+                pawns |= 1L << square;
+            }
+        }
+        return pawns;
+    }
+
+    /**
+     * @return the pawn-structure score, positive when white's pawns are better
+     */
+    public static int evaluate(long whitePawns, long blackPawns) {
+        return sideScore(whitePawns, blackPawns, ChessGame.TeamColor.WHITE)
+                - sideScore(blackPawns, whitePawns, ChessGame.TeamColor.BLACK);
+    }
+
+    /**
+     * @return the pawns of {@code color} with no enemy pawn ahead of them on their own or an
+     * adjacent file
+     */
+    public static long passedPawns(long own, long enemy, ChessGame.TeamColor color) {
+        long passed = 0;
+        for (long rest = own; rest != 0; rest &= rest - 1) {
+            int square = Long.numberOfTrailingZeros(rest);
+            if ((enemy & frontSpan(square, color)) == 0) {
+                passed |= 1L << square;
+            }
+        }
+        return passed;
+    }
+
+    private static int sideScore(long own, long enemy, ChessGame.TeamColor color) {
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            int onFile = Long.bitCount(own & (FILE_A << file));
+            if (onFile == 0) {
+                continue;
+            }
+            score -= DOUBLED_PENALTY * (onFile - 1);
+            if ((own & adjacentFiles(file)) == 0) {
+                score -= ISOLATED_PENALTY * onFile;
+            }
+        }
+        for (long passed = passedPawns(own, enemy, color); passed != 0; passed &= passed - 1) {
+            int rank = Long.numberOfTrailingZeros(passed) >>> 3;
+            score += PASSED_BONUS[color == ChessGame.TeamColor.WHITE ? rank : 7 - rank];
+        }
+        return score;
+    }
+
+    /**
+     * @return the squares ahead of a pawn on its own and adjacent files
+     */
+    private static long frontSpan(int square, ChessGame.TeamColor color) {
+        int file = square & 7;
+        long files = (FILE_A << file) | adjacentFiles(file);
+        int rank = square >>> 3;
+        long ahead = color == ChessGame.TeamColor.WHITE
+                ? (rank == 7 ? 0 : -1L << ((rank + 1) * 8))
+                : (rank == 0 ? 0 : -1L >>> ((8 - rank) * 8));
+        return files & ahead;
+    }
+
+    private static long adjacentFiles(int file) {
+        long files = 0;
+        if (file > 0) {
+            files |= FILE_A << (file - 1);
+        }
+        if (file < 7) {
+            files |= FILE_A << (file + 1);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,30 @@
+package chess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single game read from or written to a PGN archive
+ *
+ * @param tags   the tag pairs in the order they appeared
+ * @param moves  the moves that replayed legally from the starting position
+ * @param result the game termination marker ("1-0", "0-1", "1/2-1/2" or "*")
+ * @param error  why replay stopped early, or null if every move was legal
+ */
+public record PgnGame(Map<String, String> tags, List<ChessMove> moves, String result, String error) {
+
+    /**
+     * @return true if every move in the movetext replayed legally
+     */
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * @return the position the game starts from, honouring a FEN tag if present
+     */
+    public ChessGame startingGame() {
+        String fen = tags.get("FEN");
+        return fen == null ? new ChessGame() : Fen.parse(fen);
+    }
+}
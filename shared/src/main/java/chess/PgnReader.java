@@ -0,0 +1,275 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Streams games out of a PGN archive one at a time
+ * <p>
+ * Input is decoded through a fixed-size chunk buffer and comments, variations and NAGs are
+ * skipped without being buffered, so heap use depends only on the longest single game and
+ * not on the size of the archive. Each game's moves are replayed through {@link ChessGame};
+ * a game whose movetext stops being legal is still returned, with {@link PgnGame#error()} set.
+ */
+public class PgnReader implements Iterator<PgnGame>, Closeable {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_TOKEN_LENGTH = 1024;
+    private static final Set<String> RESULTS = Set.of("1-0", "0-1", "1/2-1/2", "*");
+
+    private final Reader reader;
+    private final char[] chunk = new char[CHUNK_SIZE];
+    private int position;
+    private int limit;
+    private final StringBuilder token = new StringBuilder();
+
+    private PgnGame next;
+    private boolean finished;
+    private long gamesRead;
+    private final long startNanos = System.nanoTime();
+
+    public PgnReader(InputStream in) {
+        this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), CHUNK_SIZE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = readGame();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public PgnGame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PgnGame game = next;
+        next = null;
+        gamesRead++;
+        return game;
+    }
+
+    /**
+     * @return how many games have been handed out so far
+     */
+    public long gamesRead() {
+        return gamesRead;
+    }
+
+    /**
+     * @return games handed out per second since the reader was opened
+     */
+    public double gamesPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? gamesRead / seconds : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private PgnGame readGame() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<ChessMove> moves = new ArrayList<>();
+        ChessGame game = null;
+        String error = null;
+        String result = null;
+        boolean inMovetext = false;
+
+        while (true) {
+            int c = skipWhitespace();
+            if (c == -1) {
+                break;
+            }
+            if (c == '[') {
+                if (inMovetext) {
+                    // next game started without a termination marker
+                    break;
+                }
+                readTag(tags);
+                continue;
+            }
+            switch (c) {
+                case '{' -> skipPast('}');
+                case ';', '%' -> skipPast('\n');
+                case '(' -> skipVariation();
+                case '$' -> {
+                    read();
+                    readSymbol();
+                }
+                default -> {
+                    String symbol = readSymbol();
+                    if (symbol.isEmpty()) {
+                        read();
+                        continue;
+                    }
+                    if (RESULTS.contains(symbol)) {
+                        result = symbol;
+                        break;
+                    }
+                    String san = stripMoveNumber(symbol);
+                    if (san.isEmpty()) {
+                        continue;
+                    }
+                    inMovetext = true;
+                    if (game == null && error == null) {
+                        try {
+                            String fen = tags.get("FEN");
+                            game = fen == null ? new ChessGame() : Fen.parse(fen);
+                        } catch (IllegalArgumentException e) {
+                            error = "bad FEN tag: " + e.getMessage();
+                        }
+                    }
+                    if (error == null) {
+                        try {
+                            ChessMove move = SanNotation.parse(game, san);
+                            game.makeMove(move);
+                            moves.add(move);
+                        } catch (InvalidMoveException e) {
+                            error = "ply " + (moves.size() + 1) + ": " + e.getMessage();
+                        }
+                    }
+                }
+            }
+            if (result != null) {
+                break;
+            }
+        }
+
+        if (tags.isEmpty() && !inMovetext && result == null) {
+            return null;
+        }
+        return new PgnGame(tags, moves, result == null ? "*" : result, error);
+    }
+
+    private void readTag(Map<String, String> tags) throws IOException {
+        read(); // '['
+        skipWhitespace();
+        String name = readSymbol();
+        int c = skipWhitespace();
+        token.setLength(0);
+        if (c == '"') {
+            read();
+            while ((c = read()) != -1 && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (c != -1 && token.length() < MAX_TOKEN_LENGTH) {
+                    token.append((char) c);
+                }
+            }
+        }
+        String value = token.toString();
+        skipPast(']');
+        if (!name.isEmpty()) {
+            tags.put(name, value);
+        }
+    }
+
+    private String readSymbol() throws IOException {
+        token.setLength(0);
+        int c;
+        while ((c = peek()) != -1 && !Character.isWhitespace(c) && "[]{}();$\"".indexOf(c) < 0) {
+            read();
+            if (token.length() < MAX_TOKEN_LENGTH) {
+                token.append((char) c);
+            }
+        }
+        return token.toString();
+    }
+
+    private static String stripMoveNumber(String symbol) {
+        int i = 0;
+        while (i < symbol.length() && Character.isDigit(symbol.charAt(i))) {
+            i++;
+        }
+        if (i == symbol.length()) {
+            return "";
+        }
+        if (symbol.charAt(i) != '.' && i > 0) {
+            return symbol;
+        }
+        while (i < symbol.length() && symbol.charAt(i) == '.') {
+            i++;
+        }
+        return symbol.substring(i);
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return;
+            } else if (c == '{') {
+                skipPast('}');
+            }
+        }
+    }
+
+    private void skipPast(char terminator) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != terminator) {
+            // discard
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+            read();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return chunk[position];
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return chunk[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(chunk, 0, chunk.length);
+        position = 0;
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+}
@@ -0,0 +1,138 @@
+package chess;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games to a PGN archive in export format, one game at a time
+ * <p>
+ * The seven tag roster is always written (missing tags as "?"), followed by any other tags
+ * and the movetext in SAN wrapped to 80 columns.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    private static final List<String> SEVEN_TAG_ROSTER =
+            List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+    private static final int LINE_WIDTH = 80;
+
+    private final Writer out;
+    private long gamesWritten;
+    private final long startNanos = System.nanoTime();
+
+    public PgnWriter(OutputStream out) {
+        this(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    public PgnWriter(WritableByteChannel channel) {
+        this(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8)));
+    }
+
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes one game
+     *
+     * @param game the tags, moves and result to write; moves must be legal from
+     *             {@link PgnGame#startingGame()}
+     * @throws IllegalArgumentException if a move does not replay legally
+     */
+    public void write(PgnGame game) throws IOException {
+        Map<String, String> tags = game.tags();
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? game.result() : tags.getOrDefault(name, "?");
+            writeTag(name, value);
+        }
+        if (tags.containsKey("FEN") && !tags.containsKey("SetUp")) {
+            writeTag("SetUp", "1");
+        }
+        for (var tag : tags.entrySet()) {
+            if (!SEVEN_TAG_ROSTER.contains(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+
+        ChessGame replay = game.startingGame();
+        var line = new StringBuilder(LINE_WIDTH + 16);
+        int moveNumber = 1;
+        boolean first = true;
+        for (ChessMove move : game.moves()) {
+            boolean white = replay.getTeamTurn() == ChessGame.TeamColor.WHITE;
+            if (white) {
+                appendWord(line, moveNumber + ".");
+            } else if (first) {
+                appendWord(line, moveNumber + "...");
+            }
+            appendWord(line, SanNotation.format(replay, move));
+            try {
+                replay.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new IllegalArgumentException("cannot write illegal move at ply " + moveNumber, e);
+            }
+            if (!white) {
+                moveNumber++;
+            }
+            first = false;
+        }
+        appendWord(line, game.result());
+        out.write(line.toString());
+        out.write("\n\n");
+        gamesWritten++;
+    }
+
+    /**
+     * @return how many games have been written so far
+     */
+    public long gamesWritten() {
+        return gamesWritten;
+    }
+
+    /**
+     * @return games written per second since the writer was opened
+     */
+    public double gamesPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? gamesWritten / seconds : 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+
+    private void appendWord(StringBuilder line, String word) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + word.length() > LINE_WIDTH) {
+            out.write(line.toString());
+            out.write('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) {
+            line.append(' ');
+        }
+        line.append(word);
+    }
+}
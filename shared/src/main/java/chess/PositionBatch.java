@@ -0,0 +1,81 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Many positions stored structure-of-arrays for bulk evaluation
+ * <p>
+ * Each piece kind (color and type) has its own array of bitboards, one long per position,
+ * with bit {@code (row - 1) * 8 + (column - 1)} set where that kind of piece stands. Scanning
+ * one piece kind across every position then reads memory sequentially.
+ */
+public final class PositionBatch {
+    static final int KINDS = 2 * ChessPiece.PieceType.values().length;
+
+    private final long[][] bitboards;
+    private int size;
+
+    /**
+     * @param capacity the most positions the batch will hold
+     */
+    public PositionBatch(int capacity) {
+        bitboards = new long[KINDS][capacity];
+    }
+
+    /**
+     * Appends a board's pieces to the batch
+     *
+     * @return the position's index, which is also its index in the score array
+     */
+    public int add(ChessBoard board) {
+        if (size == capacity()) {
+            throw new IllegalStateException("batch is full");
+        }
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece != null) {
+                    bitboards[kind(piece.getTeamColor(), piece.getPieceType())][size] |= 1L << ((row - 1) * 8 + col - 1);
+                }
+            }
+        }
+        return size++;
+    }
+
+    /**
+     * Empties the batch so it can be refilled without reallocating
+     */
+    public void clear() {
+        for (long[] kind : bitboards) {
+            Arrays.fill(kind, 0, size, 0L);
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return bitboards[0].length;
+    }
+
+    /**
+     * @return the bitboards of one piece kind, indexed by position; entries past {@link #size} are empty
+     */
+    long[] bitboards(int kind) {
+        return bitboards[kind];
+    }
+
+    static int kind(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * ChessPiece.PieceType.values().length + type.ordinal();
+    }
+
+    static ChessGame.TeamColor colorOf(int kind) {
+        return ChessGame.TeamColor.values()[kind / ChessPiece.PieceType.values().length];
+    }
+
+    static ChessPiece.PieceType typeOf(int kind) {
+        return ChessPiece.PieceType.values()[kind % ChessPiece.PieceType.values().length];
+    }
+}
@@ -0,0 +1,231 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts moves to and from Standard Algebraic Notation (e.g. "Nf3", "exd5", "e8=Q+")
+ * <p>
+ * Castling is rejected because {@link ChessGame} does not implement it.
+ */
+public final class SanNotation {
+
+    private SanNotation() {
+    }
+
+    /**
+     * Resolves a SAN move against the side to move in a game
+     *
+     * @param game the game the move is played in
+     * @param san  the move text, with or without check and annotation suffixes
+     * @return the matching legal move
+     * @throws InvalidMoveException if the text is malformed, illegal or ambiguous
+     */
+    public static ChessMove parse(ChessGame game, String san) throws InvalidMoveException {
+        String text = stripSuffixes(san);
+        if (text.startsWith("O-O") || text.startsWith("0-0")) {
+            throw new InvalidMoveException("castling is not supported: " + san);
+        }
+
+        ChessPiece.PieceType promotion = null;
+        int equals = text.indexOf('=');
+        if (equals >= 0) {
+            if (equals != text.length() - 2) {
+                throw new InvalidMoveException("bad promotion: " + san);
+            }
+            promotion = pieceTypeFor(text.charAt(equals + 1));
+            text = text.substring(0, equals);
+        } else if (text.length() > 2 && pieceTypeFor(text.charAt(text.length() - 1)) != null
+                && Character.isDigit(text.charAt(text.length() - 2))) {
+            promotion = pieceTypeFor(text.charAt(text.length() - 1));
+            text = text.substring(0, text.length() - 1);
+        }
+
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (!text.isEmpty() && Character.isUpperCase(text.charAt(0))) {
+            type = pieceTypeFor(text.charAt(0));
+            if (type == null) {
+                throw new InvalidMoveException("unknown piece: " + san);
+            }
+            text = text.substring(1);
+        }
+        text = text.replace("x", "").replace(":", "").replace("-", "");
+        if (text.length() < 2) {
+            throw new InvalidMoveException("missing destination: " + san);
+        }
+        ChessPosition target = parseSquare(text.substring(text.length() - 2));
+        if (target == null) {
+            throw new InvalidMoveException("bad destination: " + san);
+        }
+
+        int fromCol = 0;
+        int fromRow = 0;
+        for (char c : text.substring(0, text.length() - 2).toCharArray()) {
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '0';
+            } else {
+                throw new InvalidMoveException("bad disambiguation: " + san);
+            }
+        }
+
+        ChessBoard board = game.getBoard();
+        ChessMove found = null;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                if ((fromRow != 0 && row != fromRow) || (fromCol != 0 && col != fromCol)) {
+                    continue;
+                }
+                ChessPosition start = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(start);
+                if (piece == null || piece.getPieceType() != type || piece.getTeamColor() != game.getTeamTurn()) {
+                    continue;
+                }
+                ChessMove candidate = new ChessMove(start, target, promotion);
+                if (game.validMoves(start).contains(candidate)) {
+                    if (found != null) {
+                        throw new InvalidMoveException("ambiguous move: " + san);
+                    }
+                    found = candidate;
+                }
+            }
+        }
+        if (found == null) {
+            throw new InvalidMoveException("illegal move: " + san);
+        }
+        return found;
+    }
+
+    /**
+     * Writes a legal move in SAN, including the check or mate suffix
+     *
+     * @param game the game before the move is played
+     * @param move a legal move for the side to move
+     * @return the SAN text
+     */
+    public static String format(ChessGame game, ChessMove move) {
+        ChessBoard board = game.getBoard();
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece piece = board.getPiece(start);
+        boolean capture = board.getPiece(end) != null;
+
+        var sb = new StringBuilder(8);
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            if (capture) {
+                sb.append(fileName(start)).append('x');
+            }
+        } else {
+            sb.append(letterFor(piece.getPieceType()));
+            sb.append(disambiguation(game, piece, move));
+            if (capture) {
+                sb.append('x');
+            }
+        }
+        sb.append(squareName(end));
+        if (move.getPromotionPiece() != null) {
+            sb.append('=').append(letterFor(move.getPromotionPiece()));
+        }
+
+        ChessGame after = new ChessGame();
+        after.setBoard(new ChessBoard(board));
+        after.setTeamTurn(game.getTeamTurn());
+        try {
+            after.makeMove(move);
+        } catch (InvalidMoveException e) {
+            throw new IllegalArgumentException("move is not legal: " + sb, e);
+        }
+        if (after.isInCheckmate(after.getTeamTurn())) {
+            sb.append('#');
+        } else if (after.isInCheck(after.getTeamTurn())) {
+            sb.append('+');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the algebraic name of a square, e.g. "e4"
+     */
+    public static String squareName(ChessPosition position) {
+        return fileName(position) + (char) ('0' + position.getRow());
+    }
+
+    /**
+     * @return the square named by algebraic text such as "e4", or null if it is not a square
+     */
+    public static ChessPosition parseSquare(String name) {
+        if (name.length() != 2) {
+            return null;
+        }
+        int col = name.charAt(0) - 'a' + 1;
+        int row = name.charAt(1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            return null;
+        }
+        return new ChessPosition(row, col);
+    }
+
+    private static String disambiguation(ChessGame game, ChessPiece piece, ChessMove move) {
+        ChessBoard board = game.getBoard();
+        ChessPosition start = move.getStartPosition();
+        List<ChessPosition> rivals = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition other = new ChessPosition(row, col);
+                if (other.equals(start) || !piece.equals(board.getPiece(other))) {
+                    continue;
+                }
+                if (game.validMoves(other).contains(new ChessMove(other, move.getEndPosition(), null))) {
+                    rivals.add(other);
+                }
+            }
+        }
+        if (rivals.isEmpty()) {
+            return "";
+        }
+        boolean fileUnique = rivals.stream().noneMatch(p -> p.getColumn() == start.getColumn());
+        if (fileUnique) {
+            return fileName(start);
+        }
+        boolean rankUnique = rivals.stream().noneMatch(p -> p.getRow() == start.getRow());
+        if (rankUnique) {
+            return String.valueOf(start.getRow());
+        }
+        return squareName(start);
+    }
+
+    private static String fileName(ChessPosition position) {
+        return String.valueOf((char) ('a' + position.getColumn() - 1));
+    }
+
+    private static char letterFor(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static ChessPiece.PieceType pieceTypeFor(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    private static String stripSuffixes(String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return san.substring(0, end);
+    }
+}
@@ -0,0 +1,49 @@
+package chess;
+
+/**
+ * Plain Java batch evaluation: popcounts for material, a walk over set bits for piece-square values
+ */
+final class ScalarBatchEvaluator implements BatchEvaluator {
+    private static final int[] PIECE_VALUES = new int[PositionBatch.KINDS];
+    private static final int[][] SQUARE_VALUES = new int[PositionBatch.KINDS][];
+
+    static {
+        for (int kind = 0; kind < PositionBatch.KINDS; kind++) {
+            PIECE_VALUES[kind] = Evaluator.signedPieceValue(kind);
+            SQUARE_VALUES[kind] = Evaluator.signedSquareValues(kind);
+        }
+    }
+
+    @Override
+    public void evaluate(PositionBatch batch, int[] scores) {
+        evaluate(batch, scores, 0, batch.size());
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    /**
+     * Scores positions {@code from} (inclusive) to {@code to} (exclusive)
+     */
+    static void evaluate(PositionBatch batch, int[] scores, int from, int to) {
+        for (int i = from; i < to; i++) {
+            scores[i] = 0;
+        }
+        for (int kind = 0; kind < PositionBatch.KINDS; kind++) {
+            long[] bitboards = batch.bitboards(kind);
+            int value = PIECE_VALUES[kind];
+            int[] squareValues = SQUARE_VALUES[kind];
+            for (int i = from; i < to; i++) {
+                long pieces = bitboards[i];
+                int score = Long.bitCount(pieces) * value;
+                while (pieces != 0) {
+                    score += squareValues[Long.numberOfTrailingZeros(pieces)];
+                    pieces &= pieces - 1;
+                }
+                scores[i] += score;
+            }
+        }
+    }
+}
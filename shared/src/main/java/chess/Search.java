@@ -0,0 +1,356 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Iterative-deepening alpha-beta search for the best move in a position
+ * <p>
+ * Searches a private copy of the game's board, so the game itself is never touched. Leaf
+ * positions are resolved with a capture-only quiescence search and scored by {@link Evaluator}
+ * plus {@link PawnStructure}; the pawn structure's key and bitboards are kept up to date as
+ * moves are made, so its score usually comes straight from a {@link PawnHashTable}. A search
+ * can be limited by depth, time and node count, and stopped from another thread.
+ */
+public class Search {
+    public static final int MATE_SCORE = 100_000;
+    private static final int MAX_PLY = 64;
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor rootSide;
+    private final PawnHashTable pawnHash;
+    private volatile boolean stopped;
+
+    private long pawnKey;
+    private long whitePawns;
+    private long blackPawns;
+
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private final ChessMove[][] pv = new ChessMove[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    /**
+     * Limits on a search; zero means unlimited
+     */
+    public record Limits(int depth, long moveTimeMillis, long nodes) {
+        public static Limits depth(int depth) {
+            return new Limits(depth, 0, 0);
+        }
+    }
+
+    /**
+     * Progress after each completed iteration
+     *
+     * @param score centipawns from the side to move's point of view, or within
+     *              {@link #MAX_PLY} of ±{@link #MATE_SCORE} for a forced mate
+     */
+    public record Info(int depth, int score, long nodes, long nanos, List<ChessMove> pv) {
+        public long nodesPerSecond() {
+            return nanos > 0 ? nodes * 1_000_000_000L / nanos : 0;
+        }
+    }
+
+    /**
+     * The outcome of a search; bestMove is null when the side to move has no legal move
+     */
+    public record Result(ChessMove bestMove, int score, int depth, long nodes, long nanos) {
+        public long nodesPerSecond() {
+            return nanos > 0 ? nodes * 1_000_000_000L / nanos : 0;
+        }
+    }
+
+    public Search(ChessGame game) {
+        this(game, new PawnHashTable());
+    }
+
+    /**
+     * @param pawnHash pawn-structure cache to use, which may be shared with later searches
+     */
+    public Search(ChessGame game, PawnHashTable pawnHash) {
+        this.board = new ChessBoard(game.getBoard());
+        this.rootSide = game.getTeamTurn();
+        this.pawnHash = pawnHash;
+        this.pawnKey = Zobrist.pawnHash(board);
+        this.whitePawns = PawnStructure.pawns(board, ChessGame.TeamColor.WHITE);
+        this.blackPawns = PawnStructure.pawns(board, ChessGame.TeamColor.BLACK);
+    }
+
+    /**
+     * Asks a running search to finish as soon as possible; it still returns the best move so far
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return whether {@link #stop} was called or a search ran out of budget
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @param limits   when to stop deepening
+     * @param progress receives an update after each completed depth
+     * @return the best move found
+     */
+    public Result search(Limits limits, Consumer<Info> progress) {
+        long start = System.nanoTime();
+        nodes = 0;
+        nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        deadline = limits.moveTimeMillis() > 0 ? start + limits.moveTimeMillis() * 1_000_000L : Long.MAX_VALUE;
+        int maxDepth = limits.depth() > 0 ? Math.min(limits.depth(), MAX_PLY) : MAX_PLY;
+
+        List<ChessMove> rootMoves = orderedMoves(rootSide, false);
+        if (rootMoves.isEmpty()) {
+            int score = isInCheck(rootSide) ? -MATE_SCORE : 0;
+            return new Result(null, score, 0, 0, System.nanoTime() - start);
+        }
+        ChessMove bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= maxDepth && !stopped; depth++) {
+            int score = negamax(depth, 0, -MATE_SCORE - 1, MATE_SCORE + 1, rootSide, bestMove);
+            if (stopped && completedDepth > 0) {
+                break;
+            }
+            if (pvLength[0] > 0) {
+                bestMove = pv[0][0];
+                bestScore = score;
+            }
+            completedDepth = depth;
+            progress.accept(new Info(depth, bestScore, nodes, System.nanoTime() - start,
+                    List.copyOf(Arrays.asList(pv[0]).subList(0, pvLength[0]))));
+            if (Math.abs(bestScore) >= MATE_SCORE - MAX_PLY) {
+                break;
+            }
+        }
+        return new Result(bestMove, bestScore, completedDepth, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the leaf positions of the legal move tree, for validating move generation
+     *
+     * @param depth plies to expand
+     * @return the number of positions at that depth
+     */
+    public long perft(int depth) {
+        return perft(depth, rootSide);
+    }
+
+    /**
+     * @return the perft count below each root move, in generation order; if {@link #stop} is
+     * called, only the root moves counted in full before then
+     */
+    public List<MoveCount> divide(int depth) {
+        List<MoveCount> counts = new ArrayList<>();
+        for (ChessMove move : orderedMoves(rootSide, false)) {
+            ChessPiece moved = board.getPiece(move.getStartPosition());
+            ChessPiece captured = make(move, moved);
+            long count = depth <= 1 ? 1 : perft(depth - 1, opponent(rootSide));
+            unmake(move, moved, captured);
+            if (stopped) {
+                break;
+            }
+            counts.add(new MoveCount(move, count));
+        }
+        return counts;
+    }
+
+    public record MoveCount(ChessMove move, long nodes) {
+    }
+
+    private long perft(int depth, ChessGame.TeamColor side) {
+        if (depth == 0) {
+            return 1;
+        }
+        long count = 0;
+        for (Collection<ChessMove> moves : LegalMoveGenerator.generate(board, side).values()) {
+            if (depth == 1) {
+                count += moves.size();
+                continue;
+            }
+            for (ChessMove move : moves) {
+                if (stopped) {
+                    return count;
+                }
+                ChessPiece moved = board.getPiece(move.getStartPosition());
+                ChessPiece captured = make(move, moved);
+                count += perft(depth - 1, opponent(side));
+                unmake(move, moved, captured);
+            }
+        }
+        return count;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, ChessGame.TeamColor side, ChessMove first) {
+        pvLength[ply] = 0;
+        if (depth == 0 || ply >= MAX_PLY) {
+            return quiescence(ply, alpha, beta, side);
+        }
+        nodes++;
+        if (outOfBudget()) {
+            return 0;
+        }
+
+        List<ChessMove> moves = orderedMoves(side, false);
+        if (moves.isEmpty()) {
+            return isInCheck(side) ? -MATE_SCORE + ply : 0;
+        }
+        if (first != null && moves.remove(first)) {
+            moves.add(0, first);
+        }
+
+        for (ChessMove move : moves) {
+            ChessPiece moved = board.getPiece(move.getStartPosition());
+            ChessPiece captured = make(move, moved);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent(side), null);
+            unmake(move, moved, captured);
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                pv[ply][0] = move;
+                System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+                pvLength[ply] = pvLength[ply + 1] + 1;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    private int quiescence(int ply, int alpha, int beta, ChessGame.TeamColor side) {
+        nodes++;
+        if (outOfBudget()) {
+            return 0;
+        }
+        int standPat = Evaluator.evaluate(board) + pawnHash.evaluate(pawnKey, whitePawns, blackPawns);
+        if (side == ChessGame.TeamColor.BLACK) {
+            standPat = -standPat;
+        }
+        if (standPat >= beta) {
+            return standPat;
+        }
+        alpha = Math.max(alpha, standPat);
+        if (ply >= MAX_PLY) {
+            return alpha;
+        }
+
+        for (ChessMove move : orderedMoves(side, true)) {
+            ChessPiece moved = board.getPiece(move.getStartPosition());
+            ChessPiece captured = make(move, moved);
+            int score = -quiescence(ply + 1, -beta, -alpha, opponent(side));
+            unmake(move, moved, captured);
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+            alpha = Math.max(alpha, score);
+        }
+        return alpha;
+    }
+
+    /**
+     * @return legal moves with captures first, most valuable victim and least valuable attacker first
+     */
+    private List<ChessMove> orderedMoves(ChessGame.TeamColor side, boolean capturesOnly) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (Collection<ChessMove> fromSquare : LegalMoveGenerator.generate(board, side).values()) {
+            for (ChessMove move : fromSquare) {
+                if (!capturesOnly || board.getPiece(move.getEndPosition()) != null) {
+                    moves.add(move);
+                }
+            }
+        }
+        moves.sort((a, b) -> Integer.compare(orderingScore(b), orderingScore(a)));
+        return moves;
+    }
+
+    private int orderingScore(ChessMove move) {
+        ChessPiece victim = board.getPiece(move.getEndPosition());
+        int score = move.getPromotionPiece() != null ? Evaluator.PIECE_VALUES[move.getPromotionPiece().ordinal()] : 0;
+        if (victim != null) {
+            ChessPiece attacker = board.getPiece(move.getStartPosition());
+            score += 10 * Evaluator.PIECE_VALUES[victim.getPieceType().ordinal()]
+                    - Evaluator.PIECE_VALUES[attacker.getPieceType().ordinal()] / 10;
+        }
+        return score;
+    }
+
+    private ChessPiece make(ChessMove move, ChessPiece moved) {
+        ChessPiece captured = board.getPiece(move.getEndPosition());
+        ChessPiece placed = move.getPromotionPiece() == null ? moved
+                : new ChessPiece(moved.getTeamColor(), move.getPromotionPiece());
+        board.addPiece(move.getEndPosition(), placed);
+        board.addPiece(move.getStartPosition(), null);
+        togglePawns(move, moved, placed, captured);
+        return captured;
+    }
+
+    private void unmake(ChessMove move, ChessPiece moved, ChessPiece captured) {
+        ChessPiece placed = board.getPiece(move.getEndPosition());
+        board.addPiece(move.getStartPosition(), moved);
+        board.addPiece(move.getEndPosition(), captured);
+        togglePawns(move, moved, placed, captured);
+    }
+
+    /**
+     * Adds or removes the pawns a move touches from the pawn key and bitboards; applying it a
+     * second time undoes it
+     */
+    private void togglePawns(ChessMove move, ChessPiece moved, ChessPiece placed, ChessPiece captured) {
+        int from = AttackMap.squareIndex(move.getStartPosition());
+        int to = AttackMap.squareIndex(move.getEndPosition());
+        togglePawn(moved, from);
+        togglePawn(placed, to);
+        if (captured != null) {
+            togglePawn(captured, to);
+        }
+    }
+
+    private void togglePawn(ChessPiece piece, int square) {
+        if (piece.getPieceType() != ChessPiece.PieceType.PAWN) {
+            return;
+        }
+        pawnKey ^= Zobrist.piece(piece, square);
+        if (piece.getTeamColor() == ChessGame.TeamColor.WHITE) {
+            whitePawns ^= 1L << square;
+        } else {
+            blackPawns ^= 1L << square;
+        }
+    }
+
+    private boolean outOfBudget() {
+        if (nodes >= nodeLimit || ((nodes & 1023) == 0 && System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private boolean isInCheck(ChessGame.TeamColor side) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == side && piece.getPieceType() == ChessPiece.PieceType.KING) {
+                    return board.isAttacked(position, opponent(side));
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor side) {
+        return side == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,778 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One memory-mapped Syzygy WDL ({@code .rtbw}) or DTZ ({@code .rtbz}) file
+ * <p>
+ * Squares are numbered a1 = 0 to h8 = 63 and pieces use the file format's codes: 1 to 6 for
+ * white pawn, knight, bishop, rook, queen and king, and the same plus 8 for black. A position
+ * is turned into an index by placing the leading pieces (the two kings, three unique pieces or
+ * the leading pawns) with the board's symmetries folded away, then placing each further group
+ * of like pieces as a combination of the squares still free. The value at that index is found
+ * in blocks of canonical Huffman codes whose symbols expand into runs of values.
+ * <p>
+ * Everything is read from the mapped file with absolute gets, and the parsed header is never
+ * changed after construction, so any number of threads may probe one table at once.
+ */
+final class SyzygyTable {
+    static final int MAX_PIECES = 7;
+    /**
+     * Returned by a DTZ probe when the file only stores the other side to move
+     */
+    static final int CHANGE_SIDE = Integer.MIN_VALUE;
+
+    private static final int[] WDL_MAGIC = {0x71, 0xE8, 0x23, 0x5D};
+    private static final int[] DTZ_MAGIC = {0xD7, 0x66, 0x0C, 0xA5};
+    private static final int CHUNK_BITS = 30;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    private static final int FLAG_SIDE = 1;
+    private static final int FLAG_MAPPED = 2;
+    private static final int FLAG_WIN_PLIES = 4;
+    private static final int FLAG_LOSS_PLIES = 8;
+    private static final int FLAG_WIDE = 16;
+    private static final int FLAG_SINGLE_VALUE = 128;
+
+    // index of the map for each WDL value, offset by 2: loss, blessed loss, draw, cursed win, win
+    private static final int[] WDL_MAP = {1, 3, 0, 2, 0};
+
+    private static final long[][] BINOMIAL = new long[MAX_PIECES][64];
+    private static final int[] MAP_PAWNS = new int[64];
+    private static final int[] MAP_B1H1H7 = new int[64];
+    private static final int[] MAP_A1D1D4 = new int[64];
+    private static final int[][] MAP_KK = new int[10][64];
+    private static final int[][] LEAD_PAWN_IDX = new int[6][64];
+    private static final int[][] LEAD_PAWNS_SIZE = new int[6][4];
+
+    static {
+        for (int n = 0; n < 64; n++) {
+            for (int k = 0; k < MAX_PIECES; k++) {
+                BINOMIAL[k][n] = k == 0 ? 1 : n == 0 ? 0 : BINOMIAL[k - 1][n - 1] + BINOMIAL[k][n - 1];
+            }
+        }
+
+        int code = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (offDiagonal(sq) < 0) {
+                MAP_B1H1H7[sq] = code++;
+            }
+        }
+
+        code = 0;
+        for (int sq = 0; sq <= 27; sq++) {
+            if (offDiagonal(sq) < 0 && file(sq) <= 3) {
+                MAP_A1D1D4[sq] = code++;
+            }
+        }
+        for (int sq = 0; sq <= 27; sq++) {
+            if (offDiagonal(sq) == 0 && file(sq) <= 3) {
+                MAP_A1D1D4[sq] = code++;
+            }
+        }
+
+        // both kings on the a1-h8 diagonal are numbered after every other pair
+        List<int[]> bothOnDiagonal = new ArrayList<>();
+        code = 0;
+        for (int idx = 0; idx < 10; idx++) {
+            for (int s1 = 0; s1 <= 27; s1++) {
+                if (file(s1) > 3 || MAP_A1D1D4[s1] != idx || (idx == 0 && s1 != 1)) {
+                    continue;
+                }
+                for (int s2 = 0; s2 < 64; s2++) {
+                    if (Math.abs(rank(s1) - rank(s2)) <= 1 && Math.abs(file(s1) - file(s2)) <= 1) {
+                        continue;
+                    }
+                    if (offDiagonal(s1) == 0 && offDiagonal(s2) > 0) {
+                        continue;
+                    }
+                    if (offDiagonal(s1) == 0 && offDiagonal(s2) == 0) {
+                        bothOnDiagonal.add(new int[]{idx, s2});
+                    } else {
+                        MAP_KK[idx][s2] = code++;
+                    }
+                }
+            }
+        }
+        for (int[] pair : bothOnDiagonal) {
+            MAP_KK[pair[0]][pair[1]] = code++;
+        }
+
+        // a2-h7 numbered so the pawn nearest the edge, and lowest on its file, is highest
+        int available = 47;
+        for (int leadPawns = 1; leadPawns <= 5; leadPawns++) {
+            for (int f = 0; f < 4; f++) {
+                int idx = 0;
+                for (int r = 1; r <= 6; r++) {
+                    int sq = r * 8 + f;
+                    if (leadPawns == 1) {
+                        MAP_PAWNS[sq] = available--;
+                        MAP_PAWNS[sq ^ 7] = available--;
+                    }
+                    LEAD_PAWN_IDX[leadPawns][sq] = idx;
+                    idx += (int) BINOMIAL[leadPawns - 1][MAP_PAWNS[sq]];
+                }
+                LEAD_PAWNS_SIZE[leadPawns][f] = idx;
+            }
+        }
+    }
+
+    /**
+     * Indexing and decompression data for one side to move and, with pawns, one leading file
+     */
+    private static final class PairsData {
+        int flags;
+        long blockSize;
+        long span;
+        int numBlocks;
+        int maxSymLen;
+        int minSymLen;
+        long lowestSym;
+        long btree;
+        long blockLengths;
+        int blockLengthSize;
+        long sparseIndex;
+        long sparseIndexSize;
+        long data;
+        long[] base64;
+        byte[] symLen;
+        final int[] pieces = new int[MAX_PIECES];
+        final long[] groupIdx = new long[MAX_PIECES + 1];
+        final int[] groupLen = new int[MAX_PIECES + 1];
+        final int[] mapIdx = new int[4];
+    }
+
+    final String name;
+    final boolean dtz;
+    final long key;
+    final long key2;
+    final int pieceCount;
+    final boolean hasPawns;
+    private final boolean hasUniquePieces;
+    private final int[] pawnCount = new int[2];
+    private final MappedByteBuffer[] chunks;
+    private final PairsData[][] items;
+    private long map;
+
+    /**
+     * Maps a table file and reads its header
+     *
+     * @param name the material part of the file name, such as {@code KRPvKR}
+     * @throws IOException if the file cannot be mapped or is not a table for that material
+     */
+    SyzygyTable(Path file, String name, boolean dtz) throws IOException {
+        this.name = name;
+        this.dtz = dtz;
+        int[] counts = materialCounts(name);
+        this.key = materialKey(counts, false);
+        this.key2 = materialKey(counts, true);
+        int pieces = 0;
+        boolean unique = false;
+        for (int code = 1; code < 16; code++) {
+            pieces += counts[code];
+            if (counts[code] == 1 && (code & 7) != 6) {
+                unique = true;
+            }
+        }
+        this.pieceCount = pieces;
+        this.hasUniquePieces = unique;
+        int whitePawns = counts[1];
+        int blackPawns = counts[9];
+        this.hasPawns = whitePawns + blackPawns > 0;
+        // the side with fewer pawns leads, as that compresses better
+        boolean whiteLeads = blackPawns == 0 || (whitePawns > 0 && blackPawns >= whitePawns);
+        pawnCount[0] = whiteLeads ? whitePawns : blackPawns;
+        pawnCount[1] = whiteLeads ? blackPawns : whitePawns;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, 1L << CHUNK_BITS));
+                chunks[i].order(ByteOrder.BIG_ENDIAN);
+            }
+            int[] magic = dtz ? DTZ_MAGIC : WDL_MAGIC;
+            if (size < 6) {
+                throw new IOException(file + " is too short to be a tablebase");
+            }
+            for (int i = 0; i < 4; i++) {
+                if (u8(i) != magic[i]) {
+                    throw new IOException(file + " is not a Syzygy " + (dtz ? "DTZ" : "WDL") + " table");
+                }
+            }
+            items = new PairsData[dtz ? 1 : 2][hasPawns ? 4 : 1];
+            try {
+                readHeader(file);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException(file + " is truncated", e);
+            }
+        }
+    }
+
+    /**
+     * @return the counts of each piece code named by a table name, or null if it is not one
+     */
+    static int[] materialCounts(String name) {
+        int split = name.indexOf('v');
+        if (split < 1 || split == name.length() - 1 || name.length() > MAX_PIECES + 1
+                || name.indexOf('v', split + 1) >= 0) {
+            return null;
+        }
+        int[] counts = new int[16];
+        for (int i = 0; i < name.length(); i++) {
+            if (i == split) {
+                continue;
+            }
+            int code = "PNBRQK".indexOf(name.charAt(i)) + 1;
+            if (code == 0) {
+                return null;
+            }
+            counts[code + (i > split ? 8 : 0)]++;
+        }
+        return counts[6] == 1 && counts[14] == 1 ? counts : null;
+    }
+
+    /**
+     * Packs piece counts into four bits per piece code, the form positions are looked up by
+     *
+     * @param swapColors whether to count white's pieces as black's and black's as white's
+     */
+    static long materialKey(int[] counts, boolean swapColors) {
+        long key = 0;
+        for (int code = 1; code < 16; code++) {
+            key += (long) counts[code] << (4 * (swapColors ? code ^ 8 : code));
+        }
+        return key;
+    }
+
+    private void readHeader(Path file) throws IOException {
+        long data = 4;
+        int flags = u8(data);
+        if (((flags & 2) != 0) != hasPawns) {
+            throw new IOException(file + " does not hold " + name);
+        }
+        data++;
+
+        int sides = items.length == 2 && key != key2 ? 2 : 1;
+        int maxFile = hasPawns ? 3 : 0;
+        boolean pawnsOnBothSides = hasPawns && pawnCount[1] > 0;
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                items[i][f] = new PairsData();
+            }
+            int[][] order = {
+                    {u8(data) & 0xF, pawnsOnBothSides ? u8(data + 1) & 0xF : 0xF},
+                    {u8(data) >>> 4, pawnsOnBothSides ? u8(data + 1) >>> 4 : 0xF}
+            };
+            data += pawnsOnBothSides ? 2 : 1;
+            for (int k = 0; k < pieceCount; k++, data++) {
+                for (int i = 0; i < sides; i++) {
+                    items[i][f].pieces[k] = i == 0 ? u8(data) & 0xF : u8(data) >>> 4;
+                }
+            }
+            for (int i = 0; i < sides; i++) {
+                setGroups(items[i][f], order[i], f);
+            }
+        }
+        if (sides == 1 && items.length == 2) {
+            items[1] = items[0];
+        }
+        data += data & 1;
+
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                data = setSizes(items[i][f], data);
+            }
+        }
+        if (dtz) {
+            data = setDtzMap(data, maxFile);
+        }
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                items[i][f].sparseIndex = data;
+                data += items[i][f].sparseIndexSize * 6;
+            }
+        }
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                items[i][f].blockLengths = data;
+                data += items[i][f].blockLengthSize * 2L;
+            }
+        }
+        for (int f = 0; f <= maxFile; f++) {
+            for (int i = 0; i < sides; i++) {
+                data = (data + 0x3F) & ~0x3FL;
+                items[i][f].data = data;
+                data += items[i][f].numBlocks * items[i][f].blockSize;
+                if (items[i][f].numBlocks > 0 && data > size()) {
+                    throw new IOException(file + " is truncated");
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the pieces into the groups they are encoded in, and works out what each group's
+     * index is multiplied by
+     *
+     * @param order the position of the leading group and of the other side's pawns in the
+     *              encoding
+     */
+    private void setGroups(PairsData d, int[] order, int f) {
+        int n = 0;
+        int firstLen = hasPawns ? 0 : hasUniquePieces ? 3 : 2;
+        d.groupLen[n] = 1;
+        for (int i = 1; i < pieceCount; i++) {
+            if (--firstLen > 0 || d.pieces[i] == d.pieces[i - 1]) {
+                d.groupLen[n]++;
+            } else {
+                d.groupLen[++n] = 1;
+            }
+        }
+        d.groupLen[++n] = 0;
+
+        boolean pawnsOnBothSides = hasPawns && pawnCount[1] > 0;
+        int next = pawnsOnBothSides ? 2 : 1;
+        int freeSquares = 64 - d.groupLen[0] - (pawnsOnBothSides ? d.groupLen[1] : 0);
+        long idx = 1;
+        for (int k = 0; next < n || k == order[0] || k == order[1]; k++) {
+            if (k == order[0]) {
+                d.groupIdx[0] = idx;
+                idx *= hasPawns ? LEAD_PAWNS_SIZE[d.groupLen[0]][f] : hasUniquePieces ? 31332 : 462;
+            } else if (k == order[1]) {
+                d.groupIdx[1] = idx;
+                idx *= BINOMIAL[d.groupLen[1]][48 - d.groupLen[0]];
+            } else {
+                d.groupIdx[next] = idx;
+                idx *= BINOMIAL[d.groupLen[next]][freeSquares];
+                freeSquares -= d.groupLen[next++];
+            }
+        }
+        d.groupIdx[n] = idx;
+    }
+
+    /**
+     * Reads a table's block layout and Huffman code lengths
+     *
+     * @return the offset just past them
+     */
+    private long setSizes(PairsData d, long data) {
+        d.flags = u8(data++);
+        if ((d.flags & FLAG_SINGLE_VALUE) != 0) {
+            // every position has the same value, stored where the shortest code length would be
+            d.minSymLen = u8(data++);
+            return data;
+        }
+
+        int groups = 0;
+        while (d.groupLen[groups] != 0) {
+            groups++;
+        }
+        long tableSize = d.groupIdx[groups];
+        d.blockSize = 1L << u8(data++);
+        d.span = 1L << u8(data++);
+        d.sparseIndexSize = (tableSize + d.span - 1) / d.span;
+        int padding = u8(data++);
+        d.numBlocks = (int) u32(data);
+        data += 4;
+        d.blockLengthSize = d.numBlocks + padding;
+        d.maxSymLen = u8(data++);
+        d.minSymLen = u8(data++);
+        d.lowestSym = data;
+
+        // canonical Huffman codes: longer codes have lower values, so base64[i] is the lowest
+        // code of length minSymLen + i, left-aligned in 64 bits
+        long[] base64 = new long[d.maxSymLen - d.minSymLen + 1];
+        for (int i = base64.length - 2; i >= 0; i--) {
+            base64[i] = (base64[i + 1] + u16(d.lowestSym + 2L * i) - u16(d.lowestSym + 2L * (i + 1))) / 2;
+        }
+        for (int i = 0; i < base64.length; i++) {
+            base64[i] <<= 64 - i - d.minSymLen;
+        }
+        d.base64 = base64;
+        data += base64.length * 2L;
+
+        int symbols = u16(data);
+        data += 2;
+        d.btree = data;
+        d.symLen = new byte[symbols];
+        boolean[] visited = new boolean[symbols];
+        for (int sym = 0; sym < symbols; sym++) {
+            if (!visited[sym]) {
+                d.symLen[sym] = (byte) setSymLen(d, sym, visited);
+            }
+        }
+        return data + symbols * 3L + (symbols & 1);
+    }
+
+    /**
+     * @return one less than the number of values a symbol expands to, found by expanding its
+     * pair of child symbols
+     */
+    private int setSymLen(PairsData d, int sym, boolean[] visited) {
+        visited[sym] = true;
+        int right = right(d, sym);
+        if (right == 0xFFF) {
+            return 0;
+        }
+        int left = left(d, sym);
+        if (!visited[left]) {
+            d.symLen[left] = (byte) setSymLen(d, left, visited);
+        }
+        if (!visited[right]) {
+            d.symLen[right] = (byte) setSymLen(d, right, visited);
+        }
+        return (d.symLen[left] & 0xFF) + (d.symLen[right] & 0xFF) + 1;
+    }
+
+    /**
+     * DTZ values are stored as ranks by frequency; records where each WDL value's ranking
+     * starts so probes can map ranks back to distances
+     */
+    private long setDtzMap(long data, int maxFile) {
+        map = data;
+        for (int f = 0; f <= maxFile; f++) {
+            PairsData d = items[0][f];
+            if ((d.flags & FLAG_MAPPED) == 0) {
+                continue;
+            }
+            if ((d.flags & FLAG_WIDE) != 0) {
+                data += data & 1;
+                for (int i = 0; i < 4; i++) {
+                    d.mapIdx[i] = (int) ((data - map) / 2 + 1);
+                    data += 2L * u16(data) + 2;
+                }
+            } else {
+                for (int i = 0; i < 4; i++) {
+                    d.mapIdx[i] = (int) (data - map + 1);
+                    data += u8(data) + 1;
+                }
+            }
+        }
+        return data + (data & 1);
+    }
+
+    /**
+     * Looks up a position in this table
+     *
+     * @param board       piece codes by square, of a position with this table's material
+     * @param materialKey the position's material key
+     * @param blackToMove whether black is to move
+     * @param wdl         for DTZ tables, the position's WDL value; ignored for WDL tables
+     * @param squares     scratch space for {@link #MAX_PIECES} squares
+     * @param pieces      scratch space for {@link #MAX_PIECES} piece codes
+     * @return the WDL value from -2 to 2, the DTZ in plies, or {@link #CHANGE_SIDE}
+     */
+    int probe(int[] board, long materialKey, boolean blackToMove, int wdl, int[] squares, int[] pieces) {
+        // files hold white as the stronger side and, when both sides are alike, only white to
+        // move; any other position is looked up with the colors swapped and the board flipped
+        boolean flip = materialKey != key || (key == key2 && blackToMove);
+        int flipColor = flip ? 8 : 0;
+        int flipSquares = flip ? 56 : 0;
+        int stm = (flip ? 1 : 0) ^ (blackToMove ? 1 : 0);
+
+        int size = 0;
+        int leadPawnCount = 0;
+        int leadPawn = 0;
+        int tbFile = 0;
+        if (hasPawns) {
+            leadPawn = items[0][0].pieces[0] ^ flipColor;
+            for (int sq = 0; sq < 64; sq++) {
+                if (board[sq] == leadPawn) {
+                    squares[size++] = sq ^ flipSquares;
+                }
+            }
+            leadPawnCount = size;
+            int lead = 0;
+            for (int i = 1; i < leadPawnCount; i++) {
+                if (MAP_PAWNS[squares[i]] > MAP_PAWNS[squares[lead]]) {
+                    lead = i;
+                }
+            }
+            swap(squares, 0, lead);
+            tbFile = file(squares[0]);
+            if (tbFile > 3) {
+                tbFile = 7 - tbFile;
+            }
+        }
+
+        if (dtz) {
+            int flags = items[0][tbFile].flags;
+            if ((flags & FLAG_SIDE) != stm && !(key == key2 && !hasPawns)) {
+                return CHANGE_SIDE;
+            }
+        }
+
+        for (int sq = 0; sq < 64; sq++) {
+            if (board[sq] != 0 && !(hasPawns && board[sq] == leadPawn)) {
+                squares[size] = sq ^ flipSquares;
+                pieces[size++] = board[sq] ^ flipColor;
+            }
+        }
+
+        PairsData d = items[dtz ? 0 : stm][tbFile];
+        // the file's piece order decides the groups, so put the position's pieces in that order
+        for (int i = leadPawnCount; i < size - 1; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (d.pieces[i] == pieces[j]) {
+                    swap(pieces, i, j);
+                    swap(squares, i, j);
+                    break;
+                }
+            }
+        }
+
+        if (file(squares[0]) > 3) {
+            for (int i = 0; i < size; i++) {
+                squares[i] ^= 7;
+            }
+        }
+
+        long idx;
+        if (hasPawns) {
+            idx = LEAD_PAWN_IDX[leadPawnCount][squares[0]];
+            for (int i = 2; i < leadPawnCount; i++) {
+                for (int j = i; j > 1 && MAP_PAWNS[squares[j]] < MAP_PAWNS[squares[j - 1]]; j--) {
+                    swap(squares, j, j - 1);
+                }
+            }
+            for (int i = 1; i < leadPawnCount; i++) {
+                idx += BINOMIAL[i][MAP_PAWNS[squares[i]]];
+            }
+        } else {
+            if (rank(squares[0]) > 3) {
+                for (int i = 0; i < size; i++) {
+                    squares[i] ^= 56;
+                }
+            }
+            // the first leading piece off the a1-h8 diagonal goes below it
+            for (int i = 0; i < d.groupLen[0]; i++) {
+                if (offDiagonal(squares[i]) == 0) {
+                    continue;
+                }
+                if (offDiagonal(squares[i]) > 0) {
+                    for (int j = i; j < size; j++) {
+                        squares[j] = ((squares[j] >>> 3) | (squares[j] << 3)) & 63;
+                    }
+                }
+                break;
+            }
+            idx = hasUniquePieces ? uniqueIndex(squares) : MAP_KK[MAP_A1D1D4[squares[0]]][squares[1]];
+        }
+
+        idx *= d.groupIdx[0];
+        int groupStart = d.groupLen[0];
+        boolean remainingPawns = hasPawns && pawnCount[1] > 0;
+        for (int next = 1; d.groupLen[next] != 0; next++) {
+            int len = d.groupLen[next];
+            for (int i = groupStart + 1; i < groupStart + len; i++) {
+                for (int j = i; j > groupStart && squares[j] < squares[j - 1]; j--) {
+                    swap(squares, j, j - 1);
+                }
+            }
+            long n = 0;
+            for (int i = 0; i < len; i++) {
+                int sq = squares[groupStart + i];
+                int adjust = 0;
+                for (int j = 0; j < groupStart; j++) {
+                    if (sq > squares[j]) {
+                        adjust++;
+                    }
+                }
+                n += BINOMIAL[i + 1][sq - adjust - (remainingPawns ? 8 : 0)];
+            }
+            remainingPawns = false;
+            idx += n * d.groupIdx[next];
+            groupStart += len;
+        }
+
+        int value = decompress(d, idx);
+        return dtz ? mapDtz(tbFile, value, wdl) : value - 2;
+    }
+
+    /**
+     * @return the value stored at an index, before any DTZ mapping, for checking a table against
+     * the values it was built from
+     */
+    int storedValue(int side, int tbFile, long idx) {
+        return decompress(items[side][tbFile], idx);
+    }
+
+    /**
+     * Places three unique leading pieces, the first in the a1-d1-d4 triangle, in 31332 ways
+     */
+    private static long uniqueIndex(int[] squares) {
+        int adjust1 = squares[1] > squares[0] ? 1 : 0;
+        int adjust2 = (squares[2] > squares[0] ? 1 : 0) + (squares[2] > squares[1] ? 1 : 0);
+        if (offDiagonal(squares[0]) != 0) {
+            return (MAP_A1D1D4[squares[0]] * 63L + (squares[1] - adjust1)) * 62 + squares[2] - adjust2;
+        }
+        if (offDiagonal(squares[1]) != 0) {
+            return (6 * 63 + rank(squares[0]) * 28L + MAP_B1H1H7[squares[1]]) * 62 + squares[2] - adjust2;
+        }
+        if (offDiagonal(squares[2]) != 0) {
+            return 6 * 63 * 62 + 4 * 28 * 62 + rank(squares[0]) * 7 * 28L
+                    + (rank(squares[1]) - adjust1) * 28L + MAP_B1H1H7[squares[2]];
+        }
+        return 6 * 63 * 62 + 4 * 28 * 62 + 4 * 7 * 28 + rank(squares[0]) * 7 * 6L
+                + (rank(squares[1]) - adjust1) * 6L + (rank(squares[2]) - adjust2);
+    }
+
+    /**
+     * Finds the value stored at an index
+     * <p>
+     * A sparse index gives a block near the right one and the offset into it; block lengths
+     * correct that to the exact block. The block's codes are then decoded one symbol at a time,
+     * skipping each symbol's run of values, and the symbol holding the index is expanded
+     * through its pairs down to a single value.
+     */
+    private int decompress(PairsData d, long idx) {
+        if ((d.flags & FLAG_SINGLE_VALUE) != 0) {
+            return d.minSymLen;
+        }
+
+        long k = idx / d.span;
+        long entry = d.sparseIndex + 6 * k;
+        long block = u32(entry);
+        int offset = u16(entry + 4);
+        offset += (int) (idx % d.span - d.span / 2);
+        while (offset < 0) {
+            offset += blockLength(d, --block) + 1;
+        }
+        while (offset > blockLength(d, block)) {
+            offset -= blockLength(d, block++) + 1;
+        }
+
+        long ptr = d.data + block * d.blockSize;
+        long buf64 = beLong(ptr);
+        ptr += 8;
+        int buf64Size = 64;
+        int sym;
+        while (true) {
+            int len = 0;
+            while (Long.compareUnsigned(buf64, d.base64[len]) < 0) {
+                len++;
+            }
+            sym = (int) ((buf64 - d.base64[len]) >>> (64 - len - d.minSymLen));
+            sym = (sym + u16(d.lowestSym + 2L * len)) & 0xFFFF;
+            int run = (d.symLen[sym] & 0xFF) + 1;
+            if (offset < run) {
+                break;
+            }
+            offset -= run;
+            len += d.minSymLen;
+            buf64 <<= len;
+            buf64Size -= len;
+            if (buf64Size <= 32) {
+                buf64Size += 32;
+                buf64 |= (beInt(ptr) & 0xFFFFFFFFL) << (64 - buf64Size);
+                ptr += 4;
+            }
+        }
+
+        while (d.symLen[sym] != 0) {
+            int left = left(d, sym);
+            int leftRun = (d.symLen[left] & 0xFF) + 1;
+            if (offset < leftRun) {
+                sym = left;
+            } else {
+                offset -= leftRun;
+                sym = right(d, sym);
+            }
+        }
+        return left(d, sym);
+    }
+
+    /**
+     * Turns a stored DTZ rank into a distance in plies
+     */
+    private int mapDtz(int tbFile, int value, int wdl) {
+        PairsData d = items[0][tbFile];
+        if ((d.flags & FLAG_MAPPED) != 0) {
+            int start = d.mapIdx[WDL_MAP[wdl + 2]];
+            value = (d.flags & FLAG_WIDE) != 0 ? u16(map + 2L * (start + value)) : u8(map + start + value);
+        }
+        // distances are stored in moves unless the flags say plies; cursed and blessed results
+        // are always in moves
+        if ((wdl == 2 && (d.flags & FLAG_WIN_PLIES) == 0) || (wdl == -2 && (d.flags & FLAG_LOSS_PLIES) == 0)
+                || wdl == 1 || wdl == -1) {
+            value *= 2;
+        }
+        return value + 1;
+    }
+
+    private int left(PairsData d, int sym) {
+        long at = d.btree + 3L * sym;
+        return ((u8(at + 1) & 0xF) << 8) | u8(at);
+    }
+
+    private int right(PairsData d, int sym) {
+        long at = d.btree + 3L * sym;
+        return (u8(at + 2) << 4) | (u8(at + 1) >>> 4);
+    }
+
+    private int blockLength(PairsData d, long block) {
+        return u16(d.blockLengths + 2 * block);
+    }
+
+    private long size() {
+        long size = 0;
+        for (MappedByteBuffer chunk : chunks) {
+            size += chunk.capacity();
+        }
+        return size;
+    }
+
+    private int u8(long offset) {
+        return chunks[(int) (offset >>> CHUNK_BITS)].get((int) (offset & CHUNK_MASK)) & 0xFF;
+    }
+
+    private int u16(long offset) {
+        return u8(offset) | u8(offset + 1) << 8;
+    }
+
+    private long u32(long offset) {
+        return (u16(offset) | (long) u16(offset + 2) << 16) & 0xFFFFFFFFL;
+    }
+
+    private int beInt(long offset) {
+        int index = (int) (offset & CHUNK_MASK);
+        if (index <= CHUNK_MASK - 3) {
+            return chunks[(int) (offset >>> CHUNK_BITS)].getInt(index);
+        }
+        return u8(offset) << 24 | u8(offset + 1) << 16 | u8(offset + 2) << 8 | u8(offset + 3);
+    }
+
+    private long beLong(long offset) {
+        return (long) beInt(offset) << 32 | (beInt(offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int t = values[i];
+        values[i] = values[j];
+        values[j] = t;
+    }
+
+    private static int rank(int sq) {
+        return sq >>> 3;
+    }
+
+    private static int file(int sq) {
+        return sq & 7;
+    }
+
+    /**
+     * @return positive above the a1-h8 diagonal, negative below it and 0 on it
+     */
+    private static int offDiagonal(int sq) {
+        return rank(sq) - file(sq);
+    }
+}
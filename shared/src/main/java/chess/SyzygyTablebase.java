@@ -0,0 +1,575 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Answers win/draw/loss and distance-to-zeroing questions for endgames from Syzygy tablebase
+ * files
+ * <p>
+ * Every {@code .rtbw} and {@code .rtbz} file in a directory is memory-mapped when the
+ * tablebase is opened, and probes read straight from the mapping. Tables may store any value
+ * for positions where the side to move has a capture at least as good, so a probe first plays
+ * out captures (and, for DTZ, pawn moves) and takes the best of those and the stored value.
+ * <p>
+ * Probes may run on any number of threads at once. Each thread keeps its own scratch board
+ * and move lists, so after a thread's first probe no further memory is allocated.
+ */
+public final class SyzygyTablebase {
+    /**
+     * A position's value for the side to move; cursed wins and blessed losses are decided
+     * only by the fifty-move rule, so they are draws under it
+     */
+    public enum Wdl {
+        LOSS,
+        BLESSED_LOSS,
+        DRAW,
+        CURSED_WIN,
+        WIN
+    }
+
+    /**
+     * Returned by {@link #probeDtz} for a position the tables do not cover
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final Wdl[] WDL_VALUES = Wdl.values();
+
+    private final TableIndex wdlTables;
+    private final TableIndex dtzTables;
+    private final int maxPieces;
+    private final ThreadLocal<Prober> probers = ThreadLocal.withInitial(Prober::new);
+
+    /**
+     * Opens every table in a directory; files whose names are not a material signature such
+     * as {@code KRPvKR} are ignored
+     *
+     * @throws IOException if the directory cannot be listed or a table file is corrupt
+     */
+    public SyzygyTablebase(Path directory) throws IOException {
+        List<SyzygyTable> wdl = new ArrayList<>();
+        List<SyzygyTable> dtz = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                int dot = fileName.lastIndexOf('.');
+                if (dot < 0 || SyzygyTable.materialCounts(fileName.substring(0, dot)) == null) {
+                    continue;
+                }
+                String name = fileName.substring(0, dot);
+                switch (fileName.substring(dot)) {
+                    case ".rtbw" -> wdl.add(new SyzygyTable(file, name, false));
+                    case ".rtbz" -> dtz.add(new SyzygyTable(file, name, true));
+                    default -> {
+                    }
+                }
+            }
+        }
+        wdlTables = new TableIndex(wdl);
+        dtzTables = new TableIndex(dtz);
+        int most = 0;
+        for (SyzygyTable table : wdl) {
+            most = Math.max(most, table.pieceCount);
+        }
+        maxPieces = most;
+    }
+
+    /**
+     * @return the most pieces, kings included, of any WDL table found
+     */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * Looks up whether the side to move wins, draws or loses with best play
+     *
+     * @return the value for the side to move, or null if a table needed is missing
+     */
+    public Wdl probeWdl(ChessGame game) {
+        Prober prober = probers.get();
+        if (!prober.load(game, maxPieces)) {
+            return null;
+        }
+        int wdl = prober.search(false);
+        return prober.state == Prober.FAIL ? null : WDL_VALUES[wdl + 2];
+    }
+
+    /**
+     * Looks up the distance to zeroing: how many plies until a capture or pawn move that
+     * keeps the result, with best play
+     *
+     * @return the distance in plies, positive when the side to move wins, negative when it
+     * loses and 0 for a draw; -1 when the side to move is checkmated; {@link #UNKNOWN} if a
+     * table needed is missing
+     */
+    public int probeDtz(ChessGame game) {
+        Prober prober = probers.get();
+        if (!prober.load(game, maxPieces)) {
+            return UNKNOWN;
+        }
+        int dtz = prober.probeDtz();
+        return prober.state == Prober.FAIL ? UNKNOWN : dtz;
+    }
+
+    /**
+     * Tables by material key, under both the key of the file name and its color-swapped key
+     */
+    private static final class TableIndex {
+        private final long[] keys;
+        private final SyzygyTable[] tables;
+
+        TableIndex(List<SyzygyTable> all) {
+            int size = Integer.highestOneBit(Math.max(4 * all.size(), 2) - 1) << 1;
+            keys = new long[size];
+            tables = new SyzygyTable[size];
+            for (SyzygyTable table : all) {
+                put(table.key, table);
+                put(table.key2, table);
+            }
+        }
+
+        private void put(long key, SyzygyTable table) {
+            int slot = slot(key);
+            keys[slot] = key;
+            tables[slot] = table;
+        }
+
+        SyzygyTable get(long key) {
+            return tables[slot(key)];
+        }
+
+        private int slot(long key) {
+            int slot = (int) (key ^ key >>> 29) & (keys.length - 1);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * One thread's scratch position, using the table files' piece codes and square numbers,
+     * with the small move generator needed to play out captures
+     */
+    private final class Prober {
+        static final int OK = 0;
+        static final int FAIL = 1;
+        static final int ZEROING_BEST_MOVE = 2;
+        static final int CHANGE_SIDE = 3;
+
+        private static final int PAWN = 1;
+        private static final int KNIGHT = 2;
+        private static final int BISHOP = 3;
+        private static final int ROOK = 4;
+        private static final int QUEEN = 5;
+        private static final int KING = 6;
+        private static final int MAX_DEPTH = 32;
+        private static final int[][] KNIGHT_STEPS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        private static final int[][] KING_STEPS = {{1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}};
+        private static final int[][] ROOK_RAYS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        private static final int[][] BISHOP_RAYS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+        final int[] board = new int[64];
+        final int[][] moves = new int[MAX_DEPTH][256];
+        final int[] squares = new int[SyzygyTable.MAX_PIECES];
+        final int[] pieces = new int[SyzygyTable.MAX_PIECES];
+        int side;
+        int depth;
+        int state;
+
+        /**
+         * Copies a game's position in
+         *
+         * @return false if it has more pieces than any table
+         */
+        boolean load(ChessGame game, int maxPieces) {
+            ChessBoard source = game.getBoard();
+            int count = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                ChessPiece piece = source.getPiece(sq);
+                board[sq] = piece == null ? 0 : code(piece);
+                count += piece == null ? 0 : 1;
+            }
+            side = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 0 : 1;
+            depth = 0;
+            state = OK;
+            return count <= Math.max(maxPieces, 2);
+        }
+
+        /**
+         * Settles a position's WDL value by playing out captures, and pawn moves too if asked,
+         * then comparing the best of them with the stored value
+         */
+        int search(boolean checkZeroingMoves) {
+            if (depth == MAX_DEPTH - 1) {
+                state = FAIL;
+                return 0;
+            }
+            int bestValue = -2;
+            int[] list = moves[depth];
+            int count = generate(list);
+            int legal = 0;
+            int searched = 0;
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                int from = move & 63;
+                int to = (move >>> 6) & 63;
+                boolean capture = board[to] != 0;
+                boolean pawn = (board[from] & 7) == PAWN;
+                int captured = make(move);
+                if (!isLegalAfter()) {
+                    unmake(move, captured);
+                    continue;
+                }
+                legal++;
+                if (!capture && (!checkZeroingMoves || !pawn)) {
+                    unmake(move, captured);
+                    continue;
+                }
+                searched++;
+                int value = -search(false);
+                unmake(move, captured);
+                if (state == FAIL) {
+                    return 0;
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    if (value >= 2) {
+                        state = ZEROING_BEST_MOVE;
+                        return value;
+                    }
+                }
+            }
+
+            // with every legal move already searched the stored value is not needed
+            boolean noMoreMoves = searched > 0 && searched == legal;
+            int value;
+            if (noMoreMoves) {
+                value = bestValue;
+            } else {
+                value = probeTable(wdlTables, 0);
+                if (state == FAIL) {
+                    return 0;
+                }
+            }
+            if (bestValue >= value) {
+                state = bestValue > 0 || noMoreMoves ? ZEROING_BEST_MOVE : OK;
+                return bestValue;
+            }
+            state = OK;
+            return value;
+        }
+
+        int probeDtz() {
+            state = OK;
+            int wdl = search(true);
+            if (state == FAIL || wdl == 0) {
+                return 0;
+            }
+            if (state == ZEROING_BEST_MOVE) {
+                return dtzBeforeZeroing(wdl);
+            }
+            int dtz = probeTable(dtzTables, wdl);
+            if (state == FAIL) {
+                return 0;
+            }
+            if (state != CHANGE_SIDE) {
+                return (dtz + (wdl == 1 || wdl == -1 ? 100 : 0)) * Integer.signum(wdl);
+            }
+
+            // the file only stores the other side to move, so look one ply ahead for the move
+            // that zeroes soonest
+            if (depth == MAX_DEPTH - 1) {
+                state = FAIL;
+                return 0;
+            }
+            int minDtz = 0xFFFF;
+            int[] list = moves[depth];
+            int count = generate(list);
+            for (int i = 0; i < count; i++) {
+                int move = list[i];
+                boolean zeroing = board[(move >>> 6) & 63] != 0 || (board[move & 63] & 7) == PAWN;
+                int captured = make(move);
+                if (!isLegalAfter()) {
+                    unmake(move, captured);
+                    continue;
+                }
+                dtz = zeroing ? -dtzBeforeZeroing(search(false)) : -probeDtz();
+                if (dtz == 1 && isInCheck(side) && !hasLegalMove()) {
+                    minDtz = 1;
+                }
+                if (!zeroing) {
+                    dtz += Integer.signum(dtz);
+                }
+                if (dtz < minDtz && Integer.signum(dtz) == Integer.signum(wdl)) {
+                    minDtz = dtz;
+                }
+                unmake(move, captured);
+                if (state == FAIL) {
+                    return 0;
+                }
+            }
+            return minDtz == 0xFFFF ? -1 : minDtz;
+        }
+
+        private static int dtzBeforeZeroing(int wdl) {
+            return switch (wdl) {
+                case 2 -> 1;
+                case 1 -> 101;
+                case -1 -> -101;
+                case -2 -> -1;
+                default -> 0;
+            };
+        }
+
+        private int probeTable(TableIndex index, int wdl) {
+            long key = 0;
+            int count = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                if (board[sq] != 0) {
+                    key += 1L << (4 * board[sq]);
+                    count++;
+                }
+            }
+            if (count == 2) {
+                return 0;
+            }
+            SyzygyTable table = index.get(key);
+            if (table == null) {
+                state = FAIL;
+                return 0;
+            }
+            int value = table.probe(board, key, side == 1, wdl, squares, pieces);
+            if (value == SyzygyTable.CHANGE_SIDE) {
+                state = CHANGE_SIDE;
+                return 0;
+            }
+            return value;
+        }
+
+        /**
+         * Fills a list with the pseudo-legal moves of the side to move, each packed as
+         * {@code from | to << 6 | promotion << 12}
+         *
+         * @return the number of moves
+         */
+        private int generate(int[] list) {
+            int count = 0;
+            for (int from = 0; from < 64; from++) {
+                int piece = board[from];
+                if (piece == 0 || piece >>> 3 != side) {
+                    continue;
+                }
+                switch (piece & 7) {
+                    case PAWN -> count = pawnMoves(list, count, from);
+                    case KNIGHT -> count = steps(list, count, from, KNIGHT_STEPS);
+                    case KING -> count = steps(list, count, from, KING_STEPS);
+                    case BISHOP -> count = rays(list, count, from, BISHOP_RAYS);
+                    case ROOK -> count = rays(list, count, from, ROOK_RAYS);
+                    default -> count = rays(list, rays(list, count, from, ROOK_RAYS), from, BISHOP_RAYS);
+                }
+            }
+            return count;
+        }
+
+        private int rays(int[] list, int count, int from, int[][] rays) {
+            for (int[] ray : rays) {
+                int rank = (from >>> 3) + ray[0];
+                int file = (from & 7) + ray[1];
+                while (rank >= 0 && rank < 8 && file >= 0 && file < 8) {
+                    int to = rank * 8 + file;
+                    if (board[to] != 0) {
+                        if (board[to] >>> 3 != side) {
+                            list[count++] = from | to << 6;
+                        }
+                        break;
+                    }
+                    list[count++] = from | to << 6;
+                    rank += ray[0];
+                    file += ray[1];
+                }
+            }
+            return count;
+        }
+
+        private int steps(int[] list, int count, int from, int[][] steps) {
+            for (int[] step : steps) {
+                int rank = (from >>> 3) + step[0];
+                int file = (from & 7) + step[1];
+                if (rank >= 0 && rank < 8 && file >= 0 && file < 8) {
+                    int to = rank * 8 + file;
+                    if (board[to] == 0 || board[to] >>> 3 != side) {
+                        list[count++] = from | to << 6;
+                    }
+                }
+            }
+            return count;
+        }
+
+        private int pawnMoves(int[] list, int count, int from) {
+            int forward = side == 0 ? 1 : -1;
+            int rank = (from >>> 3) + forward;
+            int file = from & 7;
+            if (rank < 0 || rank > 7) {
+                return count;
+            }
+            int to = rank * 8 + file;
+            if (board[to] == 0) {
+                count = pawnMove(list, count, from, to);
+                int startRank = side == 0 ? 1 : 6;
+                int twoAhead = to + 8 * forward;
+                if (from >>> 3 == startRank && board[twoAhead] == 0) {
+                    list[count++] = from | twoAhead << 6;
+                }
+            }
+            for (int df = -1; df <= 1; df += 2) {
+                if (file + df < 0 || file + df > 7) {
+                    continue;
+                }
+                int target = to + df;
+                if (board[target] != 0 && board[target] >>> 3 != side) {
+                    count = pawnMove(list, count, from, target);
+                }
+            }
+            return count;
+        }
+
+        private int pawnMove(int[] list, int count, int from, int to) {
+            int rank = to >>> 3;
+            if (rank == 0 || rank == 7) {
+                for (int promotion = QUEEN; promotion >= KNIGHT; promotion--) {
+                    list[count++] = from | to << 6 | promotion << 12;
+                }
+            } else {
+                list[count++] = from | to << 6;
+            }
+            return count;
+        }
+
+        /**
+         * Plays a move and passes the turn
+         *
+         * @return the captured piece code, or 0
+         */
+        private int make(int move) {
+            int from = move & 63;
+            int to = (move >>> 6) & 63;
+            int promotion = move >>> 12;
+            int captured = board[to];
+            board[to] = promotion == 0 ? board[from] : promotion | side << 3;
+            board[from] = 0;
+            side ^= 1;
+            depth++;
+            return captured;
+        }
+
+        private void unmake(int move, int captured) {
+            int from = move & 63;
+            int to = (move >>> 6) & 63;
+            depth--;
+            side ^= 1;
+            board[from] = move >>> 12 == 0 ? board[to] : PAWN | side << 3;
+            board[to] = captured;
+        }
+
+        /**
+         * @return whether the side that just moved left its king safe
+         */
+        private boolean isLegalAfter() {
+            return !isInCheck(side ^ 1);
+        }
+
+        private boolean hasLegalMove() {
+            if (depth == MAX_DEPTH - 1) {
+                return true;
+            }
+            int[] list = moves[depth];
+            int count = generate(list);
+            for (int i = 0; i < count; i++) {
+                int captured = make(list[i]);
+                boolean legal = isLegalAfter();
+                unmake(list[i], captured);
+                if (legal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isInCheck(int color) {
+            int king = KING | color << 3;
+            for (int sq = 0; sq < 64; sq++) {
+                if (board[sq] == king) {
+                    return isAttacked(sq, color ^ 1);
+                }
+            }
+            return false;
+        }
+
+        private boolean isAttacked(int sq, int by) {
+            int rank = sq >>> 3;
+            int file = sq & 7;
+            int enemy = by << 3;
+            if (stepAttacks(rank, file, KNIGHT_STEPS, KNIGHT | enemy) || stepAttacks(rank, file, KING_STEPS, KING | enemy)) {
+                return true;
+            }
+            int pawnRank = rank + (by == 0 ? -1 : 1);
+            if (pawnRank >= 0 && pawnRank < 8) {
+                for (int df = -1; df <= 1; df += 2) {
+                    if (file + df >= 0 && file + df < 8 && board[pawnRank * 8 + file + df] == (PAWN | enemy)) {
+                        return true;
+                    }
+                }
+            }
+            return rayAttacks(rank, file, ROOK_RAYS, ROOK | enemy, QUEEN | enemy)
+                    || rayAttacks(rank, file, BISHOP_RAYS, BISHOP | enemy, QUEEN | enemy);
+        }
+
+        private boolean stepAttacks(int rank, int file, int[][] steps, int attacker) {
+            for (int[] step : steps) {
+                int r = rank + step[0];
+                int f = file + step[1];
+                if (r >= 0 && r < 8 && f >= 0 && f < 8 && board[r * 8 + f] == attacker) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean rayAttacks(int rank, int file, int[][] rays, int slider, int queen) {
+            for (int[] ray : rays) {
+                int r = rank + ray[0];
+                int f = file + ray[1];
+                while (r >= 0 && r < 8 && f >= 0 && f < 8) {
+                    int piece = board[r * 8 + f];
+                    if (piece != 0) {
+                        if (piece == slider || piece == queen) {
+                            return true;
+                        }
+                        break;
+                    }
+                    r += ray[0];
+                    f += ray[1];
+                }
+            }
+            return false;
+        }
+
+        private static int code(ChessPiece piece) {
+            int type = switch (piece.getPieceType()) {
+                case PAWN -> PAWN;
+                case KNIGHT -> KNIGHT;
+                case BISHOP -> BISHOP;
+                case ROOK -> ROOK;
+                case QUEEN -> QUEEN;
+                case KING -> KING;
+            };
+            return type | (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 0 : 8);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * A Universal Chess Interface front-end for {@link ChessGame}, so standard chess GUIs,
+ * tournament runners and benchmarking tools can drive the rules code over stdin/stdout
+ * <p>
+ * Supports {@code uci}, {@code isready}, {@code ucinewgame}, {@code position startpos|fen ... moves ...},
+ * {@code go depth|movetime|nodes|wtime|btime|infinite|ponder|perft}, {@code stop} and {@code quit}.
+ * Searches and perft run on a background thread so {@code stop} and {@code isready} are answered
+ * while thinking. Every {@code info} line reports depth, nodes and nodes per second, and each search
+ * ends with the pawn hash hit rate.
+ */
+public class UciEngine {
+    private static final String NAME = "240 Chess";
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    // searches run one at a time, so they can share one pawn cache
+    private final PawnHashTable pawnHash = new PawnHashTable();
+    private ChessGame game = new ChessGame();
+    private Search search;
+    private Thread searchThread;
+    // the running search only ends when stopped, as with go infinite or go ponder
+    private boolean openEnded;
+
+    public UciEngine(Reader in, PrintStream out) {
+        this.in = new BufferedReader(in);
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new UciEngine(new InputStreamReader(System.in), System.out).run();
+    }
+
+    /**
+     * Processes commands until {@code quit} or end of input. At end of input a running search
+     * with a limit is allowed to finish, so piped command files get their {@code bestmove}, while
+     * an infinite or ponder search, which nothing could stop any more, is stopped.
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) {
+                stopSearch();
+                return;
+            }
+        }
+        if (openEnded) {
+            stopSearch();
+        } else {
+            awaitSearch();
+        }
+    }
+
+    /**
+     * @return false when the engine should exit
+     */
+    private boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci" -> {
+                send("id name " + NAME);
+                send("id author BYU CS 240");
+                send("uciok");
+            }
+            case "isready" -> send("readyok");
+            case "ucinewgame" -> {
+                stopSearch();
+                game = new ChessGame();
+            }
+            case "position" -> {
+                stopSearch();
+                position(tokens);
+            }
+            case "go" -> {
+                stopSearch();
+                go(tokens);
+            }
+            case "stop" -> stopSearch();
+            case "quit" -> {
+                return false;
+            }
+            default -> {
+                if (!line.isEmpty()) {
+                    send("info string unknown command: " + line);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void position(String[] tokens) {
+        int index = 1;
+        ChessGame next;
+        if (tokens.length > 1 && tokens[1].equals("startpos")) {
+            next = new ChessGame();
+            index = 2;
+        } else if (tokens.length > 1 && tokens[1].equals("fen")) {
+            var fen = new StringBuilder();
+            index = 2;
+            while (index < tokens.length && !tokens[index].equals("moves")) {
+                fen.append(tokens[index++]).append(' ');
+            }
+            try {
+                next = Fen.parse(fen.toString());
+            } catch (IllegalArgumentException e) {
+                send("info string " + e.getMessage());
+                return;
+            }
+        } else {
+            send("info string position needs startpos or fen");
+            return;
+        }
+
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (int i = index + 1; i < tokens.length; i++) {
+                ChessMove move = parseMove(tokens[i]);
+                try {
+                    if (move == null) {
+                        throw new InvalidMoveException("bad move");
+                    }
+                    next.makeMove(move);
+                } catch (InvalidMoveException e) {
+                    send("info string illegal move " + tokens[i] + ": " + e.getMessage());
+                    break;
+                }
+            }
+        }
+        game = next;
+    }
+
+    private void go(String[] tokens) {
+        int depth = 0;
+        long moveTime = 0;
+        long nodes = 0;
+        long clock = 0;
+        long increment = 0;
+        int movesToGo = 30;
+        boolean ponder = false;
+        String side = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? "w" : "b";
+        for (int i = 1; i < tokens.length; i++) {
+            String value = i + 1 < tokens.length ? tokens[i + 1] : "0";
+            try {
+                switch (tokens[i]) {
+                    case "perft" -> {
+                        perft(Integer.parseInt(value));
+                        return;
+                    }
+                    case "ponder" -> {
+                        ponder = true;
+                        continue;
+                    }
+                    case "depth" -> depth = Integer.parseInt(value);
+                    case "movetime" -> moveTime = Long.parseLong(value);
+                    case "nodes" -> nodes = Long.parseLong(value);
+                    case "movestogo" -> movesToGo = Math.max(1, Integer.parseInt(value));
+                    case "wtime", "btime" -> clock = tokens[i].startsWith(side) ? Long.parseLong(value) : clock;
+                    case "winc", "binc" -> increment = tokens[i].startsWith(side) ? Long.parseLong(value) : increment;
+                    default -> {
+                        continue;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                send("info string bad value for " + tokens[i] + ": " + value);
+                return;
+            }
+            i++;
+        }
+        if (moveTime == 0 && clock > 0) {
+            moveTime = Math.max(1, clock / movesToGo + increment / 2);
+        }
+
+        Search current = new Search(game, pawnHash);
+        Search.Limits limits = new Search.Limits(depth, moveTime, nodes);
+        start(current, ponder || depth == 0 && moveTime == 0 && nodes == 0, () -> {
+            Search.Result result = current.search(limits, info -> send("info depth " + info.depth()
+                    + " score " + formatScore(info.score())
+                    + " nodes " + info.nodes()
+                    + " nps " + info.nodesPerSecond()
+                    + " time " + info.nanos() / 1_000_000
+                    + (info.pv().isEmpty() ? "" : " pv " + formatMoves(info.pv()))));
+            send(String.format(Locale.ROOT, "info string pawn hash %d probes, %.1f%% hits", pawnHash.probes(), 100 * pawnHash.hitRate()));
+            pawnHash.resetStats();
+            send("bestmove " + (result.bestMove() == null ? "0000" : formatMove(result.bestMove())));
+        });
+    }
+
+    private void start(Search current, boolean openEnded, Runnable task) {
+        search = current;
+        this.openEnded = openEnded;
+        searchThread = new Thread(task, "uci-search");
+        searchThread.start();
+    }
+
+    private void perft(int depth) {
+        Search current = new Search(game);
+        start(current, false, () -> {
+            long start = System.nanoTime();
+            long total = 0;
+            for (Search.MoveCount count : current.divide(Math.max(depth, 1))) {
+                send(formatMove(count.move()) + ": " + count.nodes());
+                total += count.nodes();
+            }
+            long nanos = Math.max(System.nanoTime() - start, 1);
+            send("info depth " + depth + " nodes " + total + " nps " + total * 1_000_000_000L / nanos
+                    + " time " + nanos / 1_000_000);
+            send(current.isStopped() ? "info string perft stopped" : "Nodes searched: " + total);
+        });
+    }
+
+    private void stopSearch() {
+        if (searchThread != null) {
+            search.stop();
+            awaitSearch();
+        }
+    }
+
+    private void awaitSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+        search = null;
+        openEnded = false;
+    }
+
+    private synchronized void send(String message) {
+        out.println(message);
+        out.flush();
+    }
+
+    private static String formatScore(int score) {
+        if (Math.abs(score) < Search.MATE_SCORE - 1000) {
+            return "cp " + score;
+        }
+        int plies = Search.MATE_SCORE - Math.abs(score);
+        int moves = (plies + 1) / 2;
+        return "mate " + (score > 0 ? moves : -moves);
+    }
+
+    private static String formatMoves(List<ChessMove> moves) {
+        return moves.stream().map(UciEngine::formatMove).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * @return the move in UCI long algebraic form, e.g. "e2e4" or "e7e8q"
+     */
+    public static String formatMove(ChessMove move) {
+        String text = SanNotation.squareName(move.getStartPosition()) + SanNotation.squareName(move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            text += Fen.letterFor(new ChessPiece(ChessGame.TeamColor.BLACK, move.getPromotionPiece()));
+        }
+        return text;
+    }
+
+    /**
+     * @return the move written in UCI long algebraic form, or null if the text is malformed
+     */
+    public static ChessMove parseMove(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            return null;
+        }
+        ChessPosition start = SanNotation.parseSquare(text.substring(0, 2));
+        ChessPosition end = SanNotation.parseSquare(text.substring(2, 4));
+        if (start == null || end == null) {
+            return null;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            try {
+                promotion = Fen.pieceFor(text.charAt(4)).getPieceType();
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return new ChessMove(start, end, promotion);
+    }
+}
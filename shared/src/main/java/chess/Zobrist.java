@@ -0,0 +1,78 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for hashing positions, one per piece kind and square plus one for the side to move
+ * <p>
+ * A position's key is the xor of the keys of everything in it, so a move updates the key by
+ * xoring out what left a square and xoring in what arrived.
+ */
+final class Zobrist {
+    private static final long[] PIECE_KEYS = new long[PositionBatch.KINDS * 64];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED240L);
+        for (int i = 0; i < PIECE_KEYS.length; i++) {
+            PIECE_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param square index {@code (row - 1) * 8 + (column - 1)}
+     */
+    static long piece(ChessPiece piece, int square) {
+        return PIECE_KEYS[PositionBatch.kind(piece.getTeamColor(), piece.getPieceType()) * 64 + square];
+    }
+
+    /**
+     * @return the key of a board with the given side to move
+     */
+    static long hash(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        long key = sideToMove == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                key ^= piece(piece, square);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @return the key of the board's pawns alone, shared by every position with the same pawn
+     * structure
+     */
+    static long pawnHash(ChessBoard board) {
+        long key = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                key ^= piece(piece, square);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @return the key after a move, computed from the key before it without touching the board
+     */
+    static long afterMove(long key, ChessBoard board, ChessMove move) {
+        int from = AttackMap.squareIndex(move.getStartPosition());
+        int to = AttackMap.squareIndex(move.getEndPosition());
+        ChessPiece moved = board.getPiece(move.getStartPosition());
+        ChessPiece captured = board.getPiece(move.getEndPosition());
+        key ^= piece(moved, from) ^ BLACK_TO_MOVE;
+        if (captured != null) {
+            key ^= piece(captured, to);
+        }
+        ChessPiece placed = move.getPromotionPiece() == null ? moved
+                : new ChessPiece(moved.getTeamColor(), move.getPromotionPiece());
+        return key ^ piece(placed, to);
+    }
+}
@@ -0,0 +1,7 @@
+package model;
+
+import com.google.gson.annotations.JsonAdapter;
+
+@JsonAdapter(ModelJson.class)
+public record ErrorResult(String message) {
+}
@@ -1,6 +1,8 @@
 package model;
 
 import chess.ChessGame;
+import com.google.gson.annotations.JsonAdapter;
 
+@JsonAdapter(ModelJson.class)
 public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
 }
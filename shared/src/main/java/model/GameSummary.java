@@ -0,0 +1,13 @@
+package model;
+
+import com.google.gson.annotations.JsonAdapter;
+
+/**
+ * What the lobby shows of a game: its ID, name and players, without the board
+ */
+@JsonAdapter(ModelJson.class)
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName) {
+    public static GameSummary of(GameData game) {
+        return new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName());
+    }
+}
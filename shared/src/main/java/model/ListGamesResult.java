@@ -0,0 +1,9 @@
+package model;
+
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.Collection;
+
+@JsonAdapter(ModelJson.class)
+public record ListGamesResult(Collection<GameSummary> games) {
+}
@@ -0,0 +1,341 @@
+package model;
+
+import chess.ChessGame;
+import chess.ChessGameAdapter;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming JSON adapters for the model records and the request and response bodies
+ * <p>
+ * Each record names this factory in its {@code @JsonAdapter}, so any {@link Gson} reads and
+ * writes it field by field through {@link JsonReader} and {@link JsonWriter} instead of by
+ * reflection. Field names match what reflective Gson produced, null fields are left out unless
+ * the writer serializes nulls, and unknown fields are skipped when reading.
+ */
+public final class ModelJson implements TypeAdapterFactory {
+    private static final ChessGameAdapter GAME = new ChessGameAdapter();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        TypeAdapter<?> adapter;
+        if (raw == AuthData.class) {
+            adapter = AUTH_DATA;
+        } else if (raw == UserData.class) {
+            adapter = USER_DATA;
+        } else if (raw == GameData.class) {
+            adapter = GAME_DATA;
+        } else if (raw == GameSummary.class) {
+            adapter = GAME_SUMMARY;
+        } else if (raw == ListGamesResult.class) {
+            adapter = LIST_GAMES_RESULT;
+        } else if (raw == CreateGameRequest.class) {
+            adapter = CREATE_GAME_REQUEST;
+        } else if (raw == CreateGameResult.class) {
+            adapter = CREATE_GAME_RESULT;
+        } else if (raw == JoinGameRequest.class) {
+            adapter = JOIN_GAME_REQUEST;
+        } else if (raw == ErrorResult.class) {
+            adapter = ERROR_RESULT;
+        } else {
+            return null;
+        }
+        return (TypeAdapter<T>) adapter.nullSafe();
+    }
+
+    private static final TypeAdapter<AuthData> AUTH_DATA = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, AuthData value) throws IOException {
+            out.beginObject();
+            string(out, "authToken", value.authToken());
+            string(out, "username", value.username());
+            out.endObject();
+        }
+
+        @Override
+        public AuthData read(JsonReader in) throws IOException {
+            String authToken = null;
+            String username = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "authToken" -> authToken = string(in);
+                    case "username" -> username = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new AuthData(authToken, username);
+        }
+    };
+
+    private static final TypeAdapter<UserData> USER_DATA = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, UserData value) throws IOException {
+            out.beginObject();
+            string(out, "username", value.username());
+            string(out, "password", value.password());
+            string(out, "email", value.email());
+            out.endObject();
+        }
+
+        @Override
+        public UserData read(JsonReader in) throws IOException {
+            String username = null;
+            String password = null;
+            String email = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username" -> username = string(in);
+                    case "password" -> password = string(in);
+                    case "email" -> email = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new UserData(username, password, email);
+        }
+    };
+
+    private static final TypeAdapter<GameData> GAME_DATA = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, GameData value) throws IOException {
+            out.beginObject();
+            out.name("gameID").value(value.gameID());
+            string(out, "whiteUsername", value.whiteUsername());
+            string(out, "blackUsername", value.blackUsername());
+            string(out, "gameName", value.gameName());
+            if (value.game() != null || out.getSerializeNulls()) {
+                out.name("game");
+                GAME.write(out, value.game());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public GameData read(JsonReader in) throws IOException {
+            int gameID = 0;
+            String whiteUsername = null;
+            String blackUsername = null;
+            String gameName = null;
+            ChessGame game = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "gameID" -> gameID = in.nextInt();
+                    case "whiteUsername" -> whiteUsername = string(in);
+                    case "blackUsername" -> blackUsername = string(in);
+                    case "gameName" -> gameName = string(in);
+                    case "game" -> game = GAME.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+        }
+    };
+
+    private static final TypeAdapter<GameSummary> GAME_SUMMARY = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, GameSummary value) throws IOException {
+            out.beginObject();
+            out.name("gameID").value(value.gameID());
+            string(out, "whiteUsername", value.whiteUsername());
+            string(out, "blackUsername", value.blackUsername());
+            string(out, "gameName", value.gameName());
+            out.endObject();
+        }
+
+        @Override
+        public GameSummary read(JsonReader in) throws IOException {
+            int gameID = 0;
+            String whiteUsername = null;
+            String blackUsername = null;
+            String gameName = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "gameID" -> gameID = in.nextInt();
+                    case "whiteUsername" -> whiteUsername = string(in);
+                    case "blackUsername" -> blackUsername = string(in);
+                    case "gameName" -> gameName = string(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new GameSummary(gameID, whiteUsername, blackUsername, gameName);
+        }
+    };
+
+    private static final TypeAdapter<ListGamesResult> LIST_GAMES_RESULT = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, ListGamesResult value) throws IOException {
+            out.beginObject();
+            if (value.games() != null || out.getSerializeNulls()) {
+                out.name("games");
+                if (value.games() == null) {
+                    out.nullValue();
+                } else {
+                    out.beginArray();
+                    for (GameSummary game : value.games()) {
+                        GAME_SUMMARY.nullSafe().write(out, game);
+                    }
+                    out.endArray();
+                }
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ListGamesResult read(JsonReader in) throws IOException {
+            List<GameSummary> games = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("games") && in.peek() != JsonToken.NULL) {
+                    games = new ArrayList<>();
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        games.add(GAME_SUMMARY.nullSafe().read(in));
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ListGamesResult(games);
+        }
+    };
+
+    private static final TypeAdapter<CreateGameRequest> CREATE_GAME_REQUEST = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, CreateGameRequest value) throws IOException {
+            out.beginObject();
+            string(out, "gameName", value.gameName());
+            out.endObject();
+        }
+
+        @Override
+        public CreateGameRequest read(JsonReader in) throws IOException {
+            String gameName = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("gameName")) {
+                    gameName = string(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new CreateGameRequest(gameName);
+        }
+    };
+
+    private static final TypeAdapter<CreateGameResult> CREATE_GAME_RESULT = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, CreateGameResult value) throws IOException {
+            out.beginObject();
+            out.name("gameID").value(value.gameID());
+            out.endObject();
+        }
+
+        @Override
+        public CreateGameResult read(JsonReader in) throws IOException {
+            int gameID = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("gameID")) {
+                    gameID = in.nextInt();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new CreateGameResult(gameID);
+        }
+    };
+
+    private static final TypeAdapter<JoinGameRequest> JOIN_GAME_REQUEST = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, JoinGameRequest value) throws IOException {
+            out.beginObject();
+            string(out, "playerColor", value.playerColor());
+            if (value.gameID() != null || out.getSerializeNulls()) {
+                out.name("gameID").value(value.gameID());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public JoinGameRequest read(JsonReader in) throws IOException {
+            String playerColor = null;
+            Integer gameID = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "playerColor" -> playerColor = string(in);
+                    case "gameID" -> {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            gameID = in.nextInt();
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new JoinGameRequest(playerColor, gameID);
+        }
+    };
+
+    private static final TypeAdapter<ErrorResult> ERROR_RESULT = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, ErrorResult value) throws IOException {
+            out.beginObject();
+            string(out, "message", value.message());
+            out.endObject();
+        }
+
+        @Override
+        public ErrorResult read(JsonReader in) throws IOException {
+            String message = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("message")) {
+                    message = string(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ErrorResult(message);
+        }
+    };
+
+    private static void string(JsonWriter out, String name, String value) throws IOException {
+        if (value != null || out.getSerializeNulls()) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static String string(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
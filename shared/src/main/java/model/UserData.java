@@ -1,4 +1,7 @@
 package model;
 
+import com.google.gson.annotations.JsonAdapter;
+
+@JsonAdapter(ModelJson.class)
 public record UserData(String username, String password, String email) {
 }
@@ -0,0 +1,83 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AllValidMovesTest {
+
+    private static void assertMatchesValidMoves(ChessGame game, ChessGame.TeamColor color) {
+        Map<ChessPosition, Collection<ChessMove>> all = game.allValidMoves(color);
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(position);
+                if (piece == null || piece.getTeamColor() != color) {
+                    assertFalse(all.containsKey(position));
+                    continue;
+                }
+                var expected = new HashSet<>(game.simulatedValidMoves(position));
+                var actual = new HashSet<>(all.getOrDefault(position, List.of()));
+                assertEquals(expected, actual, "moves from " + SanNotation.squareName(position)
+                        + " in " + Fen.format(game));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("pinned piece only moves along the pin")
+    void pinnedPiece() {
+        ChessGame game = Fen.parse("4k3/8/8/8/4r3/8/4R3/4K3 w - - 0 1");
+
+        var moves = game.allValidMoves(ChessGame.TeamColor.WHITE).get(SanNotation.parseSquare("e2"));
+
+        assertEquals(2, moves.size());
+        assertMatchesValidMoves(game, ChessGame.TeamColor.WHITE);
+    }
+
+    @Test
+    @DisplayName("double check leaves only king moves")
+    void doubleCheck() {
+        ChessGame game = Fen.parse("4r2k/8/8/8/8/3n4/8/R3K3 w - - 0 1");
+
+        var all = game.allValidMoves(ChessGame.TeamColor.WHITE);
+
+        assertEquals(1, all.size());
+        assertTrue(all.containsKey(SanNotation.parseSquare("e1")));
+        assertMatchesValidMoves(game, ChessGame.TeamColor.WHITE);
+    }
+
+    @Test
+    @DisplayName("king cannot retreat along checking line")
+    void retreatAlongCheck() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/4K3/4r3 w - - 0 1");
+
+        assertMatchesValidMoves(game, ChessGame.TeamColor.WHITE);
+    }
+
+    @Test
+    @DisplayName("matches validMoves during random play")
+    void randomPlay() throws InvalidMoveException {
+        Random random = new Random(29);
+        for (int gameNumber = 0; gameNumber < 30; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 100; ply++) {
+                assertMatchesValidMoves(game, ChessGame.TeamColor.WHITE);
+                assertMatchesValidMoves(game, ChessGame.TeamColor.BLACK);
+                List<ChessMove> moves = new ArrayList<>();
+                game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+}
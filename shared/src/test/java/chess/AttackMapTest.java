@@ -0,0 +1,73 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackMapTest {
+
+    private static long maskOf(String... squares) {
+        long mask = 0;
+        for (String square : squares) {
+            mask |= 1L << AttackMap.squareIndex(SanNotation.parseSquare(square));
+        }
+        return mask;
+    }
+
+    @Test
+    @DisplayName("rook attacks stop at blockers")
+    void rookAttacks() {
+        ChessBoard board = Fen.parsePlacement("8/8/8/3p4/8/8/3R4/8");
+
+        assertEquals(maskOf("d1", "d3", "d4", "d5", "a2", "b2", "c2", "e2", "f2", "g2", "h2"),
+                board.getAttackMask(ChessGame.TeamColor.WHITE));
+        assertEquals(maskOf("c4", "e4"), board.getAttackMask(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("moving a blocker extends slider rays")
+    void blockerMoves() {
+        ChessBoard board = Fen.parsePlacement("8/8/8/3p4/8/8/3R4/8");
+        assertFalse(board.isAttacked(SanNotation.parseSquare("d7"), ChessGame.TeamColor.WHITE));
+
+        board.addPiece(SanNotation.parseSquare("d5"), null);
+
+        assertTrue(board.isAttacked(SanNotation.parseSquare("d7"), ChessGame.TeamColor.WHITE));
+        assertEquals(0, board.getAttackMask(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("incremental maps match rebuilt maps during random play")
+    void randomPlay() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            ChessGame game = new ChessGame();
+            game.getBoard().getAttackMask(ChessGame.TeamColor.WHITE);
+            for (int ply = 0; ply < 80; ply++) {
+                List<ChessMove> moves = new ArrayList<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPosition position = new ChessPosition(row, col);
+                        ChessPiece piece = game.getBoard().getPiece(position);
+                        if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                            moves.addAll(game.validMoves(position));
+                        }
+                    }
+                }
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+
+                ChessBoard rebuilt = new ChessBoard(game.getBoard());
+                for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                    assertEquals(rebuilt.getAttackMask(color), game.getBoard().getAttackMask(color));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * Compares positions per second of evaluating one board at a time and evaluating a batch
+ * <p>
+ * Optional arguments: position count (default 200000) and rounds (default 20).
+ */
+public class BatchEvaluatorBenchmark {
+    public static void main(String[] args) throws InvalidMoveException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        List<ChessBoard> boards = BatchEvaluatorTest.randomBoards(count, 240);
+        PositionBatch batch = new PositionBatch(count);
+        boards.forEach(batch::add);
+        int[] scores = new int[count];
+
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (ChessBoard board : boards) {
+            checksum += Evaluator.evaluate(board);
+        }
+        report("one board at a time", count, System.nanoTime() - start, checksum);
+
+        BatchEvaluator evaluator = BatchEvaluator.scalar();
+        for (int round = 0; round < rounds / 2; round++) {
+            evaluator.evaluate(batch, scores);
+        }
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            evaluator.evaluate(batch, scores);
+        }
+        checksum = 0;
+        for (int score : scores) {
+            checksum += score;
+        }
+        report(evaluator.name(), (long) count * rounds, System.nanoTime() - start, checksum);
+    }
+
+    private static void report(String label, long positions, long nanos, long checksum) {
+        System.out.printf("%-20s %,14d positions/s  (checksum %d)%n",
+                label, positions * 1_000_000_000L / Math.max(nanos, 1), checksum);
+    }
+}
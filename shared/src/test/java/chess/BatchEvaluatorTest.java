@@ -0,0 +1,66 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchEvaluatorTest {
+
+    /**
+     * @return boards from random games
+     */
+    static List<ChessBoard> randomBoards(int count, long seed) throws InvalidMoveException {
+        Random random = new Random(seed);
+        List<ChessBoard> boards = new ArrayList<>();
+        ChessGame game = new ChessGame();
+        while (boards.size() < count) {
+            List<ChessMove> moves = new ArrayList<>();
+            game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+            if (moves.isEmpty() || random.nextInt(120) == 0) {
+                game = new ChessGame();
+                continue;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+            boards.add(new ChessBoard(game.getBoard()));
+        }
+        return boards;
+    }
+
+    private static void assertMatchesEvaluator(BatchEvaluator evaluator) throws InvalidMoveException {
+        List<ChessBoard> boards = randomBoards(1001, 33);
+        PositionBatch batch = new PositionBatch(boards.size());
+        boards.forEach(batch::add);
+        int[] scores = new int[batch.size()];
+
+        evaluator.evaluate(batch, scores);
+
+        for (int i = 0; i < boards.size(); i++) {
+            assertEquals(Evaluator.evaluate(boards.get(i)), scores[i], evaluator.name() + " position " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("scalar batch matches single-board evaluation")
+    void scalar() throws InvalidMoveException {
+        assertMatchesEvaluator(BatchEvaluator.scalar());
+    }
+
+    @Test
+    @DisplayName("cleared batch can be refilled")
+    void clear() {
+        PositionBatch batch = new PositionBatch(1);
+        batch.add(new ChessGame().getBoard());
+        assertThrows(IllegalStateException.class, () -> batch.add(new ChessBoard()));
+
+        batch.clear();
+        batch.add(new ChessBoard());
+        int[] scores = new int[1];
+        BatchEvaluator.scalar().evaluate(batch, scores);
+
+        assertEquals(0, scores[0]);
+    }
+}
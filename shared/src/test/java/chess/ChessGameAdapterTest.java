@@ -0,0 +1,126 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameAdapterTest {
+    private final Gson gson = new Gson();
+    private final Gson historyGson = new GsonBuilder()
+            .registerTypeAdapter(ChessGame.class, ChessGameAdapter.withHistory()).create();
+
+    private record Holder(int id, ChessGame game, ChessBoard board) {
+    }
+
+    @Test
+    @DisplayName("a new game is its placement and side to move")
+    void newGame() {
+        assertEquals("\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w\"", gson.toJson(new ChessGame()));
+        assertEquals(new ChessGame(), gson.fromJson("\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w\"", ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("a played game is written as its current position alone")
+    void snapshot() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : ConcurrentChessGameTest.randomLine(41, 30)) {
+            game.makeMove(move);
+        }
+
+        String json = gson.toJson(game);
+        assertEquals("\"" + Fen.formatPlacement(game.getBoard()) + " w\"", json);
+        ChessGame copy = gson.fromJson(json, ChessGame.class);
+        assertEquals(game, copy);
+        assertTrue(copy.getMoveHistory().isEmpty());
+    }
+
+    @Test
+    @DisplayName("history and current ply survive a round trip when asked for")
+    void history() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : ConcurrentChessGameTest.randomLine(41, 30)) {
+            game.makeMove(move);
+        }
+        game.seek(17);
+
+        String json = historyGson.toJson(game);
+        assertTrue(json.startsWith("\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w ply 17 moves "), json);
+        for (Gson reader : new Gson[]{gson, historyGson}) {
+            ChessGame copy = reader.fromJson(json, ChessGame.class);
+            assertEquals(game, copy);
+            assertEquals(17, copy.getPly());
+            assertEquals(game.getMoveHistory(), copy.getMoveHistory());
+        }
+        assertEquals(json, historyGson.toJson(historyGson.fromJson(json, ChessGame.class)));
+    }
+
+    @Test
+    @DisplayName("promotions and a custom start are kept")
+    void promotion() throws InvalidMoveException {
+        ChessGame game = Fen.parse("8/4P1k1/8/8/8/8/8/4K3 w - - 0 1");
+        game.makeMove(new ChessMove(SanNotation.parseSquare("e7"), SanNotation.parseSquare("e8"),
+                ChessPiece.PieceType.KNIGHT));
+
+        String json = historyGson.toJson(game);
+        assertEquals("\"8/4P1k1/8/8/8/8/8/4K3 w moves e7e8n\"", json);
+        ChessGame copy = historyGson.fromJson(json, ChessGame.class);
+        assertEquals(game, copy);
+        assertTrue(copy.undo());
+        assertEquals(Fen.parse("8/4P1k1/8/8/8/8/8/4K3 w - - 0 1"), copy);
+    }
+
+    @Test
+    @DisplayName("nested games and boards are written compactly after moves were generated")
+    void nested() {
+        ChessGame game = new ChessGame();
+        game.getBoard().getPiece(new ChessPosition(1, 2)).pieceMoves(game.getBoard(), new ChessPosition(1, 2));
+        game.validMoves(new ChessPosition(2, 5));
+        Holder holder = new Holder(7, game, game.getBoard());
+
+        String json = gson.toJson(holder);
+        assertEquals("{\"id\":7,\"game\":\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w\","
+                + "\"board\":\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR\"}", json);
+        assertEquals(holder, gson.fromJson(json, Holder.class));
+        assertEquals(new Holder(1, null, null), gson.fromJson(gson.toJson(new Holder(1, null, null)), Holder.class));
+    }
+
+    @Test
+    @DisplayName("reads games stored field by field before the adapter existed")
+    void legacy() {
+        StringBuilder rows = new StringBuilder("[");
+        for (int row = 1; row <= 8; row++) {
+            rows.append(row > 1 ? "," : "").append("[");
+            for (int col = 1; col <= 8; col++) {
+                rows.append(col > 1 ? "," : "");
+                if (row == 1 && col == 5) {
+                    rows.append("{\"pieceColor\":\"WHITE\",\"type\":\"KING\"}");
+                } else if (row == 7 && col == 1) {
+                    rows.append("{\"pieceColor\":\"BLACK\",\"type\":\"PAWN\"}");
+                } else {
+                    rows.append("null");
+                }
+            }
+            rows.append("]");
+        }
+        rows.append("]");
+        String json = "{\"board\":{\"board\":" + rows + "},\"currentTurn\":\"BLACK\"}";
+
+        assertEquals(Fen.parse("8/p7/8/8/8/8/8/4K3 b - - 0 1"), gson.fromJson(json, ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"currentTurn\":\"BLACK\"}", ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("malformed games are rejected")
+    void malformed() {
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8 w\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8/8/8/8/8/4K3 x\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8/8/8/8/8/4K3 w moves e2e4\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8/8/8/8/8/4K3 w moves zz\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8/8/8/8/8/4K3 w ply 3 moves e1e2\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8/8/8/8/8/4K3 w castles\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8/8/8/8/8/8/4K3x\"", ChessBoard.class));
+    }
+}
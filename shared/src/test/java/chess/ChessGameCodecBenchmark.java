@@ -0,0 +1,94 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares size and speed of {@link ChessGameCodec} with Gson's {@link ChessGameAdapter} path
+ * <p>
+ * Games are random lines of play, measured both as bare positions and with their history.
+ * Optional arguments: game count (default 2000), plies per game (default 80) and rounds
+ * (default 20).
+ */
+public class ChessGameCodecBenchmark {
+    public static void main(String[] args) throws InvalidMoveException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 80;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        List<ChessGame> withHistory = new ArrayList<>();
+        List<ChessGame> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChessGame game = new ChessGame();
+            for (ChessMove move : ConcurrentChessGameTest.randomLine(i, plies)) {
+                game.makeMove(move);
+            }
+            withHistory.add(game);
+            positions.add(Fen.parse(Fen.format(game)));
+        }
+        run("position", positions, new Gson(), rounds);
+        run("with history", withHistory, new GsonBuilder()
+                .registerTypeAdapter(ChessGame.class, ChessGameAdapter.withHistory()).create(), rounds);
+    }
+
+    private static void run(String label, List<ChessGame> games, Gson gson, int rounds) {
+        String[] json = new String[games.size()];
+        long jsonBytes = 0;
+        for (int i = 0; i < json.length; i++) {
+            json[i] = gson.toJson(games.get(i));
+            jsonBytes += json[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(games.stream().mapToInt(ChessGameCodec::encodedSize).sum());
+        games.forEach(game -> ChessGameCodec.encode(game, buffer));
+        long binaryBytes = buffer.position();
+
+        long checksum = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean report = pass == 1;
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (ChessGame game : games) {
+                    checksum += gson.toJson(game).length();
+                }
+            }
+            long gsonEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (String text : json) {
+                    checksum += gson.fromJson(text, ChessGame.class).getPly();
+                }
+            }
+            long gsonDecode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                buffer.clear();
+                for (ChessGame game : games) {
+                    ChessGameCodec.encode(game, buffer);
+                }
+                checksum += buffer.position();
+            }
+            long binaryEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    checksum += ChessGameCodec.decode(buffer).getPly();
+                }
+                buffer.position(buffer.limit());
+            }
+            long binaryDecode = System.nanoTime() - start;
+            if (report) {
+                long ops = (long) games.size() * rounds;
+                System.out.printf("%-13s gson   %6.1f bytes/game  encode %,8d ns  decode %,8d ns%n",
+                        label, (double) jsonBytes / games.size(), gsonEncode / ops, gsonDecode / ops);
+                System.out.printf("%-13s binary %6.1f bytes/game  encode %,8d ns  decode %,8d ns  (checksum %d)%n",
+                        label, (double) binaryBytes / games.size(), binaryEncode / ops, binaryDecode / ops, checksum);
+            }
+        }
+    }
+}
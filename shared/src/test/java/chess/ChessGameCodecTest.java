@@ -0,0 +1,102 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameCodecTest {
+
+    private static ChessGame roundTrip(ChessGame game) {
+        byte[] bytes = ChessGameCodec.encode(game);
+        assertEquals(ChessGameCodec.encodedSize(game), bytes.length);
+        return ChessGameCodec.decode(bytes);
+    }
+
+    @Test
+    @DisplayName("the start position takes 26 bytes")
+    void startPosition() {
+        byte[] bytes = ChessGameCodec.encode(new ChessGame());
+
+        // version, flags, occupancy and 32 four-bit pieces
+        assertEquals(26, bytes.length);
+        assertEquals(ChessGameCodec.VERSION, bytes[0]);
+        assertEquals(0, bytes[1]);
+        assertEquals(new ChessGame(), ChessGameCodec.decode(bytes));
+    }
+
+    @Test
+    @DisplayName("positions, side to move and history round-trip")
+    void randomGames() throws InvalidMoveException {
+        for (long seed = 0; seed < 20; seed++) {
+            ChessGame game = new ChessGame();
+            for (ChessMove move : ConcurrentChessGameTest.randomLine(seed, 150)) {
+                game.makeMove(move);
+            }
+            ChessGame copy = roundTrip(game);
+            assertEquals(game, copy);
+            assertEquals(game.getMoveHistory(), copy.getMoveHistory());
+
+            game.seek(game.getPly() / 3);
+            copy = roundTrip(game);
+            assertEquals(game, copy);
+            assertEquals(game.getPly(), copy.getPly());
+            assertTrue(copy.redo() || game.getMoveHistory().isEmpty());
+
+            ChessGame position = Fen.parse(Fen.format(game));
+            position.setTeamTurn(ChessGame.TeamColor.BLACK);
+            assertEquals(position, roundTrip(position));
+        }
+    }
+
+    @Test
+    @DisplayName("promotions and a custom start survive; an odd piece count pads a nibble")
+    void promotion() throws InvalidMoveException {
+        ChessGame game = Fen.parse("8/4P1k1/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(2 + 8 + 2, ChessGameCodec.encodedSize(game));
+        game.makeMove(new ChessMove(SanNotation.parseSquare("e7"), SanNotation.parseSquare("e8"),
+                ChessPiece.PieceType.QUEEN));
+
+        ChessGame copy = roundTrip(game);
+        assertEquals(game, copy);
+        assertTrue(copy.undo());
+        assertEquals(Fen.parse("8/4P1k1/8/8/8/8/8/4K3 w - - 0 1"), copy);
+    }
+
+    @Test
+    @DisplayName("reads and writes in place regardless of the buffer's byte order")
+    void inPlace() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/R3K3 b - - 0 1");
+        ByteBuffer big = ByteBuffer.allocate(64);
+        ByteBuffer little = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        big.put((byte) 9);
+        little.put((byte) 9);
+        ChessGameCodec.encode(game, big);
+        ChessGameCodec.encode(game, little);
+        assertArrayEquals(big.array(), little.array());
+
+        big.flip().get();
+        assertEquals(game, ChessGameCodec.decode(big));
+        assertFalse(big.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("rejects unknown versions and damaged data")
+    void malformed() {
+        byte[] bytes = ChessGameCodec.encode(new ChessGame());
+        byte[] version = bytes.clone();
+        version[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(version));
+        byte[] flags = bytes.clone();
+        flags[1] = 8;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(flags));
+        byte[] piece = bytes.clone();
+        piece[10] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> ChessGameCodec.decode(piece));
+        assertThrows(BufferUnderflowException.class,
+                () -> ChessGameCodec.decode(java.util.Arrays.copyOf(bytes, 20)));
+    }
+}
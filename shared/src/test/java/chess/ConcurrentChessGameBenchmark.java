@@ -0,0 +1,133 @@
+package chess;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares read throughput of {@link ConcurrentChessGame} with a game guarded by one monitor
+ * while a writer keeps replaying a game
+ * <p>
+ * Optional arguments: reader threads (default 4), seconds per run (default 3) and the
+ * writer's pause between moves in microseconds (default 50).
+ */
+public class ConcurrentChessGameBenchmark {
+
+    /**
+     * The coarse alternative: every call synchronizes on the game
+     */
+    private static final class SynchronizedGame {
+        private final ChessGame game = new ChessGame();
+
+        synchronized void makeMove(ChessMove move) throws InvalidMoveException {
+            game.makeMove(move);
+        }
+
+        synchronized void setBoard(ChessBoard board) {
+            game.setBoard(new ChessBoard(board));
+        }
+
+        synchronized ChessGame.TeamColor getTeamTurn() {
+            return game.getTeamTurn();
+        }
+
+        synchronized boolean isInCheck(ChessGame.TeamColor color) {
+            return game.isInCheck(color);
+        }
+
+        synchronized java.util.Collection<ChessMove> validMoves(ChessPosition position) {
+            return game.getBoard().getPiece(position) == null ? null : game.validMoves(position);
+        }
+    }
+
+    private interface Target {
+        void move(ChessMove move) throws InvalidMoveException;
+
+        void reset(ChessBoard board);
+
+        void read(ChessPosition square);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 3;
+        long pauseMicros = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        List<ChessMove> line = ConcurrentChessGameTest.randomLine(11, 60);
+
+        SynchronizedGame coarse = new SynchronizedGame();
+        ConcurrentChessGame stamped = new ConcurrentChessGame();
+        for (int run = 0; run < 2; run++) {
+            run("synchronized", readers, seconds, pauseMicros, line, new Target() {
+                public void move(ChessMove move) throws InvalidMoveException {
+                    coarse.makeMove(move);
+                }
+
+                public void reset(ChessBoard board) {
+                    coarse.setBoard(board);
+                }
+
+                public void read(ChessPosition square) {
+                    coarse.validMoves(square);
+                    coarse.isInCheck(coarse.getTeamTurn());
+                }
+            });
+            run("StampedLock", readers, seconds, pauseMicros, line, new Target() {
+                public void move(ChessMove move) throws InvalidMoveException {
+                    stamped.makeMove(move);
+                }
+
+                public void reset(ChessBoard board) {
+                    stamped.setBoard(board);
+                }
+
+                public void read(ChessPosition square) {
+                    stamped.validMoves(square);
+                    stamped.isInCheck(stamped.getTeamTurn());
+                }
+            });
+        }
+    }
+
+    private static void run(String label, int readers, long seconds, long pauseMicros, List<ChessMove> line,
+                            Target target) throws InterruptedException {
+        ChessBoard start = new ChessGame().getBoard();
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder reads = new LongAdder();
+        LongAdder moves = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(readers + 1);
+        Thread writer = new Thread(() -> {
+            try {
+                while (!stop.get()) {
+                    for (ChessMove move : line) {
+                        target.move(move);
+                        moves.increment();
+                        java.util.concurrent.locks.LockSupport.parkNanos(pauseMicros * 1000);
+                    }
+                    target.reset(start);
+                }
+            } catch (InvalidMoveException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                finished.countDown();
+            }
+        });
+        writer.start();
+        for (int i = 0; i < readers; i++) {
+            new Thread(() -> {
+                ChessPosition[] squares = {new ChessPosition(1, 7), new ChessPosition(2, 5), new ChessPosition(8, 2)};
+                int n = 0;
+                while (!stop.get()) {
+                    target.read(squares[n++ % squares.length]);
+                    reads.increment();
+                }
+                finished.countDown();
+            }).start();
+        }
+        Thread.sleep(seconds * 1000);
+        stop.set(true);
+        finished.await();
+        System.out.printf("%-14s %,14d reads/s  %,10d moves/s%n",
+                label, reads.sum() / seconds, moves.sum() / seconds);
+    }
+}
@@ -0,0 +1,196 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentChessGameTest {
+
+    /**
+     * @return a random line of play with an even number of plies, so it ends with white to move
+     */
+    static List<ChessMove> randomLine(long seed, int plies) throws InvalidMoveException {
+        Random random = new Random(seed);
+        ChessGame game = new ChessGame();
+        List<ChessMove> line = new ArrayList<>();
+        while (line.size() < plies) {
+            List<ChessMove> moves = new ArrayList<>();
+            game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+            if (moves.isEmpty()) {
+                break;
+            }
+            ChessMove move = moves.get(random.nextInt(moves.size()));
+            game.makeMove(move);
+            line.add(move);
+        }
+        return line.size() % 2 == 0 ? line : line.subList(0, line.size() - 1);
+    }
+
+    @Test
+    @DisplayName("answers like the game it wraps")
+    void matchesChessGame() throws InvalidMoveException {
+        ChessGame plain = new ChessGame();
+        ConcurrentChessGame guarded = new ConcurrentChessGame();
+        for (ChessMove move : randomLine(39, 80)) {
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                assertEquals(plain.isInCheck(color), guarded.isInCheck(color));
+                assertEquals(plain.isInCheckmate(color), guarded.isInCheckmate(color));
+                assertEquals(plain.isInStalemate(color), guarded.isInStalemate(color));
+                assertEquals(plain.allValidMoves(color), guarded.allValidMoves(color));
+            }
+            for (int square = 0; square < 64; square++) {
+                ChessPosition position = new ChessPosition(square / 8 + 1, square % 8 + 1);
+                if (plain.getBoard().getPiece(position) == null) {
+                    assertNull(guarded.validMoves(position));
+                } else {
+                    assertEquals(new HashSet<>(plain.validMoves(position)), new HashSet<>(guarded.validMoves(position)));
+                }
+            }
+            assertTrue(guarded.isLegal(move));
+            assertFalse(guarded.isLegal(new ChessMove(move.getEndPosition(), move.getEndPosition(), null)));
+            plain.makeMove(move);
+            guarded.makeMove(move);
+            assertEquals(plain, guarded.snapshot());
+        }
+        assertThrows(InvalidMoveException.class, () -> guarded.makeMove(
+                new ChessMove(new ChessPosition(4, 4), new ChessPosition(5, 4), null)));
+    }
+
+    @Test
+    @DisplayName("handed-out boards do not change the game")
+    void copies() {
+        ConcurrentChessGame game = new ConcurrentChessGame();
+        game.getBoard().addPiece(new ChessPosition(4, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        ChessBoard board = new ChessBoard();
+        game.setBoard(board);
+        board.resetBoard();
+
+        assertEquals(new ChessBoard(), game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("generating moves on a handed-out board does not disturb the game's readers")
+    void generateOnCopies() throws Exception {
+        ChessGame reference = new ChessGame();
+        for (ChessMove move : randomLine(11, 20)) {
+            reference.makeMove(move);
+        }
+        ChessGame.TeamColor turn = reference.getTeamTurn();
+        var expected = reference.allValidMoves(turn);
+        // a copy moves its pieces to other squares, so the same piece objects sit elsewhere on it
+        List<ChessMove> replies = new ArrayList<>();
+        expected.values().forEach(replies::addAll);
+        List<Map<ChessPosition, Collection<ChessMove>>> expectedAfter = new ArrayList<>();
+        for (ChessMove reply : replies) {
+            ChessBoard after = new ChessBoard(reference.getBoard());
+            GameHistory.apply(after, reply);
+            expectedAfter.add(LegalMoveGenerator.generate(after, turn));
+        }
+        ConcurrentChessGame game = new ConcurrentChessGame(Fen.parse(Fen.format(reference)));
+        LegalMoveCache.shared().clear();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int worker = 0; worker < 4; worker++) {
+                boolean onCopy = worker % 2 == 0;
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        if (onCopy) {
+                            int reply = i % replies.size();
+                            ChessBoard copy = i % 2 == 0 ? game.getBoard() : game.snapshot().getBoard();
+                            GameHistory.apply(copy, replies.get(reply));
+                            assertEquals(expectedAfter.get(reply), LegalMoveGenerator.generate(copy, turn));
+                        } else {
+                            assertEquals(expected, game.allValidMoves(turn));
+                            if (i % 100 == 0) {
+                                LegalMoveCache.shared().clear();
+                            }
+                            for (var entry : expected.entrySet()) {
+                                assertEquals(new HashSet<>(entry.getValue()),
+                                        new HashSet<>(game.validMoves(entry.getKey())));
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("readers only ever see positions the writer actually reached")
+    void stress() throws Exception {
+        List<ChessMove> line = randomLine(7, 60);
+        Set<ChessGame> reachable = new HashSet<>();
+        ChessGame replay = new ChessGame();
+        reachable.add(Fen.parse(Fen.format(replay)));
+        for (ChessMove move : line) {
+            replay.makeMove(move);
+            reachable.add(Fen.parse(Fen.format(replay)));
+        }
+        ChessBoard start = new ChessGame().getBoard();
+
+        ConcurrentChessGame game = new ConcurrentChessGame();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (int round = 0; round < 200; round++) {
+                    for (ChessMove move : line) {
+                        game.makeMove(move);
+                    }
+                    game.setBoard(start);
+                }
+                done.set(true);
+                return null;
+            });
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 4; reader++) {
+                readers.add(pool.submit(() -> {
+                    int reads = 0;
+                    while (!done.get()) {
+                        ChessGame seen = game.snapshot();
+                        assertTrue(reachable.contains(seen), Fen.format(seen));
+                        assertFalse(game.isInCheckmate(ChessGame.TeamColor.WHITE)
+                                && game.isInCheckmate(ChessGame.TeamColor.BLACK));
+                        for (ChessPosition square : game.allValidMoves(game.getTeamTurn()).keySet()) {
+                            game.validMoves(square);
+                        }
+                        game.isInCheck(ChessGame.TeamColor.BLACK);
+                        reads++;
+                    }
+                    return reads;
+                }));
+            }
+            writer.get();
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get() > 0);
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(new ChessGame(), game.snapshot());
+    }
+}
@@ -0,0 +1,115 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameHistoryTest {
+
+    /**
+     * @return a game after a random line of play, and the position after each of its plies
+     */
+    private static List<ChessGame> play(ChessGame game, long seed, int plies) throws InvalidMoveException {
+        List<ChessGame> positions = new ArrayList<>();
+        positions.add(Fen.parse(Fen.format(game)));
+        for (ChessMove move : ConcurrentChessGameTest.randomLine(seed, plies)) {
+            game.makeMove(move);
+            positions.add(Fen.parse(Fen.format(game)));
+        }
+        return positions;
+    }
+
+    @Test
+    @DisplayName("seeking reaches every ply in any order")
+    void seekAnywhere() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<ChessGame> positions = play(game, 40, 300);
+        int last = positions.size() - 1;
+        assertEquals(last, game.getPly());
+        assertEquals(last, game.getMoveHistory().size());
+
+        for (int ply : new int[]{0, last, 57, 56, 58, 16, 15, 17, last - 1, 1, 32, 31, 0}) {
+            game.seek(ply);
+            assertEquals(positions.get(ply), game, "ply " + ply);
+            assertEquals(ply, game.getPly());
+        }
+        assertThrows(IllegalArgumentException.class, () -> game.seek(last + 1));
+        assertThrows(IllegalArgumentException.class, () -> game.seek(-1));
+    }
+
+    @Test
+    @DisplayName("undo and redo walk the history; a new move drops what was undone")
+    void undoRedo() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        List<ChessGame> positions = play(game, 41, 40);
+        int last = positions.size() - 1;
+
+        assertFalse(game.redo());
+        for (int ply = last - 1; ply >= 0; ply--) {
+            assertTrue(game.undo());
+            assertEquals(positions.get(ply), game);
+        }
+        assertFalse(game.undo());
+        for (int ply = 1; ply <= 20; ply++) {
+            assertTrue(game.redo());
+            assertEquals(positions.get(ply), game);
+        }
+
+        ChessMove replaced = game.getMoveHistory().get(20);
+        ChessMove other = game.allValidMoves(game.getTeamTurn()).values().stream().flatMap(java.util.Collection::stream)
+                .filter(move -> !move.equals(replaced)).findFirst().orElseThrow();
+        game.makeMove(other);
+        assertEquals(21, game.getMoveHistory().size());
+        assertFalse(game.redo());
+        assertTrue(game.undo());
+        assertEquals(positions.get(20), game);
+    }
+
+    @Test
+    @DisplayName("history starts from a position set with setBoard")
+    void customStart() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/R3K3 b - - 0 1");
+        ChessGame start = Fen.parse("4k3/8/8/8/8/8/8/R3K3 b - - 0 1");
+        assertFalse(game.undo());
+        game.seek(0);
+
+        game.makeMove(new ChessMove(SanNotation.parseSquare("e8"), SanNotation.parseSquare("d7"), null));
+        game.makeMove(new ChessMove(SanNotation.parseSquare("a1"), SanNotation.parseSquare("a7"), null));
+        game.seek(0);
+        assertEquals(start, game);
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+
+        game.setBoard(new ChessBoard(game.getBoard()));
+        assertEquals(0, game.getPly());
+        assertTrue(game.getMoveHistory().isEmpty());
+    }
+
+    @Test
+    @DisplayName("history survives a JSON round trip when asked for")
+    void json() throws InvalidMoveException {
+        Gson gson = new GsonBuilder().registerTypeAdapter(ChessGame.class, ChessGameAdapter.withHistory()).create();
+        ChessGame game = new ChessGame();
+        List<ChessGame> positions = play(game, 42, 50);
+        game.seek(35);
+
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        assertEquals(positions.get(35), copy);
+        assertEquals(game.getMoveHistory(), copy.getMoveHistory());
+        copy.seek(3);
+        assertEquals(positions.get(3), copy);
+        copy.seek(50);
+        assertEquals(positions.get(50), copy);
+
+        // like games stored before histories existed, a game with no moves has no history field
+        String json = gson.toJson(new ChessGame());
+        assertFalse(json.contains("history"));
+        ChessGame old = gson.fromJson(json, ChessGame.class);
+        assertEquals(new ChessGame(), old);
+        assertFalse(old.undo());
+    }
+}
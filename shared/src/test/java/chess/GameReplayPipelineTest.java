@@ -0,0 +1,79 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameReplayPipelineTest {
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(SanNotation.parseSquare(from), SanNotation.parseSquare(to), null);
+    }
+
+    private static final List<ChessMove> SCHOLARS_MATE = List.of(
+            move("e2", "e4"), move("e7", "e5"), move("f1", "c4"), move("b8", "c6"),
+            move("d1", "h5"), move("g8", "f6"), move("h5", "f7"));
+
+    private static final List<ChessMove> ILLEGAL_THIRD_PLY = List.of(
+            move("e2", "e4"), move("e7", "e5"), move("e1", "e3"));
+
+    @Test
+    @DisplayName("verdicts for valid and invalid games")
+    void verdicts() throws InterruptedException {
+        var games = new ArrayList<List<ChessMove>>();
+        for (int i = 0; i < 200; i++) {
+            games.add(i % 2 == 0 ? SCHOLARS_MATE : ILLEGAL_THIRD_PLY);
+        }
+        Map<Long, GameReplayPipeline.Verdict> verdicts = new ConcurrentHashMap<>();
+
+        var metrics = new GameReplayPipeline(4, 8).run(games.iterator(), v -> verdicts.put(v.index(), v));
+
+        assertEquals(200, metrics.games());
+        assertEquals(100, metrics.invalidGames());
+        assertEquals(100 * 7 + 100 * 2, metrics.plies());
+        assertEquals(200, verdicts.size());
+
+        var mate = verdicts.get(0L);
+        assertTrue(mate.valid());
+        assertEquals(GameReplayPipeline.GameStatus.CHECKMATE, mate.status());
+
+        var illegal = verdicts.get(1L);
+        assertFalse(illegal.valid());
+        assertEquals(3, illegal.illegalPly());
+        assertEquals(GameReplayPipeline.GameStatus.IN_PROGRESS, illegal.status());
+    }
+
+    @Test
+    @DisplayName("a move from off the board fails only its own game")
+    void offBoardStart() throws InterruptedException {
+        var offBoard = List.of(move("e2", "e4"),
+                new ChessMove(new ChessPosition(0, 5), SanNotation.parseSquare("e5"), null));
+        var games = List.of(SCHOLARS_MATE, offBoard, SCHOLARS_MATE);
+        Map<Long, GameReplayPipeline.Verdict> verdicts = new ConcurrentHashMap<>();
+
+        var metrics = new GameReplayPipeline(2, 2).run(games.iterator(), v -> verdicts.put(v.index(), v));
+
+        assertEquals(3, metrics.games());
+        assertEquals(1, metrics.invalidGames());
+        assertFalse(verdicts.get(1L).valid());
+        assertEquals(2, verdicts.get(1L).illegalPly());
+        assertTrue(verdicts.get(2L).valid());
+    }
+
+    @Test
+    @DisplayName("failing sink stops the run")
+    void failingSink() {
+        var games = new ArrayList<List<ChessMove>>();
+        for (int i = 0; i < 100; i++) {
+            games.add(SCHOLARS_MATE);
+        }
+
+        assertThrows(IllegalStateException.class, () -> new GameReplayPipeline(2, 2).run(games.iterator(), v -> {
+            throw new IllegalArgumentException("sink broke");
+        }));
+    }
+}
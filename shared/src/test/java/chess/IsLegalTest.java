@@ -0,0 +1,76 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IsLegalTest {
+    private static final List<ChessPiece.PieceType> PROMOTIONS = new ArrayList<>(Arrays.asList(ChessPiece.PieceType.values()));
+
+    static {
+        PROMOTIONS.add(null);
+    }
+
+    private static void assertMatchesValidMoves(ChessGame game) {
+        for (int fromRow = 1; fromRow <= 8; fromRow++) {
+            for (int fromCol = 1; fromCol <= 8; fromCol++) {
+                ChessPosition start = new ChessPosition(fromRow, fromCol);
+                if (game.getBoard().getPiece(start) == null) {
+                    continue;
+                }
+                var valid = game.validMoves(start);
+                for (int toRow = 1; toRow <= 8; toRow++) {
+                    for (int toCol = 1; toCol <= 8; toCol++) {
+                        for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                            var move = new ChessMove(start, new ChessPosition(toRow, toCol), promotion);
+                            assertEquals(valid.contains(move), game.isLegal(move), "move " + SanNotation.squareName(start)
+                                    + SanNotation.squareName(move.getEndPosition()) + " " + promotion + " in " + Fen.format(game));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("off-board move is not legal")
+    void offBoard() {
+        ChessGame game = new ChessGame();
+
+        assertFalse(game.isLegal(new ChessMove(new ChessPosition(2, 1), new ChessPosition(9, 1), null)));
+        assertFalse(game.isLegal(new ChessMove(new ChessPosition(0, 1), new ChessPosition(3, 1), null)));
+    }
+
+    @Test
+    @DisplayName("promotion piece required on last rank")
+    void promotionRequired() {
+        ChessGame game = Fen.parse("4k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+
+        assertFalse(game.isLegal(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), null)));
+        assertTrue(game.isLegal(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT)));
+        assertFalse(game.isLegal(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.KING)));
+    }
+
+    @Test
+    @DisplayName("agrees with validMoves during random play")
+    void randomPlay() throws InvalidMoveException {
+        Random random = new Random(30);
+        for (int gameNumber = 0; gameNumber < 6; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                assertMatchesValidMoves(game);
+                List<ChessMove> moves = new ArrayList<>();
+                game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveCacheTest {
+
+    @Test
+    @DisplayName("a position seen by one game is a hit for another")
+    void sharedAcrossGames() {
+        LegalMoveCache cache = new LegalMoveCache(1 << 10);
+        ChessGame first = new ChessGame();
+        ChessGame second = new ChessGame();
+
+        var moves = cache.moves(first.getBoard(), ChessGame.TeamColor.WHITE);
+        assertSame(moves, cache.moves(second.getBoard(), ChessGame.TeamColor.WHITE));
+        assertEquals(2, cache.lookups());
+        assertEquals(1, cache.hits());
+        assertEquals(0.5, cache.hitRate(), 0);
+        assertEquals(20, moves.values().stream().mapToInt(List::size).sum());
+        assertThrows(UnsupportedOperationException.class, moves::clear);
+
+        cache.resetStats();
+        assertEquals(0, cache.lookups());
+    }
+
+    @Test
+    @DisplayName("side to move is part of the key")
+    void sideToMove() {
+        LegalMoveCache cache = new LegalMoveCache(1 << 10);
+        ChessBoard board = new ChessGame().getBoard();
+
+        var white = cache.moves(board, ChessGame.TeamColor.WHITE);
+        var black = cache.moves(board, ChessGame.TeamColor.BLACK);
+        assertEquals(0, cache.hits());
+        assertTrue(white.keySet().stream().allMatch(square -> square.getRow() <= 2));
+        assertTrue(black.keySet().stream().allMatch(square -> square.getRow() >= 7));
+    }
+
+    @Test
+    @DisplayName("positions whose keys collide never share moves")
+    void collisions() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(1 << 10, (board, color) -> 42);
+        ChessGame game = new ChessGame();
+        var start = cache.moves(game.getBoard(), ChessGame.TeamColor.WHITE);
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        var afterE4 = cache.moves(game.getBoard(), ChessGame.TeamColor.WHITE);
+        assertEquals(0, cache.hits());
+        assertNotEquals(start.keySet(), afterE4.keySet());
+        assertNull(cache.peek(new ChessGame().getBoard(), ChessGame.TeamColor.WHITE));
+        assertNull(cache.peek(game.getBoard(), ChessGame.TeamColor.BLACK));
+        assertSame(afterE4, cache.moves(game.getBoard(), ChessGame.TeamColor.WHITE));
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    @DisplayName("stays within its capacity and regenerates evicted positions")
+    void bounded() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(3);
+        assertEquals(4, cache.capacity());
+        Random random = new Random(38);
+        ChessGame game = new ChessGame();
+        for (int ply = 0; ply < 60; ply++) {
+            var cached = cache.moves(game.getBoard(), game.getTeamTurn());
+            var fresh = LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn());
+            assertEquals(fresh.keySet(), cached.keySet(), Fen.format(game));
+            fresh.forEach((square, moves) -> assertEquals(new HashSet<>(moves), new HashSet<>(cached.get(square))));
+            List<ChessMove> all = new ArrayList<>();
+            cached.values().forEach(all::addAll);
+            if (all.isEmpty()) {
+                break;
+            }
+            game.makeMove(all.get(random.nextInt(all.size())));
+        }
+
+        cache.clear();
+        cache.resetStats();
+        cache.moves(game.getBoard(), game.getTeamTurn());
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    @DisplayName("concurrent games agree with move generation")
+    void concurrent() throws Exception {
+        LegalMoveCache cache = new LegalMoveCache(1 << 8);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> games = new ArrayList<>();
+            for (int seed = 0; seed < 16; seed++) {
+                Random random = new Random(seed % 4);
+                games.add(pool.submit(() -> {
+                    ChessGame game = new ChessGame();
+                    for (int ply = 0; ply < 40; ply++) {
+                        var cached = cache.moves(game.getBoard(), game.getTeamTurn());
+                        assertEquals(LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn()).keySet(),
+                                cached.keySet());
+                        List<ChessMove> all = new ArrayList<>();
+                        cached.values().forEach(all::addAll);
+                        if (all.isEmpty()) {
+                            break;
+                        }
+                        game.makeMove(all.get(random.nextInt(all.size())));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> game : games) {
+                game.get();
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        // the same four seeds are replayed four times each; racing threads may all miss at once
+        assertTrue(cache.hits() > 0);
+    }
+
+    @Test
+    @DisplayName("validMoves hands out a list the caller may change")
+    void validMovesCopies() {
+        ChessGame game = new ChessGame();
+        ChessPosition knight = SanNotation.parseSquare("g1");
+
+        game.validMoves(knight).clear();
+        assertEquals(2, game.validMoves(knight).size());
+        assertTrue(game.validMoves(SanNotation.parseSquare("e1")).isEmpty());
+    }
+}
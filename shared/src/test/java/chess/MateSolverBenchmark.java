@@ -0,0 +1,34 @@
+package chess;
+
+/**
+ * Compares the proof-number mate solver with the full-width alpha-beta {@link Search} on
+ * mate puzzles, reporting nodes and time for each
+ * <p>
+ * Arguments, if any, are FEN strings to solve instead of the built-in puzzles.
+ */
+public class MateSolverBenchmark {
+    private static final String[] PUZZLES = {
+            "k7/8/2K5/8/8/8/8/7R w - - 0 1",
+            "6k1/5ppp/8/8/8/8/1Q6/1R4K1 w - - 0 1",
+            "r1b1kb1r/pppp1ppp/5q2/4n3/3KP3/2N3PN/PPP4P/R1BQ1B1R b - - 0 1",
+            "6k1/3b3r/1p1p4/p1n2p2/1PPNpP1q/P3Q1p1/1R1RB1P1/5K2 b - - 0 1",
+    };
+
+    public static void main(String[] args) {
+        String[] puzzles = args.length > 0 ? args : PUZZLES;
+        for (String fen : puzzles) {
+            ChessGame game = Fen.parse(fen);
+            MateSolver.Result proof = new MateSolver(1 << 20).solve(game, new MateSolver.Limits(5, 0, 60_000));
+            System.out.printf("%s%n  df-pn:      %-8s mate in %d, %,12d nodes, %,8d ms%n", fen, proof.outcome(),
+                    proof.mateIn(), proof.nodes(), proof.nanos() / 1_000_000);
+            if (proof.outcome() != MateSolver.Outcome.MATE) {
+                continue;
+            }
+            int depth = 2 * proof.mateIn() - 1;
+            Search.Result search = new Search(game).search(new Search.Limits(depth + 1, 60_000, 0), info -> { });
+            boolean found = Math.abs(search.score()) >= Search.MATE_SCORE - depth - 1;
+            System.out.printf("  alpha-beta: %-8s depth %d,   %,12d nodes, %,8d ms%n",
+                    found ? "MATE" : "UNKNOWN", search.depth(), search.nodes(), search.nanos() / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MateSolverTest {
+
+    private static void assertMates(String fen, MateSolver.Result result) throws InvalidMoveException {
+        ChessGame game = Fen.parse(fen);
+        ChessGame.TeamColor defender = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        for (ChessMove move : result.line()) {
+            game.makeMove(move);
+        }
+        assertTrue(game.isInCheckmate(defender), Fen.format(game));
+    }
+
+    @Test
+    @DisplayName("finds back-rank mate in one")
+    void mateInOne() throws InvalidMoveException {
+        String fen = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+        MateSolver.Result result = new MateSolver().solve(Fen.parse(fen), new MateSolver.Limits(3, 0, 0));
+
+        assertEquals(MateSolver.Outcome.MATE, result.outcome());
+        assertEquals(1, result.mateIn());
+        assertMates(fen, result);
+    }
+
+    @Test
+    @DisplayName("finds the shortest mate with a quiet first move")
+    void mateInTwo() throws InvalidMoveException {
+        String fen = "k7/8/2K5/8/8/8/8/7R w - - 0 1";
+        MateSolver.Result result = new MateSolver().solve(Fen.parse(fen), new MateSolver.Limits(4, 0, 0));
+
+        assertEquals(MateSolver.Outcome.MATE, result.outcome());
+        assertEquals(2, result.mateIn());
+        assertMates(fen, result);
+    }
+
+    @Test
+    @DisplayName("mates for black too")
+    void blackMates() throws InvalidMoveException {
+        String fen = "r5k1/8/8/8/8/8/5PPP/6K1 b - - 0 1";
+        MateSolver.Result result = new MateSolver().solve(Fen.parse(fen), new MateSolver.Limits(2, 0, 0));
+
+        assertEquals(MateSolver.Outcome.MATE, result.outcome());
+        assertMates(fen, result);
+    }
+
+    @Test
+    @DisplayName("disproves mate with bare kings")
+    void noMate() {
+        MateSolver.Result result = new MateSolver(1 << 10).solve(Fen.parse("k7/8/8/8/8/8/8/K7 w - - 0 1"),
+                new MateSolver.Limits(3, 0, 0));
+
+        assertEquals(MateSolver.Outcome.NO_MATE, result.outcome());
+        assertTrue(result.line().isEmpty());
+    }
+
+    @Test
+    @DisplayName("gives up when the node budget runs out")
+    void budget() {
+        MateSolver.Result result = new MateSolver().solve(new ChessGame(), new MateSolver.Limits(5, 500, 0));
+
+        assertEquals(MateSolver.Outcome.UNKNOWN, result.outcome());
+        assertTrue(result.nodes() <= 500);
+    }
+
+    @Test
+    @DisplayName("agrees with brute force on mate in one during random play")
+    void mateInOneMatchesBruteForce() throws InvalidMoveException {
+        Random random = new Random(35);
+        MateSolver solver = new MateSolver(1 << 12);
+        int mates = 0;
+        for (int gameNumber = 0; gameNumber < 40; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                List<ChessMove> moves = new ArrayList<>();
+                game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                boolean bruteForce = false;
+                for (ChessMove move : moves) {
+                    ChessGame copy = Fen.parse(Fen.format(game));
+                    copy.makeMove(move);
+                    bruteForce |= copy.isInCheckmate(copy.getTeamTurn());
+                }
+                MateSolver.Result result = solver.solve(game, new MateSolver.Limits(1, 0, 0));
+                assertEquals(bruteForce, result.outcome() == MateSolver.Outcome.MATE, Fen.format(game));
+                mates += bruteForce ? 1 : 0;
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+        assertTrue(mates > 0);
+    }
+}
@@ -0,0 +1,85 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveCursorTest {
+
+    private static List<ChessMove> drain(MoveCursor cursor) {
+        List<ChessMove> moves = new ArrayList<>();
+        for (ChessMove move = cursor.next(); move != null; move = cursor.next()) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private static Set<ChessMove> pieceMoves(ChessBoard board, ChessGame.TeamColor color) {
+        Set<ChessMove> moves = new HashSet<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == color) {
+                    moves.addAll(piece.pieceMoves(board, position));
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Test
+    @DisplayName("captures and promotions come before quiet moves")
+    void capturesFirst() {
+        ChessBoard board = Fen.parsePlacement("1n2k3/P7/8/3p4/4P3/8/8/4K3");
+        MoveCursor cursor = new MoveCursor(board, ChessGame.TeamColor.WHITE);
+
+        List<ChessMove> captures = new ArrayList<>();
+        for (ChessMove move = cursor.next(); cursor.stage() == MoveCursor.Stage.CAPTURES; move = cursor.next()) {
+            captures.add(move);
+        }
+
+        assertEquals(9, captures.size(), captures.toString());
+        assertTrue(captures.contains(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null)));
+        assertTrue(captures.contains(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN)));
+        assertTrue(captures.contains(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT)));
+    }
+
+    @Test
+    @DisplayName("yields exactly the moves pieceMoves generates")
+    void matchesPieceMoves() throws InvalidMoveException {
+        Random random = new Random(32);
+        for (int gameNumber = 0; gameNumber < 10; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 80; ply++) {
+                for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                    List<ChessMove> staged = drain(new MoveCursor(game.getBoard(), color));
+                    assertEquals(staged.size(), new HashSet<>(staged).size());
+                    assertEquals(pieceMoves(game.getBoard(), color), new HashSet<>(staged), Fen.format(game));
+                }
+                List<ChessMove> moves = new ArrayList<>();
+                game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("exhausted cursor keeps returning null")
+    void exhausted() {
+        MoveCursor cursor = new MoveCursor(Fen.parsePlacement("8/8/8/8/8/8/8/7K"), ChessGame.TeamColor.BLACK);
+
+        assertNull(cursor.next());
+        assertNull(cursor.next());
+        assertEquals(MoveCursor.Stage.DONE, cursor.stage());
+    }
+}
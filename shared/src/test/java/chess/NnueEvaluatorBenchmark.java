@@ -0,0 +1,71 @@
+package chess;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reports evaluations per second for incremental accumulator updates against full refreshes
+ * <p>
+ * Optional arguments: a weights file (default: random 256x16 network) and the number of
+ * evaluations (default 1000000).
+ */
+public class NnueEvaluatorBenchmark {
+    public static void main(String[] args) throws Exception {
+        NnueNetwork network = args.length > 0 && !args[0].equals("-")
+                ? NnueNetwork.load(Path.of(args[0])) : NnueNetwork.random(240, 256, 16);
+        int evaluations = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        List<ChessMove> line = new ArrayList<>();
+        List<ChessBoard> boards = new ArrayList<>();
+        Random random = new Random(240);
+        ChessGame game = new ChessGame();
+        while (line.size() < 2000) {
+            List<ChessMove> moves = new ArrayList<>();
+            game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+            if (moves.isEmpty()) {
+                break;
+            }
+            ChessMove move = moves.get(random.nextInt(moves.size()));
+            game.makeMove(move);
+            line.add(move);
+            boards.add(new ChessBoard(game.getBoard()));
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            NnueEvaluator evaluator = new NnueEvaluator(network);
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < evaluations; i++) {
+                int ply = i % line.size();
+                ChessBoard board = boards.get(ply);
+                if (ply == 0) {
+                    evaluator.refresh(board);
+                } else {
+                    ChessMove move = line.get(ply);
+                    evaluator.setPiece(move.getStartPosition(), null);
+                    evaluator.setPiece(move.getEndPosition(), board.getPiece(move.getEndPosition()));
+                }
+                checksum += evaluator.evaluate(ply % 2 == 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+            }
+            report(pass, "incremental", evaluations, System.nanoTime() - start, checksum);
+
+            checksum = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < evaluations; i++) {
+                int ply = i % line.size();
+                evaluator.refresh(boards.get(ply));
+                checksum += evaluator.evaluate(ply % 2 == 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+            }
+            report(pass, "full refresh", evaluations, System.nanoTime() - start, checksum);
+        }
+    }
+
+    private static void report(int pass, String label, long evaluations, long nanos, long checksum) {
+        if (pass > 0) {
+            System.out.printf("%-14s %,12d evals/s  (checksum %d)%n",
+                    label, evaluations * 1_000_000_000L / Math.max(nanos, 1), checksum);
+        }
+    }
+}
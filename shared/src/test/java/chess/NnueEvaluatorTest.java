@@ -0,0 +1,84 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NnueEvaluatorTest {
+    private static final NnueNetwork NETWORK = NnueNetwork.random(34, 32, 8);
+
+    private static int fullEvaluation(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+        evaluator.refresh(board);
+        return evaluator.evaluate(sideToMove);
+    }
+
+    @Test
+    @DisplayName("incremental updates match a full refresh during random play")
+    void incrementalMatchesRefresh() throws InvalidMoveException {
+        Random random = new Random(34);
+        for (int gameNumber = 0; gameNumber < 10; gameNumber++) {
+            ChessGame game = new ChessGame();
+            NnueEvaluator evaluator = new NnueEvaluator(NETWORK);
+            evaluator.refresh(game.getBoard());
+            for (int ply = 0; ply < 80; ply++) {
+                List<ChessMove> moves = new ArrayList<>();
+                game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                ChessMove move = moves.get(random.nextInt(moves.size()));
+                game.makeMove(move);
+                evaluator.setPiece(move.getStartPosition(), null);
+                evaluator.setPiece(move.getEndPosition(), game.getBoard().getPiece(move.getEndPosition()));
+
+                assertEquals(fullEvaluation(game.getBoard(), game.getTeamTurn()), evaluator.evaluate(game.getTeamTurn()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("mirrored position scores the same for the mirrored side")
+    void symmetric() {
+        ChessBoard board = Fen.parsePlacement("4k3/8/8/3p4/8/2N5/8/4K3");
+        ChessBoard mirrored = Fen.parsePlacement("4k3/8/2n5/8/3P4/8/8/4K3");
+
+        assertEquals(fullEvaluation(board, ChessGame.TeamColor.WHITE), fullEvaluation(mirrored, ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("weights survive a write and load")
+    void roundTrip(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("test.nnue");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            NETWORK.write(out);
+        }
+        NnueEvaluator loaded = new NnueEvaluator(NnueNetwork.load(file));
+        ChessBoard board = new ChessGame().getBoard();
+        loaded.refresh(board);
+
+        assertEquals(fullEvaluation(board, ChessGame.TeamColor.WHITE), loaded.evaluate(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("truncated file is rejected")
+    void truncated(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("bad.nnue");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            NETWORK.write(out);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(IOException.class, () -> NnueNetwork.load(file));
+    }
+}
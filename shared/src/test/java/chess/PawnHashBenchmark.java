@@ -0,0 +1,69 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * Reports the pawn hash hit rate of searches at several table sizes, to help pick one, then
+ * the cost of a lookup by key and bitboards, as {@link Search} makes it, against evaluating the
+ * structure afresh
+ * <p>
+ * Optional arguments: search depth (default 4), then FEN strings to search instead of the
+ * built-in middlegame positions.
+ */
+public class PawnHashBenchmark {
+    private static final String[] POSITIONS = {
+            Fen.START_POSITION,
+            "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 0 1",
+            "r2q1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2Q1RK1 w - - 0 1",
+            "8/5pk1/6p1/3P4/1p3P2/6P1/5K2/8 w - - 0 1",
+    };
+
+    public static void main(String[] args) throws InvalidMoveException {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        String[] positions = args.length > 1 ? java.util.Arrays.copyOfRange(args, 1, args.length) : POSITIONS;
+        for (int entries : new int[]{1 << 8, 1 << 10, 1 << 12, 1 << 14, 1 << 16}) {
+            PawnHashTable table = new PawnHashTable(entries);
+            long start = System.nanoTime();
+            for (String fen : positions) {
+                new Search(Fen.parse(fen), table).search(Search.Limits.depth(depth), info -> { });
+            }
+            System.out.printf("%,8d entries: %,12d probes, %6.2f%% hits, %,6d ms%n", table.capacity(),
+                    table.probes(), 100 * table.hitRate(), (System.nanoTime() - start) / 1_000_000);
+        }
+        probeCost();
+    }
+
+    private static void probeCost() throws InvalidMoveException {
+        List<ChessBoard> boards = BatchEvaluatorTest.randomBoards(4096, 37);
+        long[] keys = new long[boards.size()];
+        long[] white = new long[boards.size()];
+        long[] black = new long[boards.size()];
+        for (int i = 0; i < boards.size(); i++) {
+            keys[i] = Zobrist.pawnHash(boards.get(i));
+            white[i] = PawnStructure.pawns(boards.get(i), ChessGame.TeamColor.WHITE);
+            black[i] = PawnStructure.pawns(boards.get(i), ChessGame.TeamColor.BLACK);
+        }
+        PawnHashTable table = new PawnHashTable(1 << 14);
+        int rounds = 2000;
+        for (int warmup = 0; warmup < 3; warmup++) {
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (int i = 0; i < keys.length; i++) {
+                    checksum += table.evaluate(keys[i], white[i], black[i]);
+                }
+            }
+            long probed = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (int i = 0; i < keys.length; i++) {
+                    checksum -= PawnStructure.evaluate(white[i], black[i]);
+                }
+            }
+            long evaluated = System.nanoTime() - start;
+            long lookups = (long) rounds * keys.length;
+            System.out.printf("probe %.1f ns, evaluate %.1f ns per structure (checksum %d)%n",
+                    (double) probed / lookups, (double) evaluated / lookups, checksum);
+        }
+    }
+}
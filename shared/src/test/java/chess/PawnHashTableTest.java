@@ -0,0 +1,109 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PawnHashTableTest {
+
+    private static long squares(String... names) {
+        long mask = 0;
+        for (String name : names) {
+            mask |= 1L << AttackMap.squareIndex(SanNotation.parseSquare(name));
+        }
+        return mask;
+    }
+
+    private static int evaluate(PawnHashTable table, ChessBoard board) {
+        return table.evaluate(Zobrist.pawnHash(board), PawnStructure.pawns(board, ChessGame.TeamColor.WHITE),
+                PawnStructure.pawns(board, ChessGame.TeamColor.BLACK));
+    }
+
+    private static long passedPawns(PawnHashTable table, ChessBoard board, ChessGame.TeamColor color) {
+        return table.passedPawns(Zobrist.pawnHash(board), PawnStructure.pawns(board, ChessGame.TeamColor.WHITE),
+                PawnStructure.pawns(board, ChessGame.TeamColor.BLACK), color);
+    }
+
+    @Test
+    @DisplayName("doubled and isolated pawns are penalised")
+    void doubledIsolated() {
+        long white = squares("a2", "c2", "c3", "d2");
+        long black = squares("a7", "b7", "c7", "d7");
+
+        // c-pawns doubled; a2 isolated; no passed pawns on either side
+        assertEquals(-PawnStructure.DOUBLED_PENALTY - PawnStructure.ISOLATED_PENALTY,
+                PawnStructure.evaluate(white, black));
+    }
+
+    @Test
+    @DisplayName("passed pawns need no enemy pawn ahead on their own or adjacent files")
+    void passed() {
+        long white = squares("a5", "e4", "h2");
+        long black = squares("b7", "c5", "e6", "g6");
+
+        // a5 is stopped by b7, e4 by e6 and h2 by g6
+        assertEquals(0, PawnStructure.passedPawns(white, black, ChessGame.TeamColor.WHITE));
+        // only c5 has no white pawn ahead of it on the b, c or d file
+        assertEquals(squares("c5"), PawnStructure.passedPawns(black, white, ChessGame.TeamColor.BLACK));
+        assertEquals(squares("d3"), PawnStructure.passedPawns(squares("d3"), squares("d4"), ChessGame.TeamColor.BLACK));
+        assertEquals(0, PawnStructure.passedPawns(squares("d3"), squares("c2"), ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("mirrored structures score the same for the other side")
+    void symmetric() {
+        ChessBoard board = Fen.parsePlacement("4k3/pp3p2/2p5/3P4/8/5P2/PP4P1/4K3");
+        ChessBoard mirrored = Fen.parsePlacement("4k3/pp4p1/5p2/8/3p4/2P5/PP3P2/4K3");
+        PawnHashTable table = new PawnHashTable(64);
+
+        assertEquals(evaluate(table, board), -evaluate(table, mirrored));
+        assertEquals(Long.reverseBytes(passedPawns(table, board, ChessGame.TeamColor.WHITE)),
+                passedPawns(table, mirrored, ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("cached entries match a fresh evaluation during random play")
+    void matchesDirect() throws InvalidMoveException {
+        Random random = new Random(37);
+        PawnHashTable table = new PawnHashTable(16);
+        for (int gameNumber = 0; gameNumber < 10; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 100; ply++) {
+                List<ChessMove> moves = new ArrayList<>();
+                game.allValidMoves(game.getTeamTurn()).values().forEach(moves::addAll);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+                ChessBoard board = game.getBoard();
+                long white = PawnStructure.pawns(board, ChessGame.TeamColor.WHITE);
+                long black = PawnStructure.pawns(board, ChessGame.TeamColor.BLACK);
+
+                long key = Zobrist.pawnHash(board);
+
+                assertEquals(PawnStructure.evaluate(white, black), table.evaluate(key, white, black), Fen.format(game));
+                assertEquals(PawnStructure.passedPawns(black, white, ChessGame.TeamColor.BLACK),
+                        table.passedPawns(key, white, black, ChessGame.TeamColor.BLACK));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("search reuses pawn structures")
+    void searchHits() {
+        PawnHashTable table = new PawnHashTable();
+        new Search(Fen.parse("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 0 1"), table)
+                .search(Search.Limits.depth(3), info -> { });
+
+        assertTrue(table.probes() > 0);
+        assertTrue(table.hitRate() > 0.5, "hit rate " + table.hitRate());
+
+        table.resetStats();
+        assertEquals(0, table.probes());
+        assertEquals(0.0, table.hitRate(), 0);
+    }
+}
@@ -0,0 +1,109 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnTest {
+    private static final String SCHOLARS_MATE = """
+            [Event "Casual"]
+            [Site "?"]
+            [White "alice"]
+            [Black "bob"]
+            [Result "1-0"]
+
+            1. e4 {best by test} e5 2. Bc4 (2. Nf3 Nc6 (2... d6) 3. Bb5) Nc6 $6
+            3. Qh5 Nf6?? 4.Qxf7# 1-0
+            """;
+
+    private static List<PgnGame> readAll(String pgn) throws IOException {
+        var games = new ArrayList<PgnGame>();
+        try (var reader = new PgnReader(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8)))) {
+            reader.forEachRemaining(games::add);
+        }
+        return games;
+    }
+
+    @Test
+    @DisplayName("read game with comments and variations")
+    void readGame() throws IOException {
+        List<PgnGame> games = readAll(SCHOLARS_MATE);
+
+        assertEquals(1, games.size());
+        PgnGame game = games.get(0);
+        assertTrue(game.isValid(), game.error());
+        assertEquals("1-0", game.result());
+        assertEquals("alice", game.tags().get("White"));
+        assertEquals(7, game.moves().size());
+        assertEquals(new ChessMove(new ChessPosition(5, 8), new ChessPosition(7, 6), null), game.moves().get(6));
+    }
+
+    @Test
+    @DisplayName("read many games from channel")
+    void readManyGames() throws IOException {
+        String archive = SCHOLARS_MATE.repeat(500);
+        long count = 0;
+        try (var reader = new PgnReader(Channels.newChannel(
+                new ByteArrayInputStream(archive.getBytes(StandardCharsets.UTF_8))))) {
+            while (reader.hasNext()) {
+                assertTrue(reader.next().isValid());
+                count++;
+            }
+            assertEquals(500, reader.gamesRead());
+            assertTrue(reader.gamesPerSecond() > 0);
+        }
+        assertEquals(500, count);
+    }
+
+    @Test
+    @DisplayName("illegal move reported with ply")
+    void illegalMove() throws IOException {
+        List<PgnGame> games = readAll("1. e4 e5 2. Ke3 Nc6 *\n\n1. d4 *");
+
+        assertEquals(2, games.size());
+        assertFalse(games.get(0).isValid());
+        assertTrue(games.get(0).error().startsWith("ply 3"));
+        assertEquals(2, games.get(0).moves().size());
+        assertTrue(games.get(1).isValid());
+    }
+
+    @Test
+    @DisplayName("write then read round trip")
+    void roundTrip() throws IOException {
+        PgnGame original = readAll(SCHOLARS_MATE).get(0);
+
+        var bytes = new ByteArrayOutputStream();
+        try (var writer = new PgnWriter(bytes)) {
+            writer.write(original);
+            assertEquals(1, writer.gamesWritten());
+        }
+        String text = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("4. Qxf7# 1-0"), text);
+
+        PgnGame copy = readAll(text).get(0);
+        assertEquals(original.moves(), copy.moves());
+        assertEquals(original.result(), copy.result());
+    }
+
+    @Test
+    @DisplayName("FEN tag sets starting position")
+    void fenTag() throws IOException {
+        String pgn = """
+                [FEN "4k3/P7/8/8/8/8/8/4K3 w - - 0 1"]
+
+                1. a8=Q+ Kd7 *
+                """;
+        PgnGame game = readAll(pgn).get(0);
+
+        assertTrue(game.isValid(), game.error());
+        assertEquals(ChessPiece.PieceType.QUEEN, game.moves().get(0).getPromotionPiece());
+    }
+}
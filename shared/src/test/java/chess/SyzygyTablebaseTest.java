@@ -0,0 +1,474 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyzygyTablebaseTest {
+    private static final byte[] WDL_MAGIC = {0x71, (byte) 0xE8, 0x23, 0x5D};
+    private static final byte[] DTZ_MAGIC = {(byte) 0xD7, 0x66, 0x0C, (byte) 0xA5};
+
+    /**
+     * Writes a KRvK WDL table in which every position has one value per side to move
+     *
+     * @param whiteToMove stored value for white to move, 0 (loss) to 4 (win)
+     * @param blackToMove stored value for black to move
+     */
+    private static void writeKrvkWdl(Path dir, int whiteToMove, int blackToMove) throws IOException {
+        Files.write(dir.resolve("KRvK.rtbw"), new byte[]{
+                WDL_MAGIC[0], WDL_MAGIC[1], WDL_MAGIC[2], WDL_MAGIC[3],
+                1,                      // one table per side to move, no pawns
+                0,                      // leading group is encoded first
+                0x66, 0x44, (byte) 0xEE, // K, R, k for both sides to move
+                0,                      // padding to an even offset
+                (byte) 0x80, (byte) whiteToMove,
+                (byte) 0x80, (byte) blackToMove
+        });
+    }
+
+    /**
+     * Writes a KRvK DTZ table storing white to move only, with every distance in moves
+     */
+    private static void writeKrvkDtz(Path dir, int moves) throws IOException {
+        Files.write(dir.resolve("KRvK.rtbz"), new byte[]{
+                DTZ_MAGIC[0], DTZ_MAGIC[1], DTZ_MAGIC[2], DTZ_MAGIC[3],
+                1, 0, 0x06, 0x04, 0x0E, 0,
+                (byte) 0x80, (byte) moves
+        });
+    }
+
+    /**
+     * Number of KRvK positions the index distinguishes: three unique leading pieces
+     */
+    private static final int KRVK_SIZE = 31332;
+
+    /**
+     * Stored WDL value, 0 (loss) to 4 (win), at each index of a side to move's compressed KRvK
+     * table. Varied values fill most of it so a wrong index is likely to read a different value;
+     * a stretch of draws broken by a win every 97 gives the pairs something to compress.
+     */
+    private static int krvkValue(int side, int idx) {
+        if (idx >= 16384 && idx < 24576) {
+            return idx % 97 == side ? 4 : 2;
+        }
+        long mixed = (idx + 1L + side * 40503L) * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 40) % 5);
+    }
+
+    /**
+     * Writes a KRvK WDL table holding {@link #krvkValue} for both sides to move, compressed the
+     * way the generator does it: values are replaced by symbols that expand through pairs,
+     * symbols are given canonical Huffman codes and packed into blocks, and a sparse index
+     * points into the blocks every {@code span} values
+     */
+    private static void writeCompressedKrvkWdl(Path dir, int blockSizeBits, int spanBits) throws IOException {
+        var out = new ByteArrayOutputStream();
+        out.write(WDL_MAGIC, 0, 4);
+        out.write(new byte[]{0, 0, 0x66, 0x44, (byte) 0xEE, 0});
+        var sides = new CompressedTable[2];
+        for (int side = 0; side < 2; side++) {
+            int[] values = new int[KRVK_SIZE];
+            for (int idx = 0; idx < values.length; idx++) {
+                values[idx] = krvkValue(side, idx);
+            }
+            sides[side] = new CompressedTable(values, 1 << blockSizeBits, 1 << spanBits);
+            sides[side].writeSizes(out, blockSizeBits, spanBits);
+        }
+        for (CompressedTable table : sides) {
+            table.writeSparseIndex(out);
+        }
+        for (CompressedTable table : sides) {
+            table.writeBlockLengths(out);
+        }
+        for (CompressedTable table : sides) {
+            out.write(new byte[-out.size() & 0x3F], 0, -out.size() & 0x3F);
+            out.write(table.blocks.toByteArray(), 0, table.blocks.size());
+        }
+        Files.write(dir.resolve("KRvK.rtbw"), out.toByteArray());
+    }
+
+    /**
+     * One side to move's values as symbols, codes and blocks
+     */
+    private static final class CompressedTable {
+        // leaves 0 to 4 are the values; the rest pair two earlier symbols, some unevenly
+        private static final int[][] PAIRS = {
+                {2, 2}, {5, 5}, {6, 6}, {7, 7}, {8, 8}, {9, 9}, // 2 to 64 draws
+                {4, 6},                                       // a win, then four draws
+                {11, 9},                                      // that, then 32 draws
+                {0, 4}};
+        private static final int SYMBOLS = 5 + PAIRS.length;
+
+        final int blockSize;
+        final int span;
+        final int total;
+        final int[][] expansion = new int[SYMBOLS][];
+        final int[] codeLength = new int[SYMBOLS];
+        final int[] code = new int[SYMBOLS];
+        final int[] index = new int[SYMBOLS];
+        final int[] lowest;
+        final int minLength;
+        final List<Integer> blockStarts = new ArrayList<>();
+        final ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+
+        CompressedTable(int[] values, int blockSize, int span) {
+            this.blockSize = blockSize;
+            this.span = span;
+            this.total = values.length;
+            for (int sym = 0; sym < SYMBOLS; sym++) {
+                expansion[sym] = sym < 5 ? new int[]{sym} : concat(expansion[PAIRS[sym - 5][0]], expansion[PAIRS[sym - 5][1]]);
+            }
+
+            // the longest symbol that matches at each point
+            List<Integer> symbols = new ArrayList<>();
+            int[] frequency = new int[SYMBOLS];
+            for (int at = 0; at < values.length; ) {
+                int best = values[at];
+                for (int sym = 5; sym < SYMBOLS; sym++) {
+                    if (expansion[sym].length > expansion[best].length && matches(values, at, expansion[sym])) {
+                        best = sym;
+                    }
+                }
+                symbols.add(best);
+                frequency[best]++;
+                at += expansion[best].length;
+            }
+
+            huffmanLengths(frequency);
+            int maxLength = 0;
+            int shortest = Integer.MAX_VALUE;
+            for (int length : codeLength) {
+                maxLength = Math.max(maxLength, length);
+                shortest = length > 0 ? Math.min(shortest, length) : shortest;
+            }
+            minLength = shortest;
+            // symbols are numbered longest code first; base counts down from the longest codes
+            lowest = new int[maxLength - minLength + 1];
+            long[] base = new long[lowest.length];
+            int next = 0;
+            for (int i = lowest.length - 1; i >= 0; i--) {
+                lowest[i] = next;
+                if (i < lowest.length - 1) {
+                    base[i] = (base[i + 1] + lowest[i] - lowest[i + 1]) / 2;
+                }
+                for (int sym = 0; sym < SYMBOLS; sym++) {
+                    if (codeLength[sym] == minLength + i) {
+                        code[sym] = (int) (base[i] + next - lowest[i]);
+                        index[sym] = next++;
+                    }
+                }
+            }
+            for (int sym = 0; sym < SYMBOLS; sym++) {
+                if (codeLength[sym] == 0) {
+                    index[sym] = next++;
+                }
+            }
+
+            // keep 8 bytes of each block free, as the decoder reads ahead of the code it is on
+            int blockBits = 0;
+            int start = 0;
+            blockStarts.add(0);
+            var block = new BitWriter();
+            for (int sym : symbols) {
+                if (blockBits + codeLength[sym] > (blockSize - 8) * 8) {
+                    blocks.write(block.bytes(blockSize), 0, blockSize);
+                    block = new BitWriter();
+                    blockBits = 0;
+                    blockStarts.add(start);
+                }
+                block.write(code[sym], codeLength[sym]);
+                blockBits += codeLength[sym];
+                start += expansion[sym].length;
+            }
+            blocks.write(block.bytes(blockSize), 0, blockSize);
+            assertTrue(frequency[12] > 0 && frequency[13] > 0, "every level of pairs should be used");
+        }
+
+        void writeSizes(ByteArrayOutputStream out, int blockSizeBits, int spanBits) {
+            out.write(0);
+            out.write(blockSizeBits);
+            out.write(spanBits);
+            out.write(0);
+            writeLe(out, blockStarts.size(), 4);
+            out.write(minLength + lowest.length - 1);
+            out.write(minLength);
+            for (int offset : lowest) {
+                writeLe(out, offset, 2);
+            }
+            writeLe(out, SYMBOLS, 2);
+            int[] byIndex = new int[SYMBOLS];
+            for (int sym = 0; sym < SYMBOLS; sym++) {
+                byIndex[index[sym]] = sym;
+            }
+            for (int sym : byIndex) {
+                int left = sym < 5 ? sym : index[PAIRS[sym - 5][0]];
+                int right = sym < 5 ? 0xFFF : index[PAIRS[sym - 5][1]];
+                out.write(left);
+                out.write(left >>> 8 | (right & 0xF) << 4);
+                out.write(right >>> 4);
+            }
+            out.write(new byte[SYMBOLS & 1], 0, SYMBOLS & 1);
+        }
+
+        /**
+         * Writes the block and offset of the middle value of each span, or of where it would be
+         * in the last block for a span past the end
+         */
+        void writeSparseIndex(ByteArrayOutputStream out) {
+            for (int k = 0; k < (total + span - 1) / span; k++) {
+                int target = k * span + span / 2;
+                int block = blockStarts.size() - 1;
+                while (blockStarts.get(block) > target) {
+                    block--;
+                }
+                writeLe(out, block, 4);
+                writeLe(out, target - blockStarts.get(block), 2);
+            }
+        }
+
+        void writeBlockLengths(ByteArrayOutputStream out) {
+            for (int block = 0; block < blockStarts.size(); block++) {
+                int end = block + 1 < blockStarts.size() ? blockStarts.get(block + 1) : total;
+                writeLe(out, end - blockStarts.get(block) - 1, 2);
+            }
+        }
+
+        /**
+         * Sets each used symbol's code length by Huffman's method
+         */
+        private void huffmanLengths(int[] frequency) {
+            var queue = new PriorityQueue<long[]>(Comparator.comparingLong((long[] node) -> node[0]));
+            for (int sym = 0; sym < SYMBOLS; sym++) {
+                if (frequency[sym] > 0) {
+                    queue.add(new long[]{frequency[sym], 1L << sym});
+                }
+            }
+            while (queue.size() > 1) {
+                long[] a = queue.poll();
+                long[] b = queue.poll();
+                for (int sym = 0; sym < SYMBOLS; sym++) {
+                    if (((a[1] | b[1]) >>> sym & 1) != 0) {
+                        codeLength[sym]++;
+                    }
+                }
+                queue.add(new long[]{a[0] + b[0], a[1] | b[1]});
+            }
+        }
+
+        private static boolean matches(int[] values, int at, int[] run) {
+            if (at + run.length > values.length) {
+                return false;
+            }
+            for (int i = 0; i < run.length; i++) {
+                if (values[at + i] != run[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int[] concat(int[] a, int[] b) {
+            int[] both = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, both, a.length, b.length);
+            return both;
+        }
+
+        private static void writeLe(ByteArrayOutputStream out, long value, int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                out.write((int) (value >>> (8 * i)));
+            }
+        }
+    }
+
+    /**
+     * Packs codes most significant bit first
+     */
+    private static final class BitWriter {
+        private final BitSet bits = new BitSet();
+        private int length;
+
+        void write(int code, int codeLength) {
+            for (int i = codeLength - 1; i >= 0; i--) {
+                bits.set(length++, (code >>> i & 1) != 0);
+            }
+        }
+
+        byte[] bytes(int size) {
+            byte[] bytes = new byte[size];
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                bytes[i / 8] |= (byte) (0x80 >>> (i % 8));
+            }
+            return bytes;
+        }
+    }
+
+    @Test
+    @DisplayName("bare kings are drawn without any tables")
+    void bareKings(@TempDir Path dir) throws IOException {
+        SyzygyTablebase tablebase = new SyzygyTablebase(dir);
+        ChessGame game = Fen.parse("8/8/8/4k3/8/8/8/4K3 w - - 0 1");
+
+        assertEquals(SyzygyTablebase.Wdl.DRAW, tablebase.probeWdl(game));
+        assertEquals(0, tablebase.probeDtz(game));
+    }
+
+    @Test
+    @DisplayName("material without a table is unknown")
+    void missingTable(@TempDir Path dir) throws IOException {
+        writeKrvkWdl(dir, 4, 0);
+        SyzygyTablebase tablebase = new SyzygyTablebase(dir);
+        ChessGame game = Fen.parse("8/8/8/4k3/8/8/8/Q3K3 w - - 0 1");
+
+        assertNull(tablebase.probeWdl(game));
+        assertEquals(SyzygyTablebase.UNKNOWN, tablebase.probeDtz(game));
+        assertNull(tablebase.probeWdl(new ChessGame()));
+    }
+
+    @Test
+    @DisplayName("reads each side to move's table and swaps colors for the weaker side")
+    void sideToMove(@TempDir Path dir) throws IOException {
+        writeKrvkWdl(dir, 4, 0);
+        SyzygyTablebase tablebase = new SyzygyTablebase(dir);
+
+        assertEquals(3, tablebase.maxPieces());
+        assertEquals(SyzygyTablebase.Wdl.WIN, tablebase.probeWdl(Fen.parse("8/8/8/4k3/8/8/8/R3K3 w - - 0 1")));
+        assertEquals(SyzygyTablebase.Wdl.LOSS, tablebase.probeWdl(Fen.parse("8/8/8/4k3/8/8/8/R3K3 b - - 0 1")));
+        assertEquals(SyzygyTablebase.Wdl.WIN, tablebase.probeWdl(Fen.parse("r3k3/8/8/8/4K3/8/8/8 b - - 0 1")));
+        assertEquals(SyzygyTablebase.Wdl.LOSS, tablebase.probeWdl(Fen.parse("r3k3/8/8/8/4K3/8/8/8 w - - 0 1")));
+    }
+
+    @Test
+    @DisplayName("a capture better than the stored value wins out")
+    void capturesResolved(@TempDir Path dir) throws IOException {
+        writeKrvkWdl(dir, 4, 0);
+        SyzygyTablebase tablebase = new SyzygyTablebase(dir);
+        ChessGame game = Fen.parse("8/8/8/8/8/8/1k6/R3K3 b - - 0 1");
+
+        assertEquals(SyzygyTablebase.Wdl.DRAW, tablebase.probeWdl(game));
+        assertEquals(0, tablebase.probeDtz(game));
+        assertEquals(Fen.parse("8/8/8/8/8/8/1k6/R3K3 b - - 0 1"), game);
+    }
+
+    @Test
+    @DisplayName("DTZ for the side the file does not store comes from a one-ply search")
+    void dtzOtherSide(@TempDir Path dir) throws IOException {
+        writeKrvkWdl(dir, 4, 0);
+        writeKrvkDtz(dir, 5);
+        SyzygyTablebase tablebase = new SyzygyTablebase(dir);
+
+        assertEquals(11, tablebase.probeDtz(Fen.parse("8/8/8/4k3/8/8/8/R3K3 w - - 0 1")));
+        assertEquals(-12, tablebase.probeDtz(Fen.parse("8/8/8/4k3/8/8/8/R3K3 b - - 0 1")));
+    }
+
+    @Test
+    @DisplayName("decodes every value of compressed blocks through the sparse index")
+    void compressedBlocks(@TempDir Path dir) throws IOException {
+        // blocks of 32 bytes hold fewer values than half a span in the varied stretches, so
+        // finding a block walks from the indexed one both forwards and back
+        writeCompressedKrvkWdl(dir, 5, 8);
+        SyzygyTable table = new SyzygyTable(dir.resolve("KRvK.rtbw"), "KRvK", false);
+
+        for (int side = 0; side < 2; side++) {
+            for (int idx = 0; idx < KRVK_SIZE; idx++) {
+                if (table.storedValue(side, 0, idx) != krvkValue(side, idx)) {
+                    fail("side " + side + " index " + idx + ": expected " + krvkValue(side, idx)
+                            + " got " + table.storedValue(side, 0, idx));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("indexes positions through each symmetry and each way of placing the leading pieces")
+    void pieceIndex(@TempDir Path dir) throws IOException {
+        writeCompressedKrvkWdl(dir, 5, 8);
+        SyzygyTablebase tablebase = new SyzygyTablebase(dir);
+        var wdl = SyzygyTablebase.Wdl.values();
+
+        // Ke1 Ra1 ke5 mirrors to Kd1 Rh1 kd5: (map 2 * 63 + 7 - 1) * 62 + 35 - 2
+        assertEquals(wdl[krvkValue(0, 8217)], tablebase.probeWdl(Fen.parse("8/8/8/4k3/8/8/8/R3K3 w - - 0 1")));
+        assertEquals(wdl[krvkValue(1, 8217)], tablebase.probeWdl(Fen.parse("8/8/8/4k3/8/8/8/R3K3 b - - 0 1")));
+        // black's rook: colors swap and the board flips onto the same position
+        assertEquals(wdl[krvkValue(0, 8217)], tablebase.probeWdl(Fen.parse("r3k3/8/8/8/4K3/8/8/8 b - - 0 1")));
+        // Kf7 Rd1 ka2 mirrors and flips to Kc2 Re8 kh7: (map 3 * 63 + 60 - 1) * 62 + 55 - 1
+        assertEquals(wdl[krvkValue(0, 15430)], tablebase.probeWdl(Fen.parse("8/5K2/8/8/8/8/k7/3R4 w - - 0 1")));
+        // Kc3 on the diagonal, Rg1 below it: (6 * 63 + rank 2 * 28 + g1 5) * 62 + 32 - 2
+        assertEquals(wdl[krvkValue(0, 27248)], tablebase.probeWdl(Fen.parse("8/8/8/k7/8/2K5/8/6R1 w - - 0 1")));
+        // Kb2 on the diagonal, Rb7 above it: reflected to Rg2 kd8, (6 * 63 + 28 + g2 11) * 62 + 59 - 2
+        assertEquals(wdl[krvkValue(0, 25911)], tablebase.probeWdl(Fen.parse("8/1R6/8/8/7k/8/1K6/8 w - - 0 1")));
+        // Kb2 Rf6 on the diagonal, kh3 below it: 23436 + 6944 + 1 * 7 * 28 + (5 - 1) * 28 + h3 17
+        assertEquals(wdl[krvkValue(0, 30705)], tablebase.probeWdl(Fen.parse("8/8/5R2/8/8/7k/1K6/8 w - - 0 1")));
+        // Kb2 Rd4 kg7 all on the diagonal: 23436 + 6944 + 784 + 1 * 7 * 6 + (3 - 1) * 6 + 6 - 2
+        assertEquals(wdl[krvkValue(0, 31222)], tablebase.probeWdl(Fen.parse("8/6k1/8/8/3R4/8/1K6/8 w - - 0 1")));
+    }
+
+    @Test
+    @DisplayName("rejects a file that is not a tablebase")
+    void badMagic(@TempDir Path dir) throws IOException {
+        Files.write(dir.resolve("KQvK.rtbw"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        assertThrows(IOException.class, () -> new SyzygyTablebase(dir));
+    }
+
+    @Test
+    @DisplayName("ignores files that are not named for a material signature")
+    void otherFiles(@TempDir Path dir) throws IOException {
+        Files.write(dir.resolve("README.txt"), new byte[]{1, 2, 3});
+        Files.write(dir.resolve("KQvKQvK.rtbw"), new byte[]{1, 2, 3});
+
+        assertEquals(0, new SyzygyTablebase(dir).maxPieces());
+    }
+
+    /**
+     * @return the directory given by {@code -Dsyzygy.path}, else the one holding the KRvK tables
+     * checked in under {@code src/test/resources/syzygy}, or null if there is neither
+     */
+    private static Path realTables() throws URISyntaxException {
+        String path = System.getProperty("syzygy.path");
+        if (path != null) {
+            return Path.of(path);
+        }
+        URL wdl = SyzygyTablebaseTest.class.getResource("/syzygy/KRvK.rtbw");
+        return wdl == null ? null : Path.of(wdl.toURI()).getParent();
+    }
+
+    @Test
+    @DisplayName("reads known KRvK values from the real tables")
+    void realKrvk() throws IOException, URISyntaxException {
+        Path dir = realTables();
+        Assumptions.assumeTrue(dir != null, "no real KRvK tables in src/test/resources/syzygy or -Dsyzygy.path");
+        SyzygyTablebase tablebase = new SyzygyTablebase(dir);
+        ChessGame white = Fen.parse("8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+        ChessGame black = Fen.parse("8/8/8/4k3/8/8/8/R3K3 b - - 0 1");
+        // black takes the undefended rook
+        ChessGame capture = Fen.parse("8/8/8/8/8/8/1k6/R3K3 b - - 0 1");
+        ChessGame stalemate = Fen.parse("k7/1RK5/8/8/8/8/8/8 b - - 0 1");
+        ChessGame mated = Fen.parse("k6R/8/1K6/8/8/8/8/8 b - - 0 1");
+
+        assertEquals(SyzygyTablebase.Wdl.WIN, tablebase.probeWdl(white));
+        assertEquals(SyzygyTablebase.Wdl.LOSS, tablebase.probeWdl(black));
+        assertEquals(SyzygyTablebase.Wdl.WIN, tablebase.probeWdl(Fen.parse("r3k3/8/8/8/4K3/8/8/8 b - - 0 1")));
+        assertEquals(SyzygyTablebase.Wdl.DRAW, tablebase.probeWdl(capture));
+        assertEquals(SyzygyTablebase.Wdl.DRAW, tablebase.probeWdl(stalemate));
+        assertEquals(SyzygyTablebase.Wdl.LOSS, tablebase.probeWdl(mated));
+        assertTrue(tablebase.probeDtz(white) > 0);
+        assertTrue(tablebase.probeDtz(black) < 0);
+        assertEquals(0, tablebase.probeDtz(capture));
+        assertEquals(0, tablebase.probeDtz(stalemate));
+        assertEquals(-1, tablebase.probeDtz(mated));
+    }
+}
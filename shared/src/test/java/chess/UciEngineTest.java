@@ -0,0 +1,105 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UciEngineTest {
+
+    private static String run(String commands) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        new UciEngine(new StringReader(commands), out).run();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("handshake")
+    void handshake() throws IOException {
+        String output = run("uci\nisready\nquit\n");
+
+        assertTrue(output.contains("uciok"));
+        assertTrue(output.contains("readyok"));
+    }
+
+    @Test
+    @DisplayName("perft from start position")
+    void perft() throws IOException {
+        String output = run("position startpos\ngo perft 3\n");
+
+        assertTrue(output.contains("Nodes searched: 8902"), output);
+        assertTrue(output.contains("nps "), output);
+    }
+
+    @Test
+    @DisplayName("perft from endgame position")
+    void perftEndgame() throws IOException {
+        String output = run("position fen 8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1\ngo perft 2\n");
+
+        assertTrue(output.contains("Nodes searched: 191"), output);
+    }
+
+    @Test
+    @DisplayName("perft after moves")
+    void perftAfterMoves() throws IOException {
+        String output = run("position fen 8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1 moves b4c4 h5h6\ngo perft 1\n");
+
+        // Ka5: a4 a6 b4; b5b6; Rc4: 11 along the c-file and 4th rank; e2 and g2 one or two steps
+        assertTrue(output.lines().anyMatch("Nodes searched: 19"::equals), output);
+        assertFalse(output.contains("illegal"), output);
+    }
+
+    @Test
+    @DisplayName("finds mate in one")
+    void mateInOne() throws IOException {
+        String output = run("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1\ngo depth 3\nisready\n");
+
+        assertTrue(output.contains("bestmove a1a8"), output);
+        assertTrue(output.contains("score mate 1"), output);
+        assertTrue(output.contains("nodes "), output);
+    }
+
+    @Test
+    @DisplayName("stop returns a best move")
+    void stop() throws IOException, InterruptedException {
+        String output = run("position startpos\ngo infinite\nstop\nquit\n");
+
+        assertTrue(output.contains("bestmove "), output);
+    }
+
+    @Test
+    @DisplayName("end of input stops an infinite search")
+    @Timeout(10)
+    void infiniteAtEndOfInput() throws IOException {
+        String output = run("position startpos\ngo infinite\n");
+
+        assertTrue(output.contains("bestmove "), output);
+    }
+
+    @Test
+    @DisplayName("perft answers isready and stops on stop")
+    @Timeout(10)
+    void stopPerft() throws IOException {
+        String output = run("position startpos\ngo perft 8\nisready\nstop\n");
+
+        assertTrue(output.contains("readyok"), output);
+        assertTrue(output.contains("perft stopped"), output);
+        assertFalse(output.contains("Nodes searched"), output);
+    }
+
+    @Test
+    @DisplayName("move notation round trip")
+    void moveNotation() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN);
+
+        assertEquals("e7e8q", UciEngine.formatMove(move));
+        assertEquals(move, UciEngine.parseMove("e7e8q"));
+        assertNull(UciEngine.parseMove("e9e8"));
+    }
+}
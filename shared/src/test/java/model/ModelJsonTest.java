@@ -0,0 +1,56 @@
+package model;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModelJsonTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    @DisplayName("records are written with their reflective field names, leaving out nulls")
+    void write() {
+        assertEquals("{\"authToken\":\"t\",\"username\":\"u\"}", gson.toJson(new AuthData("t", "u")));
+        assertEquals("{\"username\":\"u\",\"email\":\"e\"}", gson.toJson(new UserData("u", null, "e")));
+        assertEquals("{\"gameID\":3,\"blackUsername\":\"b\",\"gameName\":\"g\","
+                        + "\"game\":\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w\"}",
+                gson.toJson(new GameData(3, null, "b", "g", new ChessGame())));
+        assertEquals("{\"gameID\":7}", gson.toJson(new CreateGameResult(7)));
+        assertEquals("{\"message\":\"Error: bad request\"}", gson.toJson(new ErrorResult("Error: bad request")));
+        assertEquals("{\"username\":null,\"password\":\"p\",\"email\":null}",
+                new GsonBuilder().serializeNulls().create().toJson(new UserData(null, "p", null)));
+    }
+
+    @Test
+    @DisplayName("records read back, skipping unknown fields")
+    void read() {
+        assertEquals(new UserData("u", "p", null),
+                gson.fromJson("{\"username\":\"u\",\"extra\":[1,{\"a\":2}],\"password\":\"p\",\"email\":null}",
+                        UserData.class));
+        assertEquals(new JoinGameRequest("WHITE", 12), gson.fromJson("{\"playerColor\":\"WHITE\",\"gameID\":12.0}",
+                JoinGameRequest.class));
+        assertEquals(new JoinGameRequest(null, null), gson.fromJson("{}", JoinGameRequest.class));
+        assertEquals(new CreateGameRequest("g"), gson.fromJson("{\"gameName\":\"g\"}", CreateGameRequest.class));
+        assertNull(gson.fromJson("null", AuthData.class));
+    }
+
+    @Test
+    @DisplayName("a game list round-trips, with its game summaries")
+    void listGames() {
+        var games = new ListGamesResult(List.of(
+                new GameSummary(1, "w", null, "one"),
+                GameSummary.of(new GameData(2, null, null, "two", new ChessGame()))));
+
+        String json = gson.toJson(games);
+        assertEquals("{\"games\":[{\"gameID\":1,\"whiteUsername\":\"w\",\"gameName\":\"one\"},"
+                + "{\"gameID\":2,\"gameName\":\"two\"}]}", json);
+        ListGamesResult copy = gson.fromJson(json, ListGamesResult.class);
+        assertEquals(List.copyOf(games.games()), List.copyOf(copy.games()));
+        assertEquals("{}", gson.toJson(new ListGamesResult(null)));
+    }
+}